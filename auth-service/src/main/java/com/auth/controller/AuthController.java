@@ -2,9 +2,11 @@ package com.auth.controller;
 
 import com.auth.dto.AuthRequest;
 import com.auth.dto.AuthResponse;
+import com.auth.dto.RefreshRequest;
 import com.auth.dto.RegisterRequest;
 import com.auth.entity.User;
 import com.auth.service.AuthService;
+import com.auth.service.RefreshTokenService;
 import com.auth.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,6 +17,8 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -22,6 +26,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
@@ -31,6 +37,7 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthService authService;
+    private final RefreshTokenService refreshTokenService;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
 
@@ -91,7 +98,7 @@ public class AuthController {
 
     @Operation(
             summary = "Аутентификация пользователя",
-            description = "Вход пользователя в систему. При успешной аутентификации возвращается JWT токен."
+            description = "Вход пользователя в систему. При успешной аутентификации возвращается JWT токен и refresh-токен."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -102,6 +109,10 @@ public class AuthController {
             @ApiResponse(
                     responseCode = "400",
                     description = "Неверные учетные данные"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Очередь проверки паролей переполнена, повторите запрос позже"
             )
     })
     @PostMapping("/login")
@@ -116,7 +127,8 @@ public class AuthController {
                         token,
                         user.get().getUsername(),
                         user.get().getRole(),
-                        "Login successful"
+                        "Login successful",
+                        refreshTokenService.issue(user.get())
                 );
 
                 return ResponseEntity.ok(response);
@@ -124,11 +136,58 @@ public class AuthController {
                 return ResponseEntity.badRequest().body("Invalid credentials");
             }
 
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Login failed: " + e.getMessage());
         }
     }
 
+    @Operation(
+            summary = "Обновление токена",
+            description = "Выдача нового JWT по refresh-токену без проверки пароля. " +
+                    "Refresh-токен одноразовый: в ответе возвращается новый, предъявленный больше не принимается."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Токен обновлен",
+                    content = @Content(schema = @Schema(implementation = AuthResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Refresh-токен неизвестен, просрочен или уже использован"
+            )
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        try {
+            var rotation = refreshTokenService.rotate(request.getRefreshToken());
+
+            if (rotation.isPresent()) {
+                User user = rotation.get().user();
+                String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
+
+                AuthResponse response = new AuthResponse(
+                        token,
+                        user.getUsername(),
+                        user.getRole(),
+                        "Token refreshed",
+                        rotation.get().refreshToken()
+                );
+
+                return ResponseEntity.ok(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token");
+            }
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Refresh failed: " + e.getMessage());
+        }
+    }
+
     @Operation(
             summary = "Проверка токена",
             description = "Валидация JWT токена. Используется для проверки действительности токена."
@@ -164,12 +223,13 @@ public class AuthController {
                 String token = cleanedHeader.substring(7).trim();
                 System.out.println("Extracted token: " + token);
 
-                if (jwtUtil.validateToken(token)) {
+                Optional<JwtUtil.VerifiedToken> verified = jwtUtil.verify(token);
+                if (verified.isPresent()) {
                     Map<String, Object> response = new HashMap<>();
                     response.put("status", "valid");
                     response.put("message", "Token is valid");
-                    response.put("username", jwtUtil.extractUsername(token));
-                    response.put("role", jwtUtil.extractRole(token));
+                    response.put("username", verified.get().username());
+                    response.put("role", verified.get().role());
                     response.put("received_header", authHeader); // Для отладки
                     response.put("cleaned_header", cleanedHeader); // Для отладки
                     return ResponseEntity.ok(response);
@@ -18,10 +18,18 @@ public class AuthResponse {
     @Schema(description = "Сообщение", example = "Login successful")
     private String message;
 
+    @Schema(description = "Refresh-токен для получения нового JWT без пароля (POST /auth/refresh)")
+    private String refreshToken;
+
     public AuthResponse(String token, String username, String role, String message) {
         this.token = token;
         this.username = username;
         this.role = role;
         this.message = message;
     }
+
+    public AuthResponse(String token, String username, String role, String message, String refreshToken) {
+        this(token, username, role, message);
+        this.refreshToken = refreshToken;
+    }
 }
\ No newline at end of file
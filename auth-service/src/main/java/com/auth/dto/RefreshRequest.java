@@ -0,0 +1,12 @@
+package com.auth.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Запрос на обновление токена")
+public class RefreshRequest {
+
+    @Schema(description = "Refresh-токен, полученный при входе или предыдущем обновлении")
+    private String refreshToken;
+}
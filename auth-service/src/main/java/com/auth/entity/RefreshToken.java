@@ -0,0 +1,29 @@
+package com.auth.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Refresh-токен. Сам токен не хранится: поиск идет по SHA-256 хешу (уникальный индекс),
+ * поэтому утечка таблицы не дает рабочих токенов
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id")
+})
+@Data
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", unique = true, nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
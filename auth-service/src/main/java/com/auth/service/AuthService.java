@@ -3,17 +3,20 @@ package com.auth.service;
 import com.auth.entity.User;
 import com.auth.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor hashingExecutor;
 
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
@@ -23,14 +26,33 @@ public class AuthService {
         return userRepository.save(user);
     }
 
+    /**
+     * Проверка пароля выполняется в пуле PasswordHashingExecutor. Если хеш пароля создан с меньшей
+     * стоимостью, чем текущая auth.password.bcrypt-strength, он пересчитывается при успешном входе
+     */
     public Optional<User> authenticate(String username, String password) {
         Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            if (passwordEncoder.matches(password, user.getPassword())) {
-                return Optional.of(user);
+        if (userOpt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        User user = userOpt.get();
+        String storedHash = user.getPassword();
+        String upgradedHash = hashingExecutor.call(() -> {
+            if (!passwordEncoder.matches(password, storedHash)) {
+                return null;
             }
+            return passwordEncoder.upgradeEncoding(storedHash) ? passwordEncoder.encode(password) : storedHash;
+        });
+
+        if (upgradedHash == null) {
+            return Optional.empty();
+        }
+        if (!upgradedHash.equals(storedHash)) {
+            user.setPassword(upgradedHash);
+            userRepository.save(user);
+            log.info("Password hash of user {} upgraded to the current cost", username);
         }
-        return Optional.empty();
+        return Optional.of(user);
     }
-}
\ No newline at end of file
+}
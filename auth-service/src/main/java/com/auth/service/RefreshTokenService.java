@@ -0,0 +1,117 @@
+package com.auth.service;
+
+import com.auth.entity.RefreshToken;
+import com.auth.entity.User;
+import com.auth.repository.RefreshTokenRepository;
+import com.auth.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Выпуск и ротация refresh-токенов. Токен - 256 случайных бит (base64url), в базе хранится только
+ * его SHA-256. Обновление - поиск по индексу без проверки пароля; использованный токен удаляется
+ * и заменяется новым, повторное предъявление того же токена отклоняется
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               @Value("${auth.refresh-token.ttl-days:14}") long ttlDays) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.ttl = Duration.ofDays(ttlDays);
+    }
+
+    /**
+     * Выпустить новый refresh-токен; заодно удаляются просроченные токены пользователя
+     */
+    @Transactional
+    public String issue(User user) {
+        Instant now = Instant.now();
+        refreshTokenRepository.deleteExpiredByUserId(user.getId(), now);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setUserId(user.getId());
+        refreshToken.setExpiresAt(now.plus(ttl));
+        refreshTokenRepository.save(refreshToken);
+        return rawToken;
+    }
+
+    /**
+     * Обменять refresh-токен на новый. Пустой результат - токен неизвестен, просрочен,
+     * уже использован или пользователь отключен
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return Optional.empty();
+        }
+
+        Optional<RefreshToken> stored = refreshTokenRepository.findByTokenHash(hash(rawToken));
+        if (stored.isEmpty()) {
+            log.warn("Unknown or already used refresh token");
+            return Optional.empty();
+        }
+
+        RefreshToken token = stored.get();
+        // Удаление - точка ротации: из параллельных запросов с одним токеном выигрывает один
+        if (refreshTokenRepository.deleteByIdReturningCount(token.getId()) == 0) {
+            log.warn("Refresh token {} was already used concurrently", token.getId());
+            return Optional.empty();
+        }
+        if (token.getExpiresAt().isBefore(Instant.now())) {
+            log.warn("Refresh token {} expired at {}", token.getId(), token.getExpiresAt());
+            return Optional.empty();
+        }
+
+        Optional<User> user = userRepository.findById(token.getUserId())
+                .filter(u -> Boolean.TRUE.equals(u.getEnabled()));
+        if (user.isEmpty()) {
+            log.warn("Refresh token {} belongs to a missing or disabled user", token.getId());
+            return Optional.empty();
+        }
+
+        return Optional.of(new Rotation(user.get(), issue(user.get())));
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Результат ротации: владелец токена и выданный взамен refresh-токен
+     */
+    public record Rotation(User user, String refreshToken) {
+    }
+}
@@ -8,38 +8,42 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
+/**
+ * Выпуск и проверка JWT. Ключ HMAC и парсер создаются один раз при старте: JwtParser неизменяем
+ * и потокобезопасен, поэтому проверка токена - один разбор без повторного построения ключа.
+ */
 @Slf4j
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
-
-    @Value("${jwt.expiration}")
-    private Long expiration;
-
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final long expiration;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expiration) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.expiration = expiration;
     }
 
     public String generateToken(String username, String role) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String extractUsername(String token) {
@@ -51,70 +55,90 @@ public class JwtUtil {
     }
 
     public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    /**
+     * Проверить подпись и обязательные поля токена за один разбор.
+     * Пустой результат - токен невалиден (причина пишется в лог)
+     */
+    public Optional<VerifiedToken> verify(String token) {
         try {
             // Проверяем что токен не пустой
             if (token == null || token.trim().isEmpty()) {
                 log.warn("Token is null or empty");
-                return false;
+                return Optional.empty();
             }
 
             // Проверяем базовую структуру JWT (должен содержать 3 части разделенные точками)
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                log.warn("Invalid JWT structure. Expected 3 parts, got: {}", parts.length);
-                return false;
+            int dots = 0;
+            for (int i = 0; i < token.length(); i++) {
+                if (token.charAt(i) == '.') {
+                    dots++;
+                }
+            }
+            if (dots != 2) {
+                log.warn("Invalid JWT structure. Expected 3 parts, got: {}", dots + 1);
+                return Optional.empty();
             }
 
-            // Извлекаем claims и проверяем обязательные поля
+            // Проверка подписи и срока действия выполняется при разборе
             Claims claims = extractClaims(token);
 
             // Проверяем subject (username)
             String username = claims.getSubject();
             if (username == null || username.trim().isEmpty()) {
                 log.warn("Token missing subject (username)");
-                return false;
+                return Optional.empty();
             }
 
             // Проверяем expiration date
-            Date expiration = claims.getExpiration();
-            if (expiration == null) {
+            Date expiresAt = claims.getExpiration();
+            if (expiresAt == null) {
                 log.warn("Token missing expiration date");
-                return false;
+                return Optional.empty();
             }
 
-            if (expiration.before(new Date())) {
-                log.warn("Token expired at: {}", expiration);
-                return false;
+            Date now = new Date();
+            if (expiresAt.before(now)) {
+                log.warn("Token expired at: {}", expiresAt);
+                return Optional.empty();
             }
 
             // Проверяем issued at date (опционально, но рекомендуется)
             Date issuedAt = claims.getIssuedAt();
-            if (issuedAt != null && issuedAt.after(new Date())) {
+            if (issuedAt != null && issuedAt.after(now)) {
                 log.warn("Token issued in the future: {}", issuedAt);
-                return false;
+                return Optional.empty();
             }
 
             log.debug("Token validation successful for user: {}", username);
-            return true;
+            return Optional.of(new VerifiedToken(username, claims.get("role", String.class), issuedAt, expiresAt));
 
-        } catch (io.jsonwebtoken.ExpiredJwtException e) {
+        } catch (ExpiredJwtException e) {
             log.warn("Token expired: {}", e.getMessage());
-            return false;
-        } catch (io.jsonwebtoken.MalformedJwtException e) {
+            return Optional.empty();
+        } catch (MalformedJwtException e) {
             log.warn("Malformed token: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         } catch (io.jsonwebtoken.SignatureException e) {
             log.warn("Invalid token signature: {}", e.getMessage());
-            return false;
-        } catch (io.jsonwebtoken.UnsupportedJwtException e) {
+            return Optional.empty();
+        } catch (UnsupportedJwtException e) {
             log.warn("Unsupported JWT token: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         } catch (IllegalArgumentException e) {
             log.warn("Invalid token argument: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         } catch (Exception e) {
             log.error("Unexpected token validation error: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверенные поля токена
+     */
+    public record VerifiedToken(String username, String role, Date issuedAt, Date expiresAt) {
+    }
+}
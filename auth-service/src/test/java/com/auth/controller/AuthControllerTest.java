@@ -1,9 +1,11 @@
 package com.auth.controller;
 
 import com.auth.dto.AuthRequest;
+import com.auth.dto.RefreshRequest;
 import com.auth.dto.RegisterRequest;
 import com.auth.entity.User;
 import com.auth.service.AuthService;
+import com.auth.service.RefreshTokenService;
 import com.auth.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,9 +20,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,6 +37,9 @@ class AuthControllerTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     @Mock
     private JwtUtil jwtUtil;
 
@@ -120,6 +127,7 @@ class AuthControllerTest {
 
         when(authService.authenticate(anyString(), anyString())).thenReturn(Optional.of(user));
         when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("jwt-token");
+        when(refreshTokenService.issue(user)).thenReturn("refresh-token");
 
         // Act & Assert - выполнение запроса и проверка результатов
         mockMvc.perform(post("/auth/login")
@@ -127,7 +135,8 @@ class AuthControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").value("jwt-token"))
-                .andExpect(jsonPath("$.username").value("testuser"));
+                .andExpect(jsonPath("$.username").value("testuser"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-token"));
     }
 
     /**
@@ -158,4 +167,84 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Invalid credentials"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Тест для endpoint: POST /auth/login
+     * Сценарий: Очередь проверки паролей переполнена
+     * Ожидаемый результат:
+     * - HTTP статус 503 (Service Unavailable) с заголовком Retry-After
+     * - Запрос не ждет освобождения пула
+     */
+    @Test
+    void login_ShouldReturnServiceUnavailable_WhenHashingQueueIsFull() throws Exception {
+        // Arrange - подготовка тестовых данных и моков
+        AuthRequest request = new AuthRequest();
+        request.setUsername("testuser");
+        request.setPassword("password");
+
+        when(authService.authenticate(anyString(), anyString()))
+                .thenThrow(new RejectedExecutionException("Authentication is temporarily overloaded, please retry"));
+
+        // Act & Assert - выполнение запроса и проверка результатов
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    /**
+     * Тест для endpoint: POST /auth/refresh
+     * Назначение: Обновление JWT по refresh-токену
+     * Сценарий: Предъявлен действующий refresh-токен
+     * Ожидаемый результат:
+     * - HTTP статус 200 (OK)
+     * - Новый JWT и новый refresh-токен взамен использованного
+     * - Пароль не проверяется
+     */
+    @Test
+    void refresh_ShouldReturnNewTokens_WhenRefreshTokenIsValid() throws Exception {
+        // Arrange - подготовка тестовых данных и моков
+        RefreshRequest request = new RefreshRequest();
+        request.setRefreshToken("old-refresh-token");
+
+        User user = new User();
+        user.setUsername("testuser");
+        user.setRole("USER");
+
+        when(refreshTokenService.rotate("old-refresh-token"))
+                .thenReturn(Optional.of(new RefreshTokenService.Rotation(user, "new-refresh-token")));
+        when(jwtUtil.generateToken("testuser", "USER")).thenReturn("jwt-token");
+
+        // Act & Assert - выполнение запроса и проверка результатов
+        mockMvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("jwt-token"))
+                .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"));
+        verifyNoInteractions(authService);
+    }
+
+    /**
+     * Тест для endpoint: POST /auth/refresh
+     * Сценарий: Refresh-токен неизвестен, просрочен или уже использован
+     * Ожидаемый результат: HTTP статус 401 (Unauthorized), JWT не выпускается
+     */
+    @Test
+    void refresh_ShouldReturnUnauthorized_WhenRefreshTokenIsInvalid() throws Exception {
+        // Arrange - подготовка тестовых данных и моков
+        RefreshRequest request = new RefreshRequest();
+        request.setRefreshToken("used-refresh-token");
+
+        when(refreshTokenService.rotate("used-refresh-token")).thenReturn(Optional.empty());
+
+        // Act & Assert - выполнение запроса и проверка результатов
+        mockMvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().string("Invalid refresh token"));
+        verifyNoInteractions(jwtUtil);
+    }
+}
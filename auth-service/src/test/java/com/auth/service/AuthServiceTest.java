@@ -2,15 +2,18 @@ package com.auth.service;
 
 import com.auth.entity.User;
 import com.auth.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,6 +28,9 @@ class AuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Spy
+    private PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(1, 4);
+
     @InjectMocks
     private AuthService authService;
 
@@ -41,6 +47,11 @@ class AuthServiceTest {
         testUser.setRole("USER");
     }
 
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
     /**
      * Тест: Поиск пользователя по имени пользователя
      * Действие: Поиск существующего пользователя
@@ -114,4 +125,63 @@ class AuthServiceTest {
         // Assert - проверка результатов
         assertFalse(result.isPresent());
     }
-}
\ No newline at end of file
+
+    /**
+     * Тест: Пересчет хеша пароля при входе
+     * Действие: Успешный вход пользователя, хеш которого создан с устаревшей стоимостью BCrypt
+     * Ожидание: Пароль перехеширован и пользователь сохранен с новым хешем
+     */
+    @Test
+    void authenticate_ShouldRehashPassword_WhenEncodingIsOutdated() {
+        // Arrange - настройка моков
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenReturn("strongerHash");
+
+        // Act - вызов тестируемого метода
+        Optional<User> result = authService.authenticate("testuser", "password");
+
+        // Assert - проверка результатов и вызовов
+        assertTrue(result.isPresent());
+        assertEquals("strongerHash", result.get().getPassword());
+        verify(userRepository).save(testUser);
+    }
+
+    /**
+     * Тест: Вход без пересчета хеша
+     * Действие: Успешный вход пользователя с актуальным хешем
+     * Ожидание: Пароль не перехешируется, пользователь не сохраняется
+     */
+    @Test
+    void authenticate_ShouldNotSaveUser_WhenEncodingIsCurrent() {
+        // Arrange - настройка моков
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(false);
+
+        // Act - вызов тестируемого метода
+        Optional<User> result = authService.authenticate("testuser", "password");
+
+        // Assert - проверка результатов и вызовов
+        assertTrue(result.isPresent());
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    /**
+     * Тест: Переполнение пула проверки паролей
+     * Действие: Вход, когда пул и его очередь заняты
+     * Ожидание: Немедленный RejectedExecutionException, пароль не проверяется
+     */
+    @Test
+    void authenticate_ShouldRejectImmediately_WhenHashingQueueIsFull() {
+        // Arrange - настройка моков
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        doThrow(new RejectedExecutionException("busy")).when(hashingExecutor).call(any());
+
+        // Act & Assert - проверка исключения
+        assertThrows(RejectedExecutionException.class, () -> authService.authenticate("testuser", "password"));
+        verify(passwordEncoder, never()).matches(any(), any());
+    }
+}
@@ -0,0 +1,84 @@
+package com.auth.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Тест: Выполнение задачи в пуле
+     * Ожидание: Возвращается результат задачи, выполненной в потоке password-hashing
+     */
+    @Test
+    void call_ShouldReturnResult_FromHashingThread() {
+        String threadName = executor.call(() -> Thread.currentThread().getName());
+
+        assertTrue(threadName.startsWith("password-hashing-"));
+    }
+
+    /**
+     * Тест: Исключение задачи
+     * Ожидание: RuntimeException из задачи пробрасывается вызывающему без обертки
+     */
+    @Test
+    void call_ShouldRethrowRuntimeException_FromTask() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> executor.call(() -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        assertEquals("boom", thrown.getMessage());
+    }
+
+    /**
+     * Тест: Переполнение очереди
+     * Действие: Единственный поток занят, в очередь на одно место приходят две задачи
+     * Ожидание: Одна задача ждет в очереди, другая сразу завершается RejectedExecutionException
+     */
+    @Test
+    void call_ShouldReject_WhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.call(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> executor.call(() -> true));
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> executor.call(() -> true));
+
+        // Отклоненная задача завершается, не дожидаясь освобождения пула
+        CompletableFuture.anyOf(first, second).handle((result, error) -> null).get(5, TimeUnit.SECONDS);
+        release.countDown();
+
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        int rejected = 0;
+        for (CompletableFuture<Boolean> future : List.of(first, second)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(RejectedExecutionException.class, e.getCause());
+                rejected++;
+            }
+        }
+        assertEquals(1, rejected);
+    }
+}
@@ -0,0 +1,157 @@
+package com.auth.service;
+
+import com.auth.entity.RefreshToken;
+import com.auth.entity.User;
+import com.auth.repository.RefreshTokenRepository;
+import com.auth.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, 14);
+
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testuser");
+        testUser.setRole("USER");
+    }
+
+    /**
+     * Тест: Выпуск refresh-токена
+     * Ожидание: Клиенту отдается случайный токен, в базе сохраняется только его хеш и срок действия
+     */
+    @Test
+    void issue_ShouldStoreOnlyHashOfToken() {
+        // Act - вызов тестируемого метода
+        String rawToken = refreshTokenService.issue(testUser);
+
+        // Assert - проверка результатов и вызовов
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken stored = captor.getValue();
+        assertEquals(43, rawToken.length());
+        assertEquals(64, stored.getTokenHash().length());
+        assertNotEquals(rawToken, stored.getTokenHash());
+        assertEquals(1L, stored.getUserId());
+        assertTrue(stored.getExpiresAt().isAfter(Instant.now().plus(13, ChronoUnit.DAYS)));
+        verify(refreshTokenRepository).deleteExpiredByUserId(eq(1L), any(Instant.class));
+    }
+
+    /**
+     * Тест: Ротация refresh-токена
+     * Действие: Предъявлен ранее выпущенный токен
+     * Ожидание: Старый токен удаляется, возвращается владелец и новый токен
+     */
+    @Test
+    void rotate_ShouldReplaceToken_WhenTokenIsValid() {
+        // Arrange - выпуск токена и настройка моков
+        String rawToken = refreshTokenService.issue(testUser);
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken stored = captor.getValue();
+        stored.setId(10L);
+
+        when(refreshTokenRepository.findByTokenHash(stored.getTokenHash())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteByIdReturningCount(10L)).thenReturn(1);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // Act - вызов тестируемого метода
+        Optional<RefreshTokenService.Rotation> result = refreshTokenService.rotate(rawToken);
+
+        // Assert - проверка результатов
+        assertTrue(result.isPresent());
+        assertEquals(testUser, result.get().user());
+        assertNotEquals(rawToken, result.get().refreshToken());
+        verify(refreshTokenRepository).deleteByIdReturningCount(10L);
+    }
+
+    /**
+     * Тест: Повторное использование refresh-токена
+     * Действие: Токен уже удален параллельным запросом
+     * Ожидание: Пустой результат, новый токен не выпускается
+     */
+    @Test
+    void rotate_ShouldReturnEmpty_WhenTokenWasAlreadyUsed() {
+        // Arrange - настройка моков
+        RefreshToken stored = new RefreshToken();
+        stored.setId(10L);
+        stored.setUserId(1L);
+        stored.setExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteByIdReturningCount(10L)).thenReturn(0);
+
+        // Act - вызов тестируемого метода
+        Optional<RefreshTokenService.Rotation> result = refreshTokenService.rotate("raw-token");
+
+        // Assert - проверка результатов
+        assertTrue(result.isEmpty());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    /**
+     * Тест: Просроченный refresh-токен
+     * Ожидание: Токен удаляется, результат пустой
+     */
+    @Test
+    void rotate_ShouldReturnEmpty_WhenTokenExpired() {
+        // Arrange - настройка моков
+        RefreshToken stored = new RefreshToken();
+        stored.setId(10L);
+        stored.setUserId(1L);
+        stored.setExpiresAt(Instant.now().minus(1, ChronoUnit.MINUTES));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteByIdReturningCount(10L)).thenReturn(1);
+
+        // Act - вызов тестируемого метода
+        Optional<RefreshTokenService.Rotation> result = refreshTokenService.rotate("raw-token");
+
+        // Assert - проверка результатов
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    /**
+     * Тест: Неизвестный refresh-токен
+     * Ожидание: Пустой результат без удаления и выпуска токенов
+     */
+    @Test
+    void rotate_ShouldReturnEmpty_WhenTokenIsUnknown() {
+        // Arrange - настройка моков
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        // Act - вызов тестируемого метода
+        Optional<RefreshTokenService.Rotation> result = refreshTokenService.rotate("unknown");
+
+        // Assert - проверка результатов
+        assertTrue(result.isEmpty());
+        verify(refreshTokenRepository, never()).deleteByIdReturningCount(any());
+    }
+}
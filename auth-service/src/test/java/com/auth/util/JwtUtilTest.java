@@ -0,0 +1,61 @@
+package com.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "mySuperSecretKeyForJWTTokenGenerationInAuthService123!";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 3600000L);
+
+    /**
+     * Тест: выпущенный токен проверяется за один разбор, поля доступны без повторного разбора
+     */
+    @Test
+    void verify_WithIssuedToken_ShouldReturnClaims() {
+        String token = jwtUtil.generateToken("testuser", "ADMIN");
+
+        Optional<JwtUtil.VerifiedToken> verified = jwtUtil.verify(token);
+
+        assertTrue(verified.isPresent());
+        assertEquals("testuser", verified.get().username());
+        assertEquals("ADMIN", verified.get().role());
+        assertTrue(verified.get().expiresAt().after(verified.get().issuedAt()));
+    }
+
+    /**
+     * Тест: токен, подписанный другим ключом, отклоняется
+     */
+    @Test
+    void verify_WithForeignSignature_ShouldReturnEmpty() {
+        JwtUtil other = new JwtUtil("anotherSecretKeyThatIsLongEnoughForHmacSha256Signing!", 3600000L);
+        String token = other.generateToken("testuser", "USER");
+
+        assertTrue(jwtUtil.verify(token).isEmpty());
+        assertFalse(jwtUtil.validateToken(token));
+    }
+
+    /**
+     * Тест: истекший токен отклоняется
+     */
+    @Test
+    void verify_WithExpiredToken_ShouldReturnEmpty() {
+        JwtUtil expired = new JwtUtil(SECRET, -1000L);
+        String token = expired.generateToken("testuser", "USER");
+
+        assertTrue(jwtUtil.verify(token).isEmpty());
+    }
+
+    /**
+     * Тест: строка не из трех частей отклоняется до разбора
+     */
+    @Test
+    void verify_WithMalformedToken_ShouldReturnEmpty() {
+        assertTrue(jwtUtil.verify("not-a-jwt").isEmpty());
+        assertTrue(jwtUtil.verify(" ").isEmpty());
+    }
+}
@@ -1,6 +1,10 @@
 package com.hotelbooking.booking.client;
 
 import com.hotelbooking.booking.client.dto.AvailabilityRequest;
+import com.hotelbooking.booking.client.dto.BatchAvailabilityRequest;
+import com.hotelbooking.booking.client.dto.BatchReleaseRequest;
+import com.hotelbooking.booking.client.dto.BatchReservationRequest;
+import com.hotelbooking.booking.client.dto.BatchReservationResponse;
 import com.hotelbooking.booking.client.dto.ReleaseRequest;
 import com.hotelbooking.booking.client.dto.BookingConfirmationRequest;
 import com.hotelbooking.booking.client.dto.RoomRecommendation;
@@ -10,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @FeignClient(
         name = "hotel-service",
@@ -30,6 +35,18 @@ public interface HotelServiceClient {
     Boolean confirmAvailabilityWithDates(@PathVariable("roomId") Long roomId,
                                          @RequestBody AvailabilityRequest request);
 
+    @PostMapping("/rooms/availability/batch")
+    Map<Long, Boolean> checkAvailabilityBatch(@RequestBody BatchAvailabilityRequest request);
+
+    @PostMapping("/rooms/reserve-batch")
+    BatchReservationResponse reserveRooms(@RequestBody BatchReservationRequest request);
+
+    @PostMapping("/rooms/release-batch")
+    void releaseRooms(@RequestBody BatchReleaseRequest request);
+
+    @PostMapping("/rooms/cancel-batch")
+    void cancelBookings(@RequestBody BatchReleaseRequest request);
+
     @PostMapping("/rooms/{roomId}/confirm-booking")
     void confirmBooking(@PathVariable("roomId") Long roomId,
                         @RequestBody BookingConfirmationRequest request);
@@ -42,4 +59,10 @@ public interface HotelServiceClient {
     List<RoomRecommendation> getRecommendedRooms(
             @RequestParam("startDate") LocalDate startDate,
             @RequestParam("endDate") LocalDate endDate);
+
+    @GetMapping("/rooms/recommend/date")
+    List<RoomRecommendation> getTopRecommendedRooms(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate,
+            @RequestParam("limit") int limit);
 }
\ No newline at end of file
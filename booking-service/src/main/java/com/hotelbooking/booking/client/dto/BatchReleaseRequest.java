@@ -0,0 +1,9 @@
+package com.hotelbooking.booking.client.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchReleaseRequest {
+    private List<Long> bookingIds;
+}
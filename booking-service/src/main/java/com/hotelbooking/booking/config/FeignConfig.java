@@ -28,7 +28,10 @@ public class FeignConfig {
             log.debug("🎯 Method: {}", requestTemplate.method());
 
             if (requestTemplate.url().contains("/confirm-availability") ||
-                    requestTemplate.url().contains("/release")) {
+                    requestTemplate.url().contains("/release") ||
+                    requestTemplate.url().contains("/availability/batch") ||
+                    requestTemplate.url().contains("/reserve-batch") ||
+                    requestTemplate.url().contains("/cancel-batch")) {
 
                 log.info("🎯 ✅ INTERNAL ENDPOINT DETECTED - Adding auth headers for: {}", requestTemplate.url());
 
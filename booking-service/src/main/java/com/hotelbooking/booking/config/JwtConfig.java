@@ -1,5 +1,7 @@
 package com.hotelbooking.booking.config;
 
+import com.hotelbooking.common.security.CachingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,12 +13,14 @@ import javax.crypto.spec.SecretKeySpec;
 @Configuration
 public class JwtConfig {
 
+    // Проверенные токены кэшируются до их exp: клиенты используют один токен в течение часа
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry,
+                                 @Value("${booking.jwt-cache.max-size:10000}") long cacheMaxSize) {
         String secretString = "mySuperSecretKeyForJWTTokenGenerationInAuthService123!";
 
         byte[] keyBytes = secretString.getBytes();
         SecretKeySpec secretKey = new SecretKeySpec(keyBytes, "HmacSHA256");
-        return NimbusJwtDecoder.withSecretKey(secretKey).build();
+        return new CachingJwtDecoder(NimbusJwtDecoder.withSecretKey(secretKey).build(), cacheMaxSize, meterRegistry);
     }
 }
\ No newline at end of file
@@ -3,8 +3,11 @@ package com.hotelbooking.booking.controller;
 import com.hotelbooking.booking.client.dto.RoomRecommendation;
 import com.hotelbooking.booking.dto.BookingDto;
 import com.hotelbooking.booking.dto.BookingRequest;
+import com.hotelbooking.booking.dto.GroupBookingRequest;
 import com.hotelbooking.booking.entity.Booking;
+import com.hotelbooking.booking.entity.BookingStatus;
 import com.hotelbooking.booking.mapper.BookingMapper;
+import com.hotelbooking.booking.service.BookingConfirmationDispatcher;
 import com.hotelbooking.booking.service.BookingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -31,6 +34,7 @@ public class BookingController {
 
     private final BookingService bookingService;
     private final BookingMapper bookingMapper;
+    private final BookingConfirmationDispatcher confirmationDispatcher;
 
     @Operation(summary = "Создать бронирование")
     @PostMapping
@@ -45,6 +49,44 @@ public class BookingController {
         return ResponseEntity.ok(bookingMapper.toDto(createdBooking));
     }
 
+    @Operation(summary = "Создать бронирование асинхронно",
+            description = "Возвращает 202 с бронированием в статусе PENDING; итоговый статус - через GET /bookings/{id}")
+    @PostMapping("/async")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<BookingDto> createBookingAsync(@RequestBody BookingRequest request) {
+        String correlationId = request.getCorrelationId() != null ?
+                request.getCorrelationId() : UUID.randomUUID().toString();
+
+        Booking booking = bookingService.createPendingBooking(bookingMapper.toEntity(request), correlationId);
+        if (booking.getStatus() == BookingStatus.PENDING) {
+            confirmationDispatcher.submit(booking.getId());
+        }
+
+        return ResponseEntity.accepted().body(bookingMapper.toDto(booking));
+    }
+
+    @Operation(summary = "Получить бронирование")
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<BookingDto> getBooking(@PathVariable Long id) {
+        return ResponseEntity.ok(bookingMapper.toDto(bookingService.getBookingForCurrentUser(id)));
+    }
+
+    @Operation(summary = "Создать групповое бронирование",
+            description = "Бронирует несколько номеров на одни даты: все или ничего")
+    @PostMapping("/group")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<BookingDto>> createGroupBooking(@RequestBody GroupBookingRequest request) {
+        String correlationId = request.getCorrelationId() != null ?
+                request.getCorrelationId() : UUID.randomUUID().toString();
+
+        List<Booking> bookings = bookingService.createGroupBooking(bookingMapper.toEntities(request), correlationId);
+        List<BookingDto> bookingDtos = bookings.stream()
+                .map(bookingMapper::toDto)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(bookingDtos);
+    }
+
     @Operation(summary = "Получить бронирования пользователя")
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
@@ -17,5 +17,6 @@ public class BookingDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String correlationId;
+    private String groupId;
     private Boolean autoSelect;
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.hotelbooking.booking.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class GroupBookingRequest {
+    private List<Long> roomIds;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String correlationId;
+}
@@ -6,7 +6,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_status_end_date", columnList = "status, end_date"),
+        @Index(name = "idx_bookings_status_created_at", columnList = "status, created_at")
+})
 @Data
 public class Booking {
 
@@ -20,7 +23,8 @@ public class Booking {
     @Column(name = "username", nullable = false)
     private String username;
 
-    @Column(name = "room_id", nullable = false)
+    // Пусто у принятого асинхронного бронирования с автоподбором: номер выбирает confirmPendingBooking
+    @Column(name = "room_id")
     private Long roomId;
 
     @Column(name = "start_date", nullable = false)
@@ -39,9 +43,14 @@ public class Booking {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "correlation_id")
+    // Ключ идемпотентности запроса: уникальный индекс не пропускает одновременные дубли
+    @Column(name = "correlation_id", unique = true)
     private String correlationId;
 
+    // Общий идентификатор бронирований одной групповой заявки
+    @Column(name = "group_id")
+    private String groupId;
+
     // НОВОЕ ПОЛЕ для автоподбора
     @Column(name = "auto_select", nullable = false)
     private Boolean autoSelect = false;
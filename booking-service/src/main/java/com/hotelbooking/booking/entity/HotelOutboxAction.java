@@ -0,0 +1,6 @@
+package com.hotelbooking.booking.entity;
+
+public enum HotelOutboxAction {
+    RELEASE,    // Освободить номер неудавшегося бронирования
+    CANCEL      // Отменить бронирование в Hotel Service
+}
@@ -0,0 +1,51 @@
+package com.hotelbooking.booking.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Вызов Hotel Service, записанный в одной транзакции с изменением статуса бронирования
+ * и доставляемый HotelOutboxRelay. Доставленные сообщения удаляются.
+ */
+@Entity
+@Table(name = "hotel_outbox", indexes = {
+        @Index(name = "idx_hotel_outbox_due", columnList = "status, next_attempt_at")
+})
+@Data
+public class HotelOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HotelOutboxAction action;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "room_id")
+    private Long roomId;
+
+    // Одно сообщение на действие и бронирование: повторная компенсация не создает дубль
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HotelOutboxStatus status = HotelOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,6 @@
+package com.hotelbooking.booking.entity;
+
+public enum HotelOutboxStatus {
+    PENDING,    // Ожидает доставки
+    FAILED      // Доставка прекращена после исчерпания попыток
+}
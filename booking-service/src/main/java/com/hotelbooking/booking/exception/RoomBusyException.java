@@ -0,0 +1,12 @@
+package com.hotelbooking.booking.exception;
+
+/**
+ * Hotel Service не смог обработать номер из-за параллельной операции. Номер не признан занятым на даты:
+ * бронирование отменено, но запрос можно повторить
+ */
+public class RoomBusyException extends RuntimeException {
+
+    public RoomBusyException(String message) {
+        super(message);
+    }
+}
@@ -2,12 +2,16 @@ package com.hotelbooking.booking.mapper;
 
 import com.hotelbooking.booking.dto.BookingDto;
 import com.hotelbooking.booking.dto.BookingRequest;
+import com.hotelbooking.booking.dto.GroupBookingRequest;
 import com.hotelbooking.booking.entity.Booking;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 public class BookingMapper {
 
@@ -27,6 +31,7 @@ public class BookingMapper {
         dto.setCreatedAt(booking.getCreatedAt());
         dto.setUpdatedAt(booking.getUpdatedAt());
         dto.setCorrelationId(booking.getCorrelationId());
+        dto.setGroupId(booking.getGroupId());
         dto.setAutoSelect(booking.getAutoSelect());
 
         return dto;
@@ -37,6 +42,36 @@ public class BookingMapper {
             return null;
         }
 
+        Booking booking = newBookingForCurrentUser();
+        booking.setRoomId(request.getRoomId());
+        booking.setStartDate(request.getStartDate());
+        booking.setEndDate(request.getEndDate());
+        booking.setCorrelationId(request.getCorrelationId());
+        booking.setAutoSelect(request.getAutoSelect() != null ? request.getAutoSelect() : false);
+
+        return booking;
+    }
+
+    /**
+     * Бронирования групповой заявки: по одному на номер, на текущего пользователя
+     */
+    public List<Booking> toEntities(GroupBookingRequest request) {
+        if (request == null || request.getRoomIds() == null) {
+            return List.of();
+        }
+
+        List<Booking> bookings = new ArrayList<>();
+        for (Long roomId : request.getRoomIds()) {
+            Booking booking = newBookingForCurrentUser();
+            booking.setRoomId(roomId);
+            booking.setStartDate(request.getStartDate());
+            booking.setEndDate(request.getEndDate());
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    private Booking newBookingForCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !(authentication.getPrincipal() instanceof Jwt)) {
             throw new RuntimeException("User not authenticated");
@@ -50,12 +85,6 @@ public class BookingMapper {
         Booking booking = new Booking();
         booking.setUserId(userId != null ? userId : generateUserIdFromUsername(username));
         booking.setUsername(username);
-        booking.setRoomId(request.getRoomId());
-        booking.setStartDate(request.getStartDate());
-        booking.setEndDate(request.getEndDate());
-        booking.setCorrelationId(request.getCorrelationId());
-        booking.setAutoSelect(request.getAutoSelect() != null ? request.getAutoSelect() : false);
-
         return booking;
     }
 
@@ -2,9 +2,19 @@ package com.hotelbooking.booking.repository;
 
 import com.hotelbooking.booking.entity.Booking;
 import com.hotelbooking.booking.entity.BookingStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,5 +23,30 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByUserId(Long userId);
     List<Booking> findByStatus(BookingStatus status);
     Optional<Booking> findByCorrelationId(String correlationId);
-    boolean existsByCorrelationId(String correlationId);
+    List<Booking> findByGroupId(String groupId);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.status = :status AND b.endDate < :date ORDER BY b.id")
+    List<Long> findIdsByStatusAndEndDateBefore(@Param("status") BookingStatus status,
+                                               @Param("date") LocalDate date,
+                                               Pageable pageable);
+
+    // Бронирования групп подтверждаются синхронно и в повторную постановку не попадают
+    @Query("SELECT b.id FROM Booking b WHERE b.status = :status AND b.createdAt < :before " +
+            "AND b.groupId IS NULL ORDER BY b.createdAt, b.id")
+    List<Long> findIdsByStatusAndCreatedAtBefore(@Param("status") BookingStatus status,
+                                                 @Param("before") LocalDateTime before,
+                                                 Pageable pageable);
+
+    // Блокировка строки на время подтверждения: повторная постановка не подтверждает бронирование дважды
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :newStatus, b.updatedAt = :updatedAt " +
+            "WHERE b.id IN :ids AND b.status = :expectedStatus")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                          @Param("expectedStatus") BookingStatus expectedStatus,
+                          @Param("newStatus") BookingStatus newStatus,
+                          @Param("updatedAt") LocalDateTime updatedAt);
 }
\ No newline at end of file
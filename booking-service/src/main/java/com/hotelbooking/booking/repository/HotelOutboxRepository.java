@@ -0,0 +1,17 @@
+package com.hotelbooking.booking.repository;
+
+import com.hotelbooking.booking.entity.HotelOutboxMessage;
+import com.hotelbooking.booking.entity.HotelOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HotelOutboxRepository extends JpaRepository<HotelOutboxMessage, Long> {
+    boolean existsByIdempotencyKey(String idempotencyKey);
+    List<HotelOutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            HotelOutboxStatus status, LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,129 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.BookingStatus;
+import com.hotelbooking.booking.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул обработчиков асинхронного подтверждения бронирований. Очередь ограничена: при переполнении
+ * бронирование остается PENDING, а вызывающий поток не выполняет подтверждение сам.
+ * Бронирования PENDING старше recovery-age (не попавшие в очередь или потерянные при перезапуске)
+ * периодически ставятся в очередь повторно. Одно бронирование одновременно подтверждает не больше
+ * одного обработчика.
+ */
+@Slf4j
+@Component
+public class BookingConfirmationDispatcher {
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Duration recoveryAge;
+    private final int recoveryBatchSize;
+
+    public BookingConfirmationDispatcher(
+            BookingService bookingService,
+            BookingRepository bookingRepository,
+            @Value("${booking.async-confirmation.threads:8}") int threads,
+            @Value("${booking.async-confirmation.queue-capacity:500}") int queueCapacity,
+            @Value("${booking.async-confirmation.recovery-age-seconds:120}") long recoveryAgeSeconds,
+            @Value("${booking.async-confirmation.recovery-batch-size:100}") int recoveryBatchSize) {
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+        this.recoveryAge = Duration.ofSeconds(recoveryAgeSeconds);
+        this.recoveryBatchSize = recoveryBatchSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "booking-confirm-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Поставить бронирование в очередь на подтверждение; повторная постановка, пока оно обрабатывается, игнорируется.
+     * Если очередь заполнена, бронирование остается PENDING до повторной постановки recoverStalePending
+     *
+     * @return false - очередь заполнена
+     */
+    public boolean submit(Long bookingId) {
+        if (!inFlight.add(bookingId)) {
+            log.debug("Booking {} is already being confirmed", bookingId);
+            return true;
+        }
+        try {
+            executor.execute(() -> confirm(bookingId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(bookingId);
+            log.warn("Confirmation queue is full, booking {} stays PENDING until recovery", bookingId);
+            return false;
+        }
+    }
+
+    /**
+     * Повторная постановка бронирований, которые слишком долго остаются PENDING
+     *
+     * @return количество поставленных в очередь бронирований
+     */
+    @Scheduled(fixedDelayString = "${booking.async-confirmation.recovery-interval-ms:60000}")
+    public int recoverStalePending() {
+        List<Long> stale = bookingRepository.findIdsByStatusAndCreatedAtBefore(
+                BookingStatus.PENDING, LocalDateTime.now().minus(recoveryAge), PageRequest.of(0, recoveryBatchSize));
+
+        int submitted = 0;
+        for (Long bookingId : stale) {
+            if (inFlight.contains(bookingId)) {
+                continue;
+            }
+            if (!submit(bookingId)) {
+                break;
+            }
+            submitted++;
+        }
+        if (submitted > 0) {
+            log.info("Resubmitted {} stale PENDING bookings for confirmation", submitted);
+        }
+        return submitted;
+    }
+
+    private void confirm(Long bookingId) {
+        try {
+            bookingService.confirmPendingBooking(bookingId);
+        } catch (Exception e) {
+            log.error("Error confirming booking {}: {}", bookingId, e.getMessage());
+        } finally {
+            inFlight.remove(bookingId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Booking confirmation workers did not finish in time, {} bookings left PENDING",
+                    executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.BookingStatus;
+import com.hotelbooking.booking.repository.BookingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перевод истекших подтвержденных бронирований (end_date < сегодня) в COMPLETED. Работает пачками
+ * по batch-size: id пачки выбираются по индексу (status, end_date), затем один UPDATE на пачку
+ * в отдельной транзакции. Бронирования в память не загружаются.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter completedCounter;
+    private final Timer runTimer;
+
+    public BookingExpiryJob(
+            BookingRepository bookingRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${booking.expiry.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.completedCounter = Counter.builder("booking.expiry.completed")
+                .description("Confirmed bookings moved to COMPLETED after their end date")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("booking.expiry.duration")
+                .description("Duration of one expired-booking completion run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${booking.expiry.cron:0 5 * * * *}")
+    public void scheduledRun() {
+        try {
+            completeExpiredBookings();
+        } catch (Exception e) {
+            log.error("Error completing expired bookings: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Завершить все подтвержденные бронирования с датой выезда раньше сегодняшней
+     *
+     * @return количество завершенных бронирований
+     */
+    public int completeExpiredBookings() {
+        LocalDate today = LocalDate.now();
+        long startedAt = System.nanoTime();
+        int completed = 0;
+        int batches = 0;
+
+        while (true) {
+            // Завершенные строки выпадают из условия, поэтому каждая пачка берется с начала
+            List<Long> ids = bookingRepository.findIdsByStatusAndEndDateBefore(
+                    BookingStatus.CONFIRMED, today, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Integer updated = transactionTemplate.execute(status -> bookingRepository.updateStatusByIds(
+                    ids, BookingStatus.CONFIRMED, BookingStatus.COMPLETED, LocalDateTime.now()));
+            completed += updated != null ? updated : 0;
+            batches++;
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        completedCounter.increment(completed);
+        if (completed > 0) {
+            log.info("Completed {} expired bookings in {} batches, {} ms",
+                    completed, batches, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+        return completed;
+    }
+}
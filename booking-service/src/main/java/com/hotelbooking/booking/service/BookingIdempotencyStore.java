@@ -0,0 +1,88 @@
+package com.hotelbooking.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hotelbooking.booking.entity.Booking;
+import com.hotelbooking.booking.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Идемпотентность создания бронирований по correlationId. Недавние ключи хранятся в ограниченном
+ * кэше (correlationId -> id бронирования), поэтому повтор запроса в окне ретраев обходится поиском
+ * по первичному ключу. Уникальный индекс на correlation_id гарантирует, что из одновременных
+ * дублей создается только одно бронирование.
+ */
+@Slf4j
+@Component
+public class BookingIdempotencyStore {
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Long> recentKeys;
+
+    public BookingIdempotencyStore(
+            BookingRepository bookingRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.idempotency.recent-keys.ttl-seconds:600}") long ttlSeconds,
+            @Value("${booking.idempotency.recent-keys.max-size:10000}") long maxSize) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.recentKeys = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Бронирование, уже созданное с этим correlationId: по кэшу недавних ключей или одним запросом к БД
+     */
+    public Optional<Booking> findExisting(String correlationId) {
+        Long bookingId = recentKeys.getIfPresent(correlationId);
+        if (bookingId != null) {
+            Optional<Booking> cached = bookingRepository.findById(bookingId);
+            if (cached.isPresent()) {
+                return cached;
+            }
+            recentKeys.invalidate(correlationId);
+        }
+
+        Optional<Booking> existing = bookingRepository.findByCorrelationId(correlationId);
+        existing.ifPresent(booking -> recentKeys.put(correlationId, booking.getId()));
+        return existing;
+    }
+
+    /**
+     * Сохранить новое бронирование или вернуть уже существующее с тем же correlationId.
+     * Вставка фиксируется в отдельной транзакции: нарушение уникальности не портит транзакцию
+     * вызывающего, а бронирование сразу видно одновременным повторам
+     */
+    public InsertResult insertOrGetExisting(Booking booking) {
+        String correlationId = booking.getCorrelationId();
+        try {
+            Booking saved = transactionTemplate.execute(status -> bookingRepository.saveAndFlush(booking));
+            recentKeys.put(correlationId, saved.getId());
+            return new InsertResult(saved, true);
+        } catch (DataIntegrityViolationException e) {
+            Booking existing = bookingRepository.findByCorrelationId(correlationId).orElseThrow(() -> e);
+            log.info("Concurrent duplicate booking request with correlationId: {}", correlationId);
+            recentKeys.put(correlationId, existing.getId());
+            return new InsertResult(existing, false);
+        }
+    }
+
+    /**
+     * Результат insertOrGetExisting: created = false, если бронирование создал другой запрос
+     */
+    public record InsertResult(Booking booking, boolean created) {
+    }
+}
@@ -3,12 +3,17 @@ package com.hotelbooking.booking.service;
 import com.hotelbooking.booking.client.HotelServiceClient;
 import com.hotelbooking.booking.client.dto.RoomRecommendation;
 import com.hotelbooking.booking.client.dto.AvailabilityRequest;
-import com.hotelbooking.booking.client.dto.ReleaseRequest;
+import com.hotelbooking.booking.client.dto.BatchReservationRequest;
+import com.hotelbooking.booking.client.dto.BatchReservationResponse;
 import com.hotelbooking.booking.entity.Booking;
 import com.hotelbooking.booking.entity.BookingStatus;
+import com.hotelbooking.booking.entity.HotelOutboxAction;
+import com.hotelbooking.booking.exception.RoomBusyException;
 import com.hotelbooking.booking.repository.BookingRepository;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -17,8 +22,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -29,16 +36,27 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final HotelServiceClient hotelServiceClient;
     private final InternalAuthService internalAuthService;
+    private final RecommendationCache recommendationCache;
+    private final HotelOutbox hotelOutbox;
+    private final BookingIdempotencyStore idempotencyStore;
 
-    @Transactional
+    private static final int MAX_GROUP_SIZE = 50;
+    // Номер занят другой операцией в hotel-service (409/503): короткие повторы до отказа
+    private static final int ROOM_BUSY_ATTEMPTS = 3;
+    private static final long ROOM_BUSY_BACKOFF_MS = 100;
+
+    // Отмененное бронирование и его компенсация в outbox фиксируются и при неудаче
+    @Transactional(noRollbackFor = RuntimeException.class)
     public Booking createBooking(Booking booking, String correlationId) {
         log.info("Creating booking with correlationId: {}, autoSelect: {}",
                 correlationId, booking.getAutoSelect());
 
-        if (correlationId != null && bookingRepository.existsByCorrelationId(correlationId)) {
-            log.info("Duplicate booking request with correlationId: {}", correlationId);
-            return bookingRepository.findByCorrelationId(correlationId)
-                    .orElseThrow(() -> new RuntimeException("Duplicate booking request"));
+        if (correlationId != null) {
+            Optional<Booking> existing = idempotencyStore.findExisting(correlationId);
+            if (existing.isPresent()) {
+                log.info("Duplicate booking request with correlationId: {}", correlationId);
+                return existing.get();
+            }
         }
 
         validateBookingDates(booking);
@@ -59,11 +77,93 @@ public class BookingService {
         booking.setStatus(BookingStatus.PENDING);
         booking.setCreatedAt(LocalDateTime.now());
 
-        Booking savedBooking = bookingRepository.save(booking);
+        BookingIdempotencyStore.InsertResult insert = idempotencyStore.insertOrGetExisting(booking);
+        if (!insert.created()) {
+            return insert.booking();
+        }
+        Booking savedBooking = insert.booking();
         log.info("Booking created with PENDING status: ID {}, Room {}, User {}, AutoSelect: {}",
                 savedBooking.getId(), savedBooking.getRoomId(), savedBooking.getUserId(),
                 savedBooking.getAutoSelect());
 
+        // Строка блокируется до конца подтверждения, чтобы повторная постановка PENDING ее не перехватила
+        bookingRepository.findByIdForUpdate(savedBooking.getId());
+        return confirmPending(savedBooking);
+    }
+
+    /**
+     * Быстрый путь асинхронного бронирования: проверки и сохранение в статусе PENDING без обращения
+     * к Hotel Service. Подтверждение выполняет confirmPendingBooking в пуле обработчиков
+     */
+    @Transactional
+    public Booking createPendingBooking(Booking booking, String correlationId) {
+        log.info("Creating pending booking with correlationId: {}, autoSelect: {}",
+                correlationId, booking.getAutoSelect());
+
+        if (correlationId != null) {
+            Optional<Booking> existing = idempotencyStore.findExisting(correlationId);
+            if (existing.isPresent()) {
+                log.info("Duplicate booking request with correlationId: {}", correlationId);
+                return existing.get();
+            }
+        }
+
+        validateBookingDates(booking);
+
+        if (!Boolean.TRUE.equals(booking.getAutoSelect()) && booking.getRoomId() == null) {
+            throw new RuntimeException("Room ID is required when autoSelect is false");
+        }
+        if (Boolean.TRUE.equals(booking.getAutoSelect())) {
+            booking.setRoomId(null);
+        }
+
+        booking.setCorrelationId(correlationId != null ? correlationId : UUID.randomUUID().toString());
+        booking.setStatus(BookingStatus.PENDING);
+        booking.setCreatedAt(LocalDateTime.now());
+
+        BookingIdempotencyStore.InsertResult insert = idempotencyStore.insertOrGetExisting(booking);
+        if (!insert.created()) {
+            return insert.booking();
+        }
+        Booking savedBooking = insert.booking();
+        log.info("Booking accepted with PENDING status: ID {}, Room {}, User {}, AutoSelect: {}",
+                savedBooking.getId(), savedBooking.getRoomId(), savedBooking.getUserId(),
+                savedBooking.getAutoSelect());
+        return savedBooking;
+    }
+
+    /**
+     * Подтверждение бронирования, принятого через createPendingBooking. Неудача не выбрасывается:
+     * бронирование переводится в CANCELLED, и этот статус фиксируется в транзакции.
+     * Строка бронирования блокируется до конца транзакции, поэтому при повторной постановке
+     * второй обработчик дождется первого и увидит, что бронирование уже не PENDING
+     */
+    @Transactional
+    public void confirmPendingBooking(Long bookingId) {
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() != BookingStatus.PENDING) {
+            log.debug("Booking {} is not pending, skipping confirmation", bookingId);
+            return;
+        }
+
+        if (booking.getRoomId() == null) {
+            try {
+                booking.setRoomId(autoSelectBestRoom(booking.getStartDate(), booking.getEndDate()));
+                log.info("Auto-selected room ID {} for booking {}", booking.getRoomId(), bookingId);
+            } catch (RuntimeException e) {
+                handleBookingFailure(booking, e.getMessage());
+                return;
+            }
+        }
+
+        try {
+            confirmPending(booking);
+        } catch (RuntimeException e) {
+            log.warn("Asynchronous confirmation of booking {} failed: {}", bookingId, e.getMessage());
+        }
+    }
+
+    private Booking confirmPending(Booking savedBooking) {
         try {
 
             if (!internalAuthService.isTokenValid()) {
@@ -79,8 +179,18 @@ public class BookingService {
             availabilityRequest.setEndDate(savedBooking.getEndDate());
             availabilityRequest.setBookingId(savedBooking.getId());
 
-            Boolean isAvailable = hotelServiceClient.confirmAvailability(
-                    savedBooking.getRoomId(), availabilityRequest);
+            Boolean isAvailable;
+            try {
+                isAvailable = confirmAvailabilityRetryingBusy(savedBooking.getRoomId(), availabilityRequest);
+            } catch (FeignException e) {
+                if (!isRoomBusy(e)) {
+                    throw e;
+                }
+                log.warn("Room {} stayed busy after {} attempts, cancelling booking {}",
+                        savedBooking.getRoomId(), ROOM_BUSY_ATTEMPTS, savedBooking.getId());
+                handleBookingFailure(savedBooking, "Room is temporarily busy");
+                throw new RoomBusyException("Room is temporarily busy, please retry the booking");
+            }
 
             if (Boolean.TRUE.equals(isAvailable)) {
 
@@ -88,6 +198,7 @@ public class BookingService {
                 savedBooking.setUpdatedAt(LocalDateTime.now());
 
                 Booking confirmedBooking = bookingRepository.save(savedBooking);
+                recommendationCache.invalidateOverlapping(confirmedBooking.getStartDate(), confirmedBooking.getEndDate());
                 log.info("Booking CONFIRMED: ID {}", confirmedBooking.getId());
                 return confirmedBooking;
             } else {
@@ -97,6 +208,8 @@ public class BookingService {
                 throw new RuntimeException("Room is not available for selected dates");
             }
 
+        } catch (RoomBusyException e) {
+            throw e;
         } catch (Exception e) {
 
             log.error("Error during booking confirmation for booking {}: {}", savedBooking.getId(), e.getMessage());
@@ -105,6 +218,95 @@ public class BookingService {
         }
     }
 
+    /**
+     * Подтверждение в hotel-service с повтором, пока номер занят другой операцией (409/503).
+     * Ответ false - номер действительно занят на даты, он не повторяется
+     */
+    private Boolean confirmAvailabilityRetryingBusy(Long roomId, AvailabilityRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return hotelServiceClient.confirmAvailabilityWithDates(roomId, request);
+            } catch (FeignException e) {
+                if (!isRoomBusy(e) || attempt >= ROOM_BUSY_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("Room {} is busy in hotel-service (attempt {}/{}), retrying", roomId, attempt, ROOM_BUSY_ATTEMPTS);
+                try {
+                    Thread.sleep(ROOM_BUSY_BACKOFF_MS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static boolean isRoomBusy(FeignException e) {
+        return e.status() == HttpStatus.CONFLICT.value() || e.status() == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    /**
+     * Групповое бронирование: все номера на один период одним запросом к Hotel Service, который
+     * резервирует их в одной транзакции по принципу "все или ничего". Если исход вызова неизвестен,
+     * снятие временных блокировок всей группы ставится в outbox
+     */
+    @Transactional(noRollbackFor = RuntimeException.class)
+    public List<Booking> createGroupBooking(List<Booking> bookings, String correlationId) {
+        log.info("Creating group booking of {} rooms with correlationId: {}", bookings.size(), correlationId);
+
+        if (correlationId != null) {
+            List<Booking> existing = bookingRepository.findByGroupId(correlationId);
+            if (!existing.isEmpty()) {
+                log.info("Duplicate group booking request with correlationId: {}", correlationId);
+                return existing;
+            }
+        }
+
+        validateGroup(bookings);
+
+        String groupId = correlationId != null ? correlationId : UUID.randomUUID().toString();
+        for (Booking booking : bookings) {
+            booking.setGroupId(groupId);
+            booking.setCorrelationId(groupId + ":" + booking.getRoomId());
+            booking.setStatus(BookingStatus.PENDING);
+            booking.setCreatedAt(LocalDateTime.now());
+        }
+        List<Booking> savedBookings = bookingRepository.saveAll(bookings);
+        log.info("Group booking {} created with PENDING status: {} rooms", groupId, savedBookings.size());
+
+        if (!internalAuthService.isTokenValid()) {
+            log.error("Internal authentication not available");
+            cancelGroup(savedBookings, "Internal service authentication failed");
+            throw new RuntimeException("Service temporarily unavailable");
+        }
+
+        BatchReservationResponse response;
+        try {
+            response = hotelServiceClient.reserveRooms(toReservationRequest(savedBookings));
+        } catch (Exception e) {
+            log.error("Error during group reservation {}: {}", groupId, e.getMessage());
+            savedBookings.forEach(booking -> hotelOutbox.enqueue(HotelOutboxAction.RELEASE, booking));
+            cancelGroup(savedBookings, "Error during group reservation: " + e.getMessage());
+            throw new RuntimeException("Group booking failed: " + e.getMessage());
+        }
+
+        if (response == null || !response.isReserved()) {
+            List<Long> unavailable = response != null ? response.getUnavailableRoomIds() : List.of();
+            cancelGroup(savedBookings, "Rooms not available: " + unavailable);
+            throw new RuntimeException("Rooms are not available for selected dates: " + unavailable);
+        }
+
+        for (Booking booking : savedBookings) {
+            booking.setStatus(BookingStatus.CONFIRMED);
+            booking.setUpdatedAt(LocalDateTime.now());
+        }
+        List<Booking> confirmedBookings = bookingRepository.saveAll(savedBookings);
+        Booking first = confirmedBookings.get(0);
+        recommendationCache.invalidateOverlapping(first.getStartDate(), first.getEndDate());
+        log.info("Group booking {} CONFIRMED: {} rooms", groupId, confirmedBookings.size());
+        return confirmedBookings;
+    }
+
     /**
      * НОВЫЙ МЕТОД: Автоматический подбор лучшей доступной комнаты
      */
@@ -112,8 +314,7 @@ public class BookingService {
         try {
             log.info("Starting auto-selection for dates: {} to {}", startDate, endDate);
 
-            List<RoomRecommendation> recommendedRooms = hotelServiceClient
-                    .getRecommendedRooms(startDate, endDate);
+            List<RoomRecommendation> recommendedRooms = fetchTopRecommendedRooms(startDate, endDate, 1);
 
             if (recommendedRooms == null || recommendedRooms.isEmpty()) {
                 log.warn("No available rooms found for auto-selection");
@@ -141,7 +342,7 @@ public class BookingService {
 
         try {
             log.info("Getting recommended rooms for dates: {} to {}", startDate, endDate);
-            return hotelServiceClient.getRecommendedRooms(startDate, endDate);
+            return fetchRecommendedRooms(startDate, endDate);
         } catch (Exception e) {
             log.error("Error getting recommended rooms: {}", e.getMessage());
             throw new RuntimeException("Unable to get room recommendations: " + e.getMessage());
@@ -156,19 +357,23 @@ public class BookingService {
 
         try {
             log.info("Getting top {} recommended rooms for dates: {} to {}", limit, startDate, endDate);
-            List<RoomRecommendation> allRecommendations = hotelServiceClient.getRecommendedRooms(startDate, endDate);
-
-            if (allRecommendations.size() > limit) {
-                return allRecommendations.subList(0, limit);
-            }
-
-            return allRecommendations;
+            return fetchTopRecommendedRooms(startDate, endDate, limit);
         } catch (Exception e) {
             log.error("Error getting top recommended rooms: {}", e.getMessage());
             throw new RuntimeException("Unable to get room recommendations: " + e.getMessage());
         }
     }
 
+    private List<RoomRecommendation> fetchRecommendedRooms(LocalDate startDate, LocalDate endDate) {
+        return recommendationCache.get(startDate, endDate,
+                () -> hotelServiceClient.getRecommendedRooms(startDate, endDate));
+    }
+
+    private List<RoomRecommendation> fetchTopRecommendedRooms(LocalDate startDate, LocalDate endDate, int limit) {
+        return recommendationCache.get(startDate, endDate, limit,
+                () -> hotelServiceClient.getTopRecommendedRooms(startDate, endDate, limit));
+    }
+
     /**
      * НОВЫЙ МЕТОД: Валидация дат для рекомендаций
      */
@@ -190,20 +395,59 @@ public class BookingService {
         }
     }
 
+    private void validateGroup(List<Booking> bookings) {
+        if (bookings == null || bookings.isEmpty()) {
+            throw new RuntimeException("At least one room is required for a group booking");
+        }
+        if (bookings.size() > MAX_GROUP_SIZE) {
+            throw new RuntimeException("Group booking cannot exceed " + MAX_GROUP_SIZE + " rooms");
+        }
+
+        Set<Long> roomIds = new HashSet<>();
+        for (Booking booking : bookings) {
+            validateBookingDates(booking);
+            if (booking.getRoomId() == null) {
+                throw new RuntimeException("Room ID is required for every room in a group booking");
+            }
+            if (!roomIds.add(booking.getRoomId())) {
+                throw new RuntimeException("Room " + booking.getRoomId() + " is listed more than once");
+            }
+            if (!booking.getStartDate().equals(bookings.get(0).getStartDate())
+                    || !booking.getEndDate().equals(bookings.get(0).getEndDate())) {
+                throw new RuntimeException("All rooms in a group booking must have the same dates");
+            }
+        }
+    }
+
+    private BatchReservationRequest toReservationRequest(List<Booking> bookings) {
+        BatchReservationRequest request = new BatchReservationRequest();
+        request.setStartDate(bookings.get(0).getStartDate());
+        request.setEndDate(bookings.get(0).getEndDate());
+        request.setReservations(bookings.stream().map(booking -> {
+            BatchReservationRequest.RoomReservation reservation = new BatchReservationRequest.RoomReservation();
+            reservation.setRoomId(booking.getRoomId());
+            reservation.setBookingId(booking.getId());
+            return reservation;
+        }).toList());
+        return request;
+    }
+
+    private void cancelGroup(List<Booking> bookings, String reason) {
+        for (Booking booking : bookings) {
+            booking.setStatus(BookingStatus.CANCELLED);
+            booking.setUpdatedAt(LocalDateTime.now());
+        }
+        bookingRepository.saveAll(bookings);
+        log.warn("Group booking {} CANCELLED: {} rooms. Reason: {}",
+                bookings.get(0).getGroupId(), bookings.size(), reason);
+    }
+
     private void handleBookingFailure(Booking booking, String reason) {
         try {
 
             if (booking.getRoomId() != null) {
                 log.info("Releasing room {} due to booking failure", booking.getRoomId());
-                try {
-
-                    ReleaseRequest releaseRequest = new ReleaseRequest();
-                    releaseRequest.setBookingId(booking.getId());
-
-                    hotelServiceClient.releaseRoom(booking.getRoomId(), releaseRequest);
-                } catch (Exception e) {
-                    log.error("Error releasing room {}: {}", booking.getRoomId(), e.getMessage());
-                }
+                hotelOutbox.enqueue(HotelOutboxAction.RELEASE, booking);
             }
 
             booking.setStatus(BookingStatus.CANCELLED);
@@ -223,18 +467,7 @@ public class BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found with ID: " + bookingId));
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof Jwt) {
-            Jwt jwt = (Jwt) authentication.getPrincipal();
-            Long currentUserId = extractUserIdFromJwt(jwt);
-
-            boolean isAdmin = authentication.getAuthorities().stream()
-                    .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-
-            if (!isAdmin && (currentUserId == null || !currentUserId.equals(booking.getUserId()))) {
-                throw new RuntimeException("Access denied");
-            }
-        }
+        checkAccess(booking);
 
         if (booking.getStatus() == BookingStatus.CANCELLED ||
                 booking.getStatus() == BookingStatus.COMPLETED) {
@@ -243,29 +476,46 @@ public class BookingService {
 
 
         if (booking.getRoomId() != null) {
-            log.info("Releasing room {} due to booking cancellation", booking.getRoomId());
-            try {
-
-                ReleaseRequest releaseRequest = new ReleaseRequest();
-                releaseRequest.setBookingId(bookingId);
-
-
-                hotelServiceClient.releaseRoom(booking.getRoomId(), releaseRequest);
-            } catch (Exception e) {
-                log.error("Error releasing room {}: {}", booking.getRoomId(), e.getMessage());
-            }
+            log.info("Cancelling room {} booking in hotel-service", booking.getRoomId());
+            hotelOutbox.enqueue(HotelOutboxAction.CANCEL, booking);
         }
 
         booking.setStatus(BookingStatus.CANCELLED);
         booking.setUpdatedAt(LocalDateTime.now());
 
         Booking cancelledBooking = bookingRepository.save(booking);
+        recommendationCache.invalidateOverlapping(booking.getStartDate(), booking.getEndDate());
         log.info("Booking {} cancelled successfully", bookingId);
 
         return cancelledBooking;
     }
 
 
+    /**
+     * Бронирование текущего пользователя (или любое для ADMIN) - для опроса статуса после асинхронного создания
+     */
+    public Booking getBookingForCurrentUser(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new RuntimeException("Booking not found with ID: " + bookingId));
+        checkAccess(booking);
+        return booking;
+    }
+
+    private void checkAccess(Booking booking) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Jwt) {
+            Jwt jwt = (Jwt) authentication.getPrincipal();
+            Long currentUserId = extractUserIdFromJwt(jwt);
+
+            boolean isAdmin = authentication.getAuthorities().stream()
+                    .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+            if (!isAdmin && (currentUserId == null || !currentUserId.equals(booking.getUserId()))) {
+                throw new RuntimeException("Access denied");
+            }
+        }
+    }
+
     public List<Booking> getUserBookings(Long userId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.getPrincipal() instanceof Jwt) {
@@ -380,25 +630,4 @@ public class BookingService {
     public List<Booking> getBookingsByStatus(BookingStatus status) {
         return bookingRepository.findByStatus(status);
     }
-
-    @Transactional
-    public void completeExpiredBookings() {
-        List<Booking> confirmedBookings = bookingRepository.findByStatus(BookingStatus.CONFIRMED);
-        LocalDate today = LocalDate.now();
-        int completedCount = 0;
-
-        for (Booking booking : confirmedBookings) {
-            if (booking.getEndDate().isBefore(today)) {
-                booking.setStatus(BookingStatus.COMPLETED);
-                booking.setUpdatedAt(LocalDateTime.now());
-                bookingRepository.save(booking);
-                completedCount++;
-                log.debug("Booking {} marked as completed", booking.getId());
-            }
-        }
-
-        if (completedCount > 0) {
-            log.info("Completed {} expired bookings", completedCount);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.Booking;
+import com.hotelbooking.booking.entity.HotelOutboxAction;
+import com.hotelbooking.booking.entity.HotelOutboxMessage;
+import com.hotelbooking.booking.repository.HotelOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись вызовов Hotel Service в outbox. Вызывается только внутри транзакции, меняющей статус
+ * бронирования: сообщение фиксируется или откатывается вместе с этим статусом.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotelOutbox {
+
+    private final HotelOutboxRepository outboxRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(HotelOutboxAction action, Booking booking) {
+        String idempotencyKey = action.name().toLowerCase() + ":" + booking.getId();
+        if (outboxRepository.existsByIdempotencyKey(idempotencyKey)) {
+            log.debug("Outbox message {} already exists", idempotencyKey);
+            return;
+        }
+
+        HotelOutboxMessage message = new HotelOutboxMessage();
+        message.setAction(action);
+        message.setBookingId(booking.getId());
+        message.setRoomId(booking.getRoomId());
+        message.setIdempotencyKey(idempotencyKey);
+        message.setCreatedAt(LocalDateTime.now());
+        message.setNextAttemptAt(message.getCreatedAt());
+        outboxRepository.save(message);
+        log.info("Queued {} of booking {} for hotel-service", action, booking.getId());
+    }
+}
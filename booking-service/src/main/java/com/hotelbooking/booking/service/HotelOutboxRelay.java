@@ -0,0 +1,112 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.client.HotelServiceClient;
+import com.hotelbooking.booking.client.dto.BatchReleaseRequest;
+import com.hotelbooking.booking.entity.HotelOutboxAction;
+import com.hotelbooking.booking.entity.HotelOutboxMessage;
+import com.hotelbooking.booking.entity.HotelOutboxStatus;
+import com.hotelbooking.booking.repository.HotelOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Доставка outbox в Hotel Service: сообщения одного действия отправляются одним пакетным запросом
+ * (release-batch / cancel-batch). Обе операции идемпотентны, поэтому повтор после сбоя безопасен;
+ * неудачная пачка повторяется с экспоненциальной задержкой до max-attempts попыток.
+ */
+@Slf4j
+@Component
+public class HotelOutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final HotelOutboxRepository outboxRepository;
+    private final HotelServiceClient hotelServiceClient;
+    private final InternalAuthService internalAuthService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+
+    public HotelOutboxRelay(
+            HotelOutboxRepository outboxRepository,
+            HotelServiceClient hotelServiceClient,
+            InternalAuthService internalAuthService,
+            @Value("${booking.outbox.batch-size:100}") int batchSize,
+            @Value("${booking.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${booking.outbox.retry-base-delay-ms:1000}") long retryBaseDelayMs,
+            @Value("${booking.outbox.retry-max-delay-ms:300000}") long retryMaxDelayMs) {
+        this.outboxRepository = outboxRepository;
+        this.hotelServiceClient = hotelServiceClient;
+        this.internalAuthService = internalAuthService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.retryMaxDelayMs = retryMaxDelayMs;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        if (!internalAuthService.isTokenValid()) {
+            log.debug("Internal token not available, outbox delivery postponed");
+            return;
+        }
+
+        List<HotelOutboxMessage> due = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                HotelOutboxStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<HotelOutboxAction, List<HotelOutboxMessage>> byAction = due.stream()
+                .collect(Collectors.groupingBy(HotelOutboxMessage::getAction,
+                        () -> new EnumMap<>(HotelOutboxAction.class), Collectors.toList()));
+        byAction.forEach(this::deliver);
+    }
+
+    private void deliver(HotelOutboxAction action, List<HotelOutboxMessage> messages) {
+        BatchReleaseRequest request = new BatchReleaseRequest();
+        request.setBookingIds(messages.stream().map(HotelOutboxMessage::getBookingId).distinct().toList());
+
+        try {
+            switch (action) {
+                case RELEASE -> hotelServiceClient.releaseRooms(request);
+                case CANCEL -> hotelServiceClient.cancelBookings(request);
+            }
+            outboxRepository.deleteAll(messages);
+            log.info("Delivered {} {} messages to hotel-service", messages.size(), action);
+        } catch (Exception e) {
+            log.warn("Failed to deliver {} {} messages to hotel-service: {}", messages.size(), action, e.getMessage());
+            LocalDateTime now = LocalDateTime.now();
+            messages.forEach(message -> scheduleRetry(message, e, now));
+            outboxRepository.saveAll(messages);
+        }
+    }
+
+    private void scheduleRetry(HotelOutboxMessage message, Exception error, LocalDateTime now) {
+        message.setAttempts(message.getAttempts() + 1);
+        String errorMessage = String.valueOf(error.getMessage());
+        message.setLastError(errorMessage.length() > MAX_ERROR_LENGTH
+                ? errorMessage.substring(0, MAX_ERROR_LENGTH) : errorMessage);
+
+        if (message.getAttempts() >= maxAttempts) {
+            message.setStatus(HotelOutboxStatus.FAILED);
+            log.error("Giving up on {} of booking {} after {} attempts: {}",
+                    message.getAction(), message.getBookingId(), message.getAttempts(), message.getLastError());
+            return;
+        }
+
+        long delayMs = Math.min(retryBaseDelayMs << Math.min(message.getAttempts() - 1, 30), retryMaxDelayMs);
+        message.setNextAttemptAt(now.plus(Duration.ofMillis(delayMs)));
+    }
+}
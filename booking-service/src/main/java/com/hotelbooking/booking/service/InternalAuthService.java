@@ -1,5 +1,7 @@
 package com.hotelbooking.booking.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.nimbusds.jwt.JWTParser;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
@@ -7,209 +9,252 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Токен сервисного пользователя для внутренних вызовов hotel-service.
+ * <p>
+ * Текущий токен хранится в AtomicReference и читается без блокировок. Обновление выполняется
+ * только в фоновом потоке: плановое - за refresh-margin до exp из JWT, внеплановое - если запрос
+ * застал токен в зоне обновления или без токена. Одновременно идет не больше одного обновления
+ * (single-flight), поэтому волна запросов не создает волну логинов в auth-service. Обновление ограничено
+ * по времени: зависший вызов auth-service не держит single-flight, следующая попытка идет в новом потоке.
+ * Сначала используется refresh-токен, логин с паролем - только если его нет или он отклонен.
+ */
 @Slf4j
 @Component
 public class InternalAuthService {
 
+    private static final Duration INITIAL_DELAY = Duration.ofSeconds(10);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+    private static final Duration MIN_REFRESH_DELAY = Duration.ofSeconds(1);
+
     private final RestTemplate restTemplate;
     private final String authServiceUrl;
     private final String internalUsername;
     private final String internalPassword;
+    private final Duration refreshMargin;
+    private final Duration refreshTimeout;
 
-    private String internalToken;
-    private long tokenExpiryTime;
-    private boolean initialized = false;
+    private final AtomicReference<TokenState> state = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<String>> inFlight = new AtomicReference<>();
+    private final AtomicReference<ScheduledFuture<?>> scheduledRefresh = new AtomicReference<>();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService refreshExecutor;
 
     public InternalAuthService(
             RestTemplate restTemplate,
             @Value("${auth.service.url:http://localhost:8080/api/auth}") String authServiceUrl,
             @Value("${internal.service.username:internal-service}") String internalUsername,
-            @Value("${internal.service.password:internal-secret-123}") String internalPassword) {
+            @Value("${internal.service.password:internal-secret-123}") String internalPassword,
+            @Value("${internal.service.token-refresh-margin-seconds:300}") long refreshMarginSeconds,
+            @Value("${internal.service.token-refresh-timeout-ms:15000}") long refreshTimeoutMs) {
         this.restTemplate = restTemplate;
         this.authServiceUrl = authServiceUrl;
         this.internalUsername = internalUsername;
         this.internalPassword = internalPassword;
+        this.refreshMargin = Duration.ofSeconds(refreshMarginSeconds);
+        this.refreshTimeout = Duration.ofMillis(refreshTimeoutMs);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "internal-auth-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refreshExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "internal-auth-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         log.info("InternalAuthService initialized with URL: {}", authServiceUrl);
     }
 
     @PostConstruct
     public void init() {
-        log.info("=== INIT INTERNAL AUTH SERVICE ===");
-        log.info("Using auth URL: {}", authServiceUrl);
-        log.info("Internal username: {}", internalUsername);
+        log.info("Internal username: {}, first token request in {}s", internalUsername, INITIAL_DELAY.toSeconds());
+        scheduleRefresh(INITIAL_DELAY);
+    }
 
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.schedule(() -> {
-            try {
-                log.info("Attempting to get internal token...");
-                refreshInternalToken();
-
-                if (internalToken != null && isTokenValid()) {
-                    initialized = true;
-                    log.info("✅ Internal token obtained successfully");
-                    if (internalToken.length() > 50) {
-                        log.debug("Token prefix: {}...", internalToken.substring(0, 50));
-                    } else {
-                        log.debug("Token: {}", internalToken);
-                    }
-                } else {
-                    log.error("❌ Failed to get valid internal token - service will not be able to make internal calls");
-                }
-            } catch (Exception e) {
-                log.error("❌ Critical error during internal auth init: {}", e.getMessage());
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        refreshExecutor.shutdownNow();
+    }
 
+    /**
+     * Запустить обновление токена в фоне. Если обновление уже идет, возвращается его результат
+     */
+    public CompletableFuture<String> refreshInternalToken() {
+        while (true) {
+            CompletableFuture<String> running = inFlight.get();
+            if (running != null) {
+                return running;
             }
-        }, 10, TimeUnit.SECONDS);
 
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                if (initialized && isTokenExpiringSoon()) {
-                    log.info("🔄 Token expiring soon, refreshing...");
-                    refreshInternalToken();
-                }
-            } catch (Exception e) {
-                log.error("Error during scheduled token refresh: {}", e.getMessage());
+            CompletableFuture<String> created = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, created)) {
+                startRefresh(created);
+                return created;
             }
-        }, 30, 30, TimeUnit.MINUTES);
+        }
     }
 
     /**
-     * Получает или обновляет токен для internal пользователя
+     * Возвращает текущий internal токен. Не ждет auth-service: при отсутствии действующего
+     * токена запускает обновление и сразу завершается исключением
      */
-    public void refreshInternalToken() {
-        try {
-            String loginUrl = authServiceUrl + "/login";
-            log.debug("Making login request to: {}", loginUrl);
-
-            String loginRequest = String.format(
-                    "{\"username\":\"%s\",\"password\":\"%s\"}",
-                    internalUsername, internalPassword
-            );
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+    public String getInternalToken() {
+        TokenState current = state.get();
+        Instant now = Instant.now();
 
-            HttpEntity<String> request = new HttpEntity<>(loginRequest, headers);
+        if (current == null || !current.isValidAt(now)) {
+            refreshInternalToken();
+            throw new RuntimeException("Internal service token is not available");
+        }
 
-            log.info("Attempting to login as internal service user: {}", internalUsername);
+        if (current.expiresAt().minus(refreshMargin).isBefore(now)) {
+            log.debug("Internal token expires at {}, refreshing in background", current.expiresAt());
+            refreshInternalToken();
+        }
+        return current.accessToken();
+    }
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                    loginUrl, HttpMethod.POST, request, String.class
-            );
+    /**
+     * Проверяет, есть ли действующий токен
+     */
+    public boolean isTokenValid() {
+        TokenState current = state.get();
+        return current != null && current.isValidAt(Instant.now());
+    }
 
-            log.debug("Login response status: {}", response.getStatusCode());
-            log.debug("Login response body: {}", response.getBody());
+    private void startRefresh(CompletableFuture<String> result) {
+        TokenState current = state.get();
+        try {
+            CompletableFuture.supplyAsync(() -> fetchToken(current), refreshExecutor)
+                    .orTimeout(refreshTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((fresh, error) -> finishRefresh(result, fresh, error));
+        } catch (RejectedExecutionException e) {
+            finishRefresh(result, null, e);
+        }
+    }
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+    /**
+     * Завершение обновления, в том числе по таймауту: single-flight освобождается в любом исходе,
+     * поэтому следующий запрос запускает новую попытку, а не ждет зависший вызов
+     */
+    private void finishRefresh(CompletableFuture<String> result, TokenState fresh, Throwable error) {
+        if (error == null) {
+            state.set(fresh);
+            inFlight.compareAndSet(result, null);
+            result.complete(fresh.accessToken());
+            log.info("Internal service token obtained, expires at {}", fresh.expiresAt());
+            scheduleRefresh(delayUntilRefresh(fresh, Instant.now()));
+            return;
+        }
 
-                String responseBody = response.getBody();
-                if (responseBody.contains("\"token\"")) {
-                    internalToken = extractTokenFromResponse(responseBody);
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        inFlight.compareAndSet(result, null);
+        result.completeExceptionally(cause);
+        String reason = cause instanceof TimeoutException
+                ? "no response within " + refreshTimeout.toMillis() + " ms" : cause.getMessage();
+        log.error("Failed to refresh internal token, retrying in {}s: {}", RETRY_DELAY.toSeconds(), reason);
+        scheduleRefresh(RETRY_DELAY);
+    }
 
-                    tokenExpiryTime = System.currentTimeMillis() + 86400000;
-                    initialized = true;
-                    log.info("✅ Successfully obtained internal service token via API Gateway");
-                    log.debug("Full token: {}", internalToken);
-                } else {
+    /**
+     * Получить новый токен: по refresh-токену, при неудаче - логином
+     */
+    private TokenState fetchToken(TokenState current) {
+        if (current != null && current.refreshToken() != null) {
+            try {
+                return request("/refresh", Map.of("refreshToken", current.refreshToken()));
+            } catch (Exception e) {
+                log.warn("Refresh token rejected, falling back to login: {}", e.getMessage());
+            }
+        }
 
-                    log.error("Token not found in auth response: {}", responseBody);
-                    throw new RuntimeException("Token not found in authentication response");
-                }
-            } else {
+        log.info("Attempting to login as internal service user: {}", internalUsername);
+        return request("/login", Map.of("username", internalUsername, "password", internalPassword));
+    }
 
-                log.error("Failed to get internal token. Status: {}, Response: {}",
-                        response.getStatusCode(), response.getBody());
-                throw new RuntimeException("Authentication service returned status: " + response.getStatusCode());
-            }
+    private TokenState request(String path, Map<String, String> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
 
-        } catch (Exception e) {
+        ResponseEntity<TokenResponse> response = restTemplate.exchange(
+                authServiceUrl + path, HttpMethod.POST, new HttpEntity<>(body, headers), TokenResponse.class
+        );
 
-            log.error("Critical error refreshing internal token: {}", e.getMessage());
-            initialized = false;
-            throw new RuntimeException("Failed to refresh internal service token", e);
+        TokenResponse tokenResponse = response.getBody();
+        if (response.getStatusCode() != HttpStatus.OK || tokenResponse == null || tokenResponse.token() == null) {
+            throw new RuntimeException("Authentication service returned status: " + response.getStatusCode());
         }
+        return new TokenState(tokenResponse.token(), readExpiry(tokenResponse.token()), tokenResponse.refreshToken());
     }
 
     /**
-     * Извлекает токен из JSON ответа
+     * Срок действия из claim exp. Подпись не проверяется: токен получен напрямую от auth-service
      */
-    private String extractTokenFromResponse(String jsonResponse) {
+    static Instant readExpiry(String token) {
+        Date expiration;
         try {
-            log.debug("Parsing token from response: {}", jsonResponse);
-
-
-            String[] tokenKeys = {"\"token\":\"", "\"access_token\":\"", "token\":\""};
-
-            for (String tokenKey : tokenKeys) {
-                int startIndex = jsonResponse.indexOf(tokenKey);
-                if (startIndex != -1) {
-                    startIndex += tokenKey.length();
-                    int endIndex = jsonResponse.indexOf("\"", startIndex);
-                    if (endIndex != -1) {
-                        String token = jsonResponse.substring(startIndex, endIndex);
-                        log.debug("Successfully extracted token using key '{}'", tokenKey);
-                        return token;
-                    }
-                }
-            }
-
-            log.error("Could not extract token using standard keys, response: {}", jsonResponse);
-            throw new RuntimeException("Unable to parse token from authentication response");
-
+            expiration = JWTParser.parse(token).getJWTClaimsSet().getExpirationTime();
         } catch (Exception e) {
-            log.error("Error extracting token from response: {}", e.getMessage());
-            throw new RuntimeException("Token extraction failed", e);
+            throw new RuntimeException("Unable to parse internal token: " + e.getMessage(), e);
+        }
+        if (expiration == null) {
+            throw new RuntimeException("Internal token has no exp claim");
         }
+        return expiration.toInstant();
     }
 
     /**
-     * Возвращает текущий internal токен
+     * Задержка до планового обновления: за refresh-margin до exp. Если токен живет меньше
+     * margin, обновляем на середине оставшегося срока, чтобы не уйти в цикл обновлений
      */
-    public String getInternalToken() {
-        if (!initialized) {
-            log.warn("Internal auth service not initialized - attempting to refresh token");
-            refreshInternalToken();
+    Duration delayUntilRefresh(TokenState token, Instant now) {
+        Duration delay = Duration.between(now, token.expiresAt().minus(refreshMargin));
+        if (delay.isNegative()) {
+            delay = Duration.between(now, token.expiresAt()).dividedBy(2);
         }
+        return delay.compareTo(MIN_REFRESH_DELAY) < 0 ? MIN_REFRESH_DELAY : delay;
+    }
 
-        if (internalToken == null || isTokenExpiringSoon()) {
-            log.info("Token missing or expiring soon, refreshing...");
-            refreshInternalToken();
+    private void scheduleRefresh(Duration delay) {
+        if (scheduler.isShutdown()) {
+            return;
         }
-
-        if (internalToken == null) {
-            throw new RuntimeException("Internal service token is not available");
+        ScheduledFuture<?> next = scheduler.schedule(this::refreshInternalToken, delay.toMillis(), TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previous = scheduledRefresh.getAndSet(next);
+        if (previous != null) {
+            previous.cancel(false);
         }
-
-        return internalToken;
     }
 
     /**
-     * Проверяет, валиден ли текущий токен
+     * Неизменяемое состояние токена, заменяется целиком
      */
-    public boolean isTokenValid() {
-        return initialized &&
-                internalToken != null &&
-                !internalToken.trim().isEmpty() &&
-                !isTokenExpired();
-    }
-
-    /**
-     * Проверяет, истек ли срок действия токена
-     */
-    private boolean isTokenExpired() {
-        return System.currentTimeMillis() > tokenExpiryTime;
+    record TokenState(String accessToken, Instant expiresAt, String refreshToken) {
+        boolean isValidAt(Instant now) {
+            return now.isBefore(expiresAt);
+        }
     }
 
-    /**
-     * Проверяет, скоро ли истечет срок действия токена (менее 5 минут)
-     */
-    private boolean isTokenExpiringSoon() {
-        return tokenExpiryTime - System.currentTimeMillis() < 300000; // 5 минут
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record TokenResponse(String token, String refreshToken) {
     }
-
-}
\ No newline at end of file
+}
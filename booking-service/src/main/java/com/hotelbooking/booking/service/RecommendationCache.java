@@ -0,0 +1,96 @@
+package com.hotelbooking.booking.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hotelbooking.booking.client.dto.RoomRecommendation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Краткоживущий кэш рекомендаций по ключу (startDate, endDate, limit). Одновременные запросы с одинаковым
+ * ключом ждут один вызов hotel-service: в кэш атомарно кладется незавершенный future, загрузку выполняет
+ * поток, который его положил, уже вне вычисления в ConcurrentHashMap. Долгий вызов hotel-service не держит
+ * блокировку сегмента карты, поэтому не задерживает запись других ключей и сброс кэша.
+ */
+@Slf4j
+@Component
+public class RecommendationCache {
+
+    private static final int FULL_LIST = 0;
+
+    private final AsyncCache<RecommendationKey, List<RoomRecommendation>> cache;
+
+    public RecommendationCache(
+            @Value("${booking.recommendation-cache.ttl-seconds:5}") long ttlSeconds,
+            @Value("${booking.recommendation-cache.max-size:1000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .buildAsync();
+    }
+
+    /**
+     * Полный список рекомендаций из кэша или из loader (один вызов на ключ для всех одновременных запросов)
+     */
+    public List<RoomRecommendation> get(LocalDate startDate, LocalDate endDate,
+                                        Supplier<List<RoomRecommendation>> loader) {
+        return get(startDate, endDate, FULL_LIST, loader);
+    }
+
+    /**
+     * Первые limit рекомендаций из кэша или из loader; списки с разным limit кэшируются отдельно
+     */
+    public List<RoomRecommendation> get(LocalDate startDate, LocalDate endDate, int limit,
+                                        Supplier<List<RoomRecommendation>> loader) {
+        CompletableFuture<List<RoomRecommendation>> pending = new CompletableFuture<>();
+        CompletableFuture<List<RoomRecommendation>> shared =
+                cache.get(new RecommendationKey(startDate, endDate, limit), (key, executor) -> pending);
+
+        if (shared == pending) {
+            // Загрузка в вызывающем потоке; ошибка и null не остаются в кэше - Caffeine удаляет такой future
+            try {
+                List<RoomRecommendation> loaded = loader.get();
+                pending.complete(loaded != null ? List.copyOf(loaded) : null);
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+            }
+        }
+        return join(shared);
+    }
+
+    /**
+     * Сбросить все ключи, чей период пересекается с [startDate, endDate)
+     */
+    public void invalidateOverlapping(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            return;
+        }
+        boolean removed = cache.asMap().keySet().removeIf(key ->
+                key.startDate().isBefore(endDate) && key.endDate().isAfter(startDate));
+        if (removed) {
+            log.debug("Invalidated cached recommendations overlapping {} - {}", startDate, endDate);
+        }
+    }
+
+    private static List<RoomRecommendation> join(CompletableFuture<List<RoomRecommendation>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record RecommendationKey(LocalDate startDate, LocalDate endDate, int limit) {
+    }
+}
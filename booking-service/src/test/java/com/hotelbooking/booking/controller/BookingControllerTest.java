@@ -3,9 +3,11 @@ package com.hotelbooking.booking.controller;
 import com.hotelbooking.booking.client.dto.RoomRecommendation;
 import com.hotelbooking.booking.dto.BookingDto;
 import com.hotelbooking.booking.dto.BookingRequest;
+import com.hotelbooking.booking.dto.GroupBookingRequest;
 import com.hotelbooking.booking.entity.Booking;
 import com.hotelbooking.booking.entity.BookingStatus;
 import com.hotelbooking.booking.mapper.BookingMapper;
+import com.hotelbooking.booking.service.BookingConfirmationDispatcher;
 import com.hotelbooking.booking.service.BookingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +27,7 @@ import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -37,6 +40,9 @@ class BookingControllerTest {
     @Mock
     private BookingMapper bookingMapper;
 
+    @Mock
+    private BookingConfirmationDispatcher confirmationDispatcher;
+
     @InjectMocks
     private BookingController bookingController;
 
@@ -140,6 +146,80 @@ class BookingControllerTest {
         verify(bookingService).createBooking(any(Booking.class), eq(correlationId));
     }
 
+    /**
+     * Тест для endpoint: POST /bookings/async
+     * Назначение: Асинхронное создание бронирования
+     * Сценарий: Бронирование принято в статусе PENDING
+     * Ожидаемый результат:
+     * - Возвращает статус 202 Accepted с бронированием PENDING
+     * - Бронирование передано в пул подтверждения
+     */
+    @Test
+    void createBookingAsync_WithValidRequest_ShouldReturnAcceptedAndSubmit() {
+
+        booking.setStatus(BookingStatus.PENDING);
+        bookingDto.setStatus(BookingStatus.PENDING);
+        when(bookingMapper.toEntity(bookingRequest)).thenReturn(booking);
+        when(bookingService.createPendingBooking(any(Booking.class), any(String.class))).thenReturn(booking);
+        when(bookingMapper.toDto(booking)).thenReturn(bookingDto);
+
+
+        ResponseEntity<BookingDto> response = bookingController.createBookingAsync(bookingRequest);
+
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(BookingStatus.PENDING, response.getBody().getStatus());
+        verify(confirmationDispatcher).submit(BOOKING_ID);
+    }
+
+    /**
+     * Тест: повторный запрос с тем же correlationId уже обработанного бронирования не ставится в очередь
+     */
+    @Test
+    void createBookingAsync_WhenBookingAlreadyConfirmed_ShouldNotSubmit() {
+
+        when(bookingMapper.toEntity(bookingRequest)).thenReturn(booking);
+        when(bookingService.createPendingBooking(any(Booking.class), any(String.class))).thenReturn(booking);
+        when(bookingMapper.toDto(booking)).thenReturn(bookingDto);
+
+
+        ResponseEntity<BookingDto> response = bookingController.createBookingAsync(bookingRequest);
+
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        verify(confirmationDispatcher, never()).submit(any());
+    }
+
+    /**
+     * Тест для endpoint: POST /bookings/group
+     * Назначение: Групповое бронирование
+     * Сценарий: Успешное бронирование двух номеров
+     * Ожидаемый результат:
+     * - Возвращает статус 200 OK и бронирования группы в DTO формате
+     * - В сервис передается correlationId из запроса
+     */
+    @Test
+    void createGroupBooking_WithValidRequest_ShouldReturnBookingDtos() {
+
+        GroupBookingRequest groupRequest = new GroupBookingRequest();
+        groupRequest.setRoomIds(List.of(456L, 457L));
+        groupRequest.setStartDate(LocalDate.now().plusDays(1));
+        groupRequest.setEndDate(LocalDate.now().plusDays(3));
+        groupRequest.setCorrelationId("group-correlation-id");
+
+        when(bookingMapper.toEntities(groupRequest)).thenReturn(List.of(booking, booking));
+        when(bookingService.createGroupBooking(anyList(), eq("group-correlation-id"))).thenReturn(List.of(booking, booking));
+        when(bookingMapper.toDto(booking)).thenReturn(bookingDto);
+
+
+        ResponseEntity<List<BookingDto>> response = bookingController.createGroupBooking(groupRequest);
+
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().size());
+        verify(bookingService).createGroupBooking(anyList(), eq("group-correlation-id"));
+    }
+
     /**
      * Тест для endpoint: POST /bookings
      * Назначение: Создание нового бронирования с автоподбором комнаты
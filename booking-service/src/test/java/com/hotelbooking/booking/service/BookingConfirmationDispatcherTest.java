@@ -0,0 +1,131 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.BookingStatus;
+import com.hotelbooking.booking.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingConfirmationDispatcherTest {
+
+    @Mock
+    private BookingService bookingService;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingConfirmationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new BookingConfirmationDispatcher(bookingService, bookingRepository, 2, 10, 120, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Тест: бронирование подтверждается в пуле обработчиков, а не в вызывающем потоке
+     */
+    @Test
+    void submit_ShouldConfirmBookingOnWorkerThread() {
+        Thread caller = Thread.currentThread();
+        doAnswer(invocation -> {
+            assertNotSame(caller, Thread.currentThread());
+            return null;
+        }).when(bookingService).confirmPendingBooking(1L);
+
+        dispatcher.submit(1L);
+
+        verify(bookingService, timeout(2000)).confirmPendingBooking(1L);
+    }
+
+    /**
+     * Тест: повторная постановка бронирования, которое еще обрабатывается, игнорируется
+     */
+    @Test
+    void submit_WhenBookingInFlight_ShouldIgnoreDuplicate() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return null;
+        }).when(bookingService).confirmPendingBooking(1L);
+
+        dispatcher.submit(1L);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        dispatcher.submit(1L);
+        release.countDown();
+
+        verify(bookingService, after(300).times(1)).confirmPendingBooking(1L);
+    }
+
+    /**
+     * Тест: при заполненной очереди подтверждение не выполняется в вызывающем потоке,
+     * бронирование остается PENDING для повторной постановки
+     */
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectWithoutRunningOnCaller() throws InterruptedException {
+        BookingConfirmationDispatcher small =
+                new BookingConfirmationDispatcher(bookingService, bookingRepository, 1, 1, 120, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        doAnswer(invocation -> {
+            assertNotSame(caller, Thread.currentThread());
+            started.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return null;
+        }).when(bookingService).confirmPendingBooking(anyLong());
+
+        try {
+            assertTrue(small.submit(1L));
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+            assertTrue(small.submit(2L));
+            assertFalse(small.submit(3L));
+            release.countDown();
+
+            verify(bookingService, timeout(2000)).confirmPendingBooking(2L);
+            verify(bookingService, after(300).never()).confirmPendingBooking(3L);
+        } finally {
+            release.countDown();
+            small.shutdown();
+        }
+    }
+
+    /**
+     * Тест: давно ожидающие PENDING бронирования снова ставятся в очередь
+     */
+    @Test
+    void recoverStalePending_ShouldResubmitOldPendingBookings() {
+        when(bookingRepository.findIdsByStatusAndCreatedAtBefore(
+                eq(BookingStatus.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(5L, 6L));
+
+        int submitted = dispatcher.recoverStalePending();
+
+        assertEquals(2, submitted);
+        verify(bookingService, timeout(2000)).confirmPendingBooking(5L);
+        verify(bookingService, timeout(2000)).confirmPendingBooking(6L);
+    }
+}
@@ -0,0 +1,79 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.BookingStatus;
+import com.hotelbooking.booking.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpiryJobTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BookingExpiryJob expiryJob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        expiryJob = new BookingExpiryJob(bookingRepository, transactionManager, meterRegistry, 2);
+    }
+
+    /**
+     * Тест: истекшие бронирования завершаются пачками до неполной пачки, счетчик метрики растет
+     */
+    @Test
+    void completeExpiredBookings_ShouldUpdateInBatchesAndReportCount() {
+        when(bookingRepository.findIdsByStatusAndEndDateBefore(
+                eq(BookingStatus.CONFIRMED), eq(LocalDate.now()), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(bookingRepository.updateStatusByIds(anyCollection(), eq(BookingStatus.CONFIRMED),
+                eq(BookingStatus.COMPLETED), any(LocalDateTime.class)))
+                .thenReturn(2, 1);
+
+        int completed = expiryJob.completeExpiredBookings();
+
+        assertEquals(3, completed);
+        verify(bookingRepository).updateStatusByIds(eq(List.of(1L, 2L)), any(), any(), any());
+        verify(bookingRepository).updateStatusByIds(eq(List.of(3L)), any(), any(), any());
+        assertEquals(3.0, meterRegistry.get("booking.expiry.completed").counter().count());
+        assertEquals(1, meterRegistry.get("booking.expiry.duration").timer().count());
+    }
+
+    /**
+     * Тест: без истекших бронирований UPDATE не выполняется
+     */
+    @Test
+    void completeExpiredBookings_WithNoExpiredBookings_ShouldDoNothing() {
+        when(bookingRepository.findIdsByStatusAndEndDateBefore(
+                eq(BookingStatus.CONFIRMED), any(LocalDate.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        int completed = expiryJob.completeExpiredBookings();
+
+        assertEquals(0, completed);
+        verify(bookingRepository, never()).updateStatusByIds(any(), any(), any(), any());
+        verifyNoInteractions(transactionManager);
+    }
+}
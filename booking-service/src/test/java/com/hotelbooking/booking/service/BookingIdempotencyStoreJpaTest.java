@@ -0,0 +1,81 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.Booking;
+import com.hotelbooking.booking.entity.BookingStatus;
+import com.hotelbooking.booking.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Вставка бронирований через BookingIdempotencyStore на реальной схеме H2: ограничения таблицы bookings
+ * проверяются только так, в Mockito-тестах репозиторий подменен. Вставка фиксируется в отдельной
+ * транзакции, поэтому тест идет без транзакции и чистит таблицу сам
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(BookingIdempotencyStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingIdempotencyStoreJpaTest {
+
+    @Autowired
+    private BookingIdempotencyStore store;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+    }
+
+    /**
+     * Тест: асинхронное бронирование с автоподбором сохраняется без номера в статусе PENDING
+     */
+    @Test
+    void insertOrGetExisting_WithAutoSelectAndNoRoom_ShouldSavePendingBooking() {
+
+        BookingIdempotencyStore.InsertResult result = store.insertOrGetExisting(autoSelectBooking("auto-1"));
+
+        assertTrue(result.created());
+        Booking saved = bookingRepository.findById(result.booking().getId()).orElseThrow();
+        assertNull(saved.getRoomId());
+        assertEquals(BookingStatus.PENDING, saved.getStatus());
+        assertTrue(saved.getAutoSelect());
+    }
+
+    /**
+     * Тест: повтор с тем же correlationId возвращает уже созданное бронирование, а не ошибку
+     */
+    @Test
+    void insertOrGetExisting_WithDuplicateCorrelationId_ShouldReturnExisting() {
+
+        Booking first = store.insertOrGetExisting(autoSelectBooking("auto-2")).booking();
+
+        BookingIdempotencyStore.InsertResult duplicate = store.insertOrGetExisting(autoSelectBooking("auto-2"));
+
+        assertFalse(duplicate.created());
+        assertEquals(first.getId(), duplicate.booking().getId());
+        assertEquals(1, bookingRepository.count());
+    }
+
+    private Booking autoSelectBooking(String correlationId) {
+        Booking booking = new Booking();
+        booking.setUserId(1L);
+        booking.setUsername("user");
+        booking.setStartDate(LocalDate.now().plusDays(1));
+        booking.setEndDate(LocalDate.now().plusDays(3));
+        booking.setAutoSelect(true);
+        booking.setCorrelationId(correlationId);
+        booking.setCreatedAt(LocalDateTime.now());
+        return booking;
+    }
+}
@@ -0,0 +1,88 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.Booking;
+import com.hotelbooking.booking.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIdempotencyStoreTest {
+
+    private static final String CORRELATION_ID = "retry-key";
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookingIdempotencyStore store;
+
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        store = new BookingIdempotencyStore(bookingRepository, transactionManager, 600, 100);
+        booking = new Booking();
+        booking.setId(7L);
+        booking.setCorrelationId(CORRELATION_ID);
+    }
+
+    /**
+     * Тест: новый ключ ищется одним запросом по correlationId, повтор - по первичному ключу из кэша
+     */
+    @Test
+    void findExisting_RepeatedForSameKey_ShouldQueryCorrelationIdOnce() {
+        when(bookingRepository.findByCorrelationId(CORRELATION_ID)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findById(7L)).thenReturn(Optional.of(booking));
+
+        assertEquals(Optional.of(booking), store.findExisting(CORRELATION_ID));
+        assertEquals(Optional.of(booking), store.findExisting(CORRELATION_ID));
+
+        verify(bookingRepository, times(1)).findByCorrelationId(CORRELATION_ID);
+        verify(bookingRepository, times(1)).findById(7L);
+    }
+
+    /**
+     * Тест: созданное бронирование сразу попадает в кэш недавних ключей
+     */
+    @Test
+    void insertOrGetExisting_WhenNew_ShouldSaveAndRememberKey() {
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+        when(bookingRepository.findById(7L)).thenReturn(Optional.of(booking));
+
+        BookingIdempotencyStore.InsertResult result = store.insertOrGetExisting(booking);
+
+        assertTrue(result.created());
+        assertSame(booking, result.booking());
+        assertEquals(Optional.of(booking), store.findExisting(CORRELATION_ID));
+        verify(bookingRepository, never()).findByCorrelationId(any());
+    }
+
+    /**
+     * Тест: при нарушении уникальности correlation_id возвращается бронирование другого запроса
+     */
+    @Test
+    void insertOrGetExisting_WhenKeyTaken_ShouldReturnExisting() {
+        Booking duplicate = new Booking();
+        duplicate.setCorrelationId(CORRELATION_ID);
+        when(bookingRepository.saveAndFlush(duplicate)).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(bookingRepository.findByCorrelationId(CORRELATION_ID)).thenReturn(Optional.of(booking));
+
+        BookingIdempotencyStore.InsertResult result = store.insertOrGetExisting(duplicate);
+
+        assertFalse(result.created());
+        assertSame(booking, result.booking());
+    }
+}
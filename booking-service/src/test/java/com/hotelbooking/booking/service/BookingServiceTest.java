@@ -3,27 +3,37 @@ package com.hotelbooking.booking.service;
 import com.hotelbooking.booking.client.HotelServiceClient;
 import com.hotelbooking.booking.client.dto.RoomRecommendation;
 import com.hotelbooking.booking.client.dto.AvailabilityRequest;
-import com.hotelbooking.booking.client.dto.ReleaseRequest;
+import com.hotelbooking.booking.client.dto.BatchReservationRequest;
+import com.hotelbooking.booking.client.dto.BatchReservationResponse;
 import com.hotelbooking.booking.entity.Booking;
 import com.hotelbooking.booking.entity.BookingStatus;
+import com.hotelbooking.booking.entity.HotelOutboxAction;
+import com.hotelbooking.booking.exception.RoomBusyException;
 import com.hotelbooking.booking.repository.BookingRepository;
+import feign.FeignException;
+import feign.Request;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -39,12 +49,21 @@ class BookingServiceTest {
     @Mock
     private InternalAuthService internalAuthService;
 
+    @Mock
+    private HotelOutbox hotelOutbox;
+
+    @Mock
+    private BookingIdempotencyStore idempotencyStore;
+
     @Mock
     private SecurityContext securityContext;
 
     @Mock
     private Authentication authentication;
 
+    @Spy
+    private RecommendationCache recommendationCache = new RecommendationCache(5, 100);
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -81,10 +100,11 @@ class BookingServiceTest {
     @Test
     void createBooking_WhenRoomAvailable_ShouldConfirmBooking() {
         // Arrange
-        when(bookingRepository.existsByCorrelationId(CORRELATION_ID)).thenReturn(false);
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class))).thenAnswer(invocation ->
+                new BookingIdempotencyStore.InsertResult(invocation.getArgument(0), true));
         when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
         when(internalAuthService.isTokenValid()).thenReturn(true);
-        when(hotelServiceClient.confirmAvailability(anyLong(), any(AvailabilityRequest.class))).thenReturn(true);
+        when(hotelServiceClient.confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class))).thenReturn(true);
 
         // Act
         Booking result = bookingService.createBooking(testBooking, CORRELATION_ID);
@@ -92,9 +112,10 @@ class BookingServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(BookingStatus.CONFIRMED, result.getStatus());
-        verify(hotelServiceClient).confirmAvailability(eq(ROOM_ID), any(AvailabilityRequest.class));
-        // Проверяем, что releaseRoom не вызывался
-        verify(hotelServiceClient, never()).releaseRoom(anyLong(), any(ReleaseRequest.class));
+        verify(hotelServiceClient).confirmAvailabilityWithDates(eq(ROOM_ID), any(AvailabilityRequest.class));
+        // Hotel Service подтвердил слот в том же вызове, компенсации не ставятся
+        verify(hotelOutbox, never()).enqueue(any(), any());
+        verify(recommendationCache).invalidateOverlapping(testBooking.getStartDate(), testBooking.getEndDate());
     }
 
     /**
@@ -108,15 +129,16 @@ class BookingServiceTest {
      * 1. Сохраняет бронирование в статусе PENDING
      * 2. Проверяет доступность номера через HotelService
      * 3. При недоступности номера вызывает handleBookingFailure
-     * 4. Освобождает номер через releaseRoom
+     * 4. Ставит освобождение номера в outbox
      */
     @Test
     void createBooking_WhenRoomNotAvailable_ShouldCancelBooking() {
         // Arrange
-        when(bookingRepository.existsByCorrelationId(CORRELATION_ID)).thenReturn(false);
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class))).thenAnswer(invocation ->
+                new BookingIdempotencyStore.InsertResult(invocation.getArgument(0), true));
         when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
         when(internalAuthService.isTokenValid()).thenReturn(true);
-        when(hotelServiceClient.confirmAvailability(anyLong(), any(AvailabilityRequest.class))).thenReturn(false);
+        when(hotelServiceClient.confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class))).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class,
@@ -124,13 +146,68 @@ class BookingServiceTest {
 
         assertTrue(exception.getMessage().contains("Room is not available for selected dates"));
 
-        // Проверяем, что releaseRoom вызывался хотя бы один раз (может вызываться несколько раз из-за логики отката)
-        verify(hotelServiceClient, atLeastOnce()).releaseRoom(eq(ROOM_ID), any(ReleaseRequest.class));
+        // Проверяем, что освобождение номера поставлено в outbox
+        verify(hotelOutbox, atLeastOnce()).enqueue(HotelOutboxAction.RELEASE, testBooking);
 
         // Проверяем, что бронирование было сохранено с статусом CANCELLED
         verify(bookingRepository, atLeast(2)).save(any(Booking.class));
     }
 
+    /**
+     * Тест для метода: createBooking
+     * Назначение: Создание нового бронирования
+     * Сценарий: Hotel Service ответил 409 (номер занят другой операцией), повтор успешен
+     * Ожидаемый результат:
+     * - Бронирование подтверждено со второй попытки
+     * - Освобождение номера не ставится в outbox
+     */
+    @Test
+    void createBooking_WhenRoomBusyOnce_ShouldRetryAndConfirm() {
+        // Arrange
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class))).thenAnswer(invocation ->
+                new BookingIdempotencyStore.InsertResult(invocation.getArgument(0), true));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class)))
+                .thenThrow(roomBusy())
+                .thenReturn(true);
+
+        // Act
+        Booking result = bookingService.createBooking(testBooking, CORRELATION_ID);
+
+        // Assert
+        assertEquals(BookingStatus.CONFIRMED, result.getStatus());
+        verify(hotelServiceClient, times(2)).confirmAvailabilityWithDates(eq(ROOM_ID), any(AvailabilityRequest.class));
+        verify(hotelOutbox, never()).enqueue(any(), any());
+    }
+
+    /**
+     * Тест для метода: createBooking
+     * Назначение: Создание нового бронирования
+     * Сценарий: Номер остается занятым другой операцией на всех попытках
+     * Ожидаемый результат:
+     * - RoomBusyException (повторяемая ошибка), а не "Room is not available"
+     * - Бронирование CANCELLED после ограниченного числа попыток
+     */
+    @Test
+    void createBooking_WhenRoomStaysBusy_ShouldFailAsRetryableNotUnavailable() {
+        // Arrange
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class))).thenAnswer(invocation ->
+                new BookingIdempotencyStore.InsertResult(invocation.getArgument(0), true));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class)))
+                .thenThrow(roomBusy());
+
+        // Act & Assert
+        RoomBusyException exception = assertThrows(RoomBusyException.class,
+                () -> bookingService.createBooking(testBooking, CORRELATION_ID));
+
+        assertFalse(exception.getMessage().contains("not available"));
+        assertEquals(BookingStatus.CANCELLED, testBooking.getStatus());
+        verify(hotelServiceClient, times(3)).confirmAvailabilityWithDates(eq(ROOM_ID), any(AvailabilityRequest.class));
+    }
+
     /**
      * Тест для метода: createBooking
      * Назначение: Создание нового бронирования
@@ -146,8 +223,7 @@ class BookingServiceTest {
     @Test
     void createBooking_WithDuplicateCorrelationId_ShouldReturnExistingBooking() {
         // Arrange
-        when(bookingRepository.existsByCorrelationId(CORRELATION_ID)).thenReturn(true);
-        when(bookingRepository.findByCorrelationId(CORRELATION_ID)).thenReturn(Optional.of(testBooking));
+        when(idempotencyStore.findExisting(CORRELATION_ID)).thenReturn(Optional.of(testBooking));
 
         // Act
         Booking result = bookingService.createBooking(testBooking, CORRELATION_ID);
@@ -155,9 +231,10 @@ class BookingServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(testBooking.getId(), result.getId());
+        verify(idempotencyStore, never()).insertOrGetExisting(any(Booking.class));
         verify(bookingRepository, never()).save(any(Booking.class));
-        verify(hotelServiceClient, never()).confirmAvailability(anyLong(), any(AvailabilityRequest.class));
-        verify(hotelServiceClient, never()).releaseRoom(anyLong(), any(ReleaseRequest.class));
+        verify(hotelServiceClient, never()).confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class));
+        verify(hotelOutbox, never()).enqueue(any(), any());
     }
 
     /**
@@ -186,21 +263,23 @@ class BookingServiceTest {
         recommendation.setPrice(200.0);
         recommendation.setTimesBooked(5);
 
-        when(bookingRepository.existsByCorrelationId(CORRELATION_ID)).thenReturn(false);
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class))).thenAnswer(invocation ->
+                new BookingIdempotencyStore.InsertResult(invocation.getArgument(0), true));
         when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
         when(internalAuthService.isTokenValid()).thenReturn(true);
-        when(hotelServiceClient.getRecommendedRooms(any(LocalDate.class), any(LocalDate.class)))
+        when(hotelServiceClient.getTopRecommendedRooms(any(LocalDate.class), any(LocalDate.class), eq(1)))
                 .thenReturn(List.of(recommendation));
-        when(hotelServiceClient.confirmAvailability(anyLong(), any(AvailabilityRequest.class))).thenReturn(true);
+        when(hotelServiceClient.confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class))).thenReturn(true);
 
         // Act
         Booking result = bookingService.createBooking(testBooking, CORRELATION_ID);
 
         // Assert
         assertNotNull(result);
-        verify(hotelServiceClient).getRecommendedRooms(testBooking.getStartDate(), testBooking.getEndDate());
+        verify(hotelServiceClient).getTopRecommendedRooms(testBooking.getStartDate(), testBooking.getEndDate(), 1);
+        verify(hotelServiceClient, never()).getRecommendedRooms(any(LocalDate.class), any(LocalDate.class));
         assertEquals(BookingStatus.CONFIRMED, result.getStatus());
-        verify(hotelServiceClient, never()).releaseRoom(anyLong(), any(ReleaseRequest.class));
+        verify(hotelOutbox, never()).enqueue(any(), any());
     }
 
     /**
@@ -221,7 +300,6 @@ class BookingServiceTest {
         testBooking.setRoomId(null);
         testBooking.setAutoSelect(false);
 
-        when(bookingRepository.existsByCorrelationId(CORRELATION_ID)).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class,
@@ -231,8 +309,8 @@ class BookingServiceTest {
 
         // Проверяем, что не было попыток сохранить бронирование или вызвать внешние сервисы
         verify(bookingRepository, never()).save(any(Booking.class));
-        verify(hotelServiceClient, never()).confirmAvailability(anyLong(), any(AvailabilityRequest.class));
-        verify(hotelServiceClient, never()).releaseRoom(anyLong(), any(ReleaseRequest.class));
+        verify(hotelServiceClient, never()).confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class));
+        verify(hotelOutbox, never()).enqueue(any(), any());
     }
 
     /**
@@ -253,8 +331,7 @@ class BookingServiceTest {
         testBooking.setAutoSelect(true);
         testBooking.setRoomId(null);
 
-        when(bookingRepository.existsByCorrelationId(CORRELATION_ID)).thenReturn(false);
-        when(hotelServiceClient.getRecommendedRooms(any(LocalDate.class), any(LocalDate.class)))
+        when(hotelServiceClient.getTopRecommendedRooms(any(LocalDate.class), any(LocalDate.class), eq(1)))
                 .thenReturn(List.of()); // Пустой список
 
         // Act & Assert
@@ -264,8 +341,8 @@ class BookingServiceTest {
         assertTrue(exception.getMessage().contains("No available rooms found for selected dates"));
 
         // Проверяем, что не было попыток подтвердить доступность или освободить комнату
-        verify(hotelServiceClient, never()).confirmAvailability(anyLong(), any(AvailabilityRequest.class));
-        verify(hotelServiceClient, never()).releaseRoom(anyLong(), any(ReleaseRequest.class));
+        verify(hotelServiceClient, never()).confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class));
+        verify(hotelOutbox, never()).enqueue(any(), any());
     }
 
     /**
@@ -294,7 +371,31 @@ class BookingServiceTest {
                 () -> bookingService.cancelBooking(bookingId));
 
         assertTrue(exception.getMessage().contains("Cannot cancel booking with status: CANCELLED"));
-        verify(hotelServiceClient, never()).releaseRoom(anyLong(), any(ReleaseRequest.class));
+        verify(hotelOutbox, never()).enqueue(any(), any());
+    }
+
+    /**
+     * Тест для метода: cancelBooking
+     * Назначение: Отмена подтвержденного бронирования
+     * Ожидаемый результат:
+     * - Статус бронирования CANCELLED
+     * - Отмена в Hotel Service поставлена в outbox, а не вызвана напрямую
+     */
+    @Test
+    void cancelBooking_WhenConfirmed_ShouldQueueHotelCancellation() {
+        // Arrange
+        testBooking.setStatus(BookingStatus.CONFIRMED);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(testBooking));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        setupSimpleSecurityContext();
+
+        // Act
+        Booking result = bookingService.cancelBooking(1L);
+
+        // Assert
+        assertEquals(BookingStatus.CANCELLED, result.getStatus());
+        verify(hotelOutbox).enqueue(HotelOutboxAction.CANCEL, testBooking);
+        verifyNoInteractions(hotelServiceClient);
     }
 
     /**
@@ -392,32 +493,66 @@ class BookingServiceTest {
     }
 
     /**
-     * Тест для метода: completeExpiredBookings
-     * Назначение: Автоматическое завершение истекших бронирований
-     * Сценарий: Нет истекших бронирований
+     * Тест для метода: getRecommendedRooms
+     * Назначение: Получение рекомендованных комнат
+     * Сценарий: Повторный запрос на те же даты в пределах TTL
      * Ожидаемый результат:
-     * - Не выполняет никаких обновлений
+     * - HotelService вызывается один раз, второй ответ берется из кэша
+     * - После подтвержденного бронирования на пересекающиеся даты кэш сбрасывается
      * Бизнес-логика:
-     * 1. Находит все подтвержденные бронирования
-     * 2. Проверяет дату окончания каждого бронирования
-     * 3. Не обновляет статус если дата окончания не истекла
+     * 1. Рекомендации кэшируются по ключу (startDate, endDate)
+     * 2. createBooking инвалидирует ключи, пересекающиеся с периодом бронирования
      */
     @Test
-    void completeExpiredBookings_WithNoExpiredBookings_ShouldDoNothing() {
+    void getRecommendedRooms_RepeatedForSameDates_ShouldUseCacheUntilBookingCreated() {
         // Arrange
-        Booking activeBooking = new Booking();
-        activeBooking.setId(3L);
-        activeBooking.setStatus(BookingStatus.CONFIRMED);
-        activeBooking.setEndDate(LocalDate.now().plusDays(1)); // Завтра
+        LocalDate startDate = testBooking.getStartDate();
+        LocalDate endDate = testBooking.getEndDate();
+        RoomRecommendation room = new RoomRecommendation();
+        room.setId(ROOM_ID);
+
+        when(hotelServiceClient.getRecommendedRooms(startDate, endDate)).thenReturn(List.of(room));
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class))).thenAnswer(invocation ->
+                new BookingIdempotencyStore.InsertResult(invocation.getArgument(0), true));
+        when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.confirmAvailabilityWithDates(anyLong(), any(AvailabilityRequest.class))).thenReturn(true);
+
+        // Act
+        bookingService.getRecommendedRooms(startDate, endDate);
+        bookingService.getRecommendedRooms(startDate, endDate);
+        bookingService.createBooking(testBooking, CORRELATION_ID);
+        List<RoomRecommendation> result = bookingService.getRecommendedRooms(startDate, endDate);
+
+        // Assert
+        assertEquals(1, result.size());
+        verify(hotelServiceClient, times(2)).getRecommendedRooms(startDate, endDate);
+    }
 
-        when(bookingRepository.findByStatus(BookingStatus.CONFIRMED))
-                .thenReturn(List.of(activeBooking));
+    /**
+     * Тест для метода: getTopRecommendedRooms
+     * Назначение: Получить несколько лучших вариантов для выбора
+     * Сценарий: Лимит передается в hotel-service
+     * Ожидаемый результат:
+     * - Возвращает список, ограниченный на стороне hotel-service
+     * - Полный список рекомендаций не запрашивается
+     */
+    @Test
+    void getTopRecommendedRooms_ShouldPassLimitToHotelService() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = startDate.plusDays(3);
+        RoomRecommendation room = new RoomRecommendation();
+        room.setId(456L);
+        when(hotelServiceClient.getTopRecommendedRooms(startDate, endDate, 3)).thenReturn(List.of(room));
 
         // Act
-        bookingService.completeExpiredBookings();
+        List<RoomRecommendation> result = bookingService.getTopRecommendedRooms(startDate, endDate, 3);
 
         // Assert
-        verify(bookingRepository, never()).save(any(Booking.class));
+        assertEquals(1, result.size());
+        verify(hotelServiceClient).getTopRecommendedRooms(startDate, endDate, 3);
+        verify(hotelServiceClient, never()).getRecommendedRooms(any(LocalDate.class), any(LocalDate.class));
     }
 
     /**
@@ -497,9 +632,241 @@ class BookingServiceTest {
         assertEquals(testBooking.getId(), result.get(0).getId());
     }
 
+    /**
+     * Тест для метода: createGroupBooking
+     * Назначение: Групповое бронирование нескольких номеров
+     * Сценарий: Hotel Service резервирует все номера группы
+     * Ожидаемый результат:
+     * - Все бронирования подтверждены и связаны общим groupId
+     * - Номера резервируются одним запросом, компенсация не вызывается
+     */
+    @Test
+    void createGroupBooking_WhenAllRoomsReserved_ShouldConfirmAll() {
+        // Arrange
+        List<Booking> group = groupOf(ROOM_ID, ROOM_ID + 1);
+        when(bookingRepository.findByGroupId(CORRELATION_ID)).thenReturn(List.of());
+        when(bookingRepository.saveAll(group)).thenReturn(group);
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.reserveRooms(any(BatchReservationRequest.class)))
+                .thenReturn(reservationResult(true, List.of()));
+
+        // Act
+        List<Booking> result = bookingService.createGroupBooking(group, CORRELATION_ID);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertTrue(result.stream().allMatch(b -> b.getStatus() == BookingStatus.CONFIRMED));
+        assertTrue(result.stream().allMatch(b -> CORRELATION_ID.equals(b.getGroupId())));
+        verify(hotelServiceClient).reserveRooms(argThat(request -> request.getReservations().size() == 2));
+        verify(hotelOutbox, never()).enqueue(any(), any());
+    }
+
+    /**
+     * Тест для метода: createGroupBooking
+     * Сценарий: Один из номеров группы занят
+     * Ожидаемый результат:
+     * - Все бронирования группы отменены, выбрасывается исключение
+     * - Компенсация не вызывается: Hotel Service ничего не зарезервировал
+     */
+    @Test
+    void createGroupBooking_WhenRoomUnavailable_ShouldCancelWholeGroup() {
+        // Arrange
+        List<Booking> group = groupOf(ROOM_ID, ROOM_ID + 1);
+        when(bookingRepository.findByGroupId(CORRELATION_ID)).thenReturn(List.of());
+        when(bookingRepository.saveAll(group)).thenReturn(group);
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.reserveRooms(any(BatchReservationRequest.class)))
+                .thenReturn(reservationResult(false, List.of(ROOM_ID + 1)));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> bookingService.createGroupBooking(group, CORRELATION_ID));
+
+        assertTrue(exception.getMessage().contains(String.valueOf(ROOM_ID + 1)));
+        assertTrue(group.stream().allMatch(b -> b.getStatus() == BookingStatus.CANCELLED));
+        verify(hotelOutbox, never()).enqueue(any(), any());
+    }
+
+    /**
+     * Тест для метода: createGroupBooking
+     * Сценарий: Вызов Hotel Service завершился ошибкой, исход резервирования неизвестен
+     * Ожидаемый результат:
+     * - Снятие временных блокировок каждого бронирования группы поставлено в outbox
+     * - Все бронирования группы отменены
+     */
+    @Test
+    void createGroupBooking_WhenReservationCallFails_ShouldReleaseGroup() {
+        // Arrange
+        List<Booking> group = groupOf(ROOM_ID, ROOM_ID + 1);
+        when(bookingRepository.findByGroupId(CORRELATION_ID)).thenReturn(List.of());
+        when(bookingRepository.saveAll(group)).thenReturn(group);
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.reserveRooms(any(BatchReservationRequest.class)))
+                .thenThrow(new RuntimeException("Read timed out"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> bookingService.createGroupBooking(group, CORRELATION_ID));
+
+        verify(hotelOutbox).enqueue(HotelOutboxAction.RELEASE, group.get(0));
+        verify(hotelOutbox).enqueue(HotelOutboxAction.RELEASE, group.get(1));
+        assertTrue(group.stream().allMatch(b -> b.getStatus() == BookingStatus.CANCELLED));
+    }
+
+    /**
+     * Тест: повторный номер в группе отклоняется до обращения к Hotel Service
+     */
+    @Test
+    void createGroupBooking_WithDuplicateRoom_ShouldThrowException() {
+        // Arrange
+        List<Booking> group = groupOf(ROOM_ID, ROOM_ID);
+        when(bookingRepository.findByGroupId(CORRELATION_ID)).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> bookingService.createGroupBooking(group, CORRELATION_ID));
+        verifyNoInteractions(hotelServiceClient);
+    }
+
+    /**
+     * Тест для метода: createPendingBooking
+     * Назначение: Быстрый путь асинхронного бронирования
+     * Сценарий: Новое бронирование с указанным номером
+     * Ожидаемый результат:
+     * - Бронирование сохраняется в статусе PENDING
+     * - Hotel Service не вызывается
+     */
+    @Test
+    void createPendingBooking_WithValidBooking_ShouldSavePendingWithoutCallingHotelService() {
+        // Arrange
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class))).thenAnswer(invocation ->
+                new BookingIdempotencyStore.InsertResult(invocation.getArgument(0), true));
+
+        // Act
+        Booking result = bookingService.createPendingBooking(testBooking, CORRELATION_ID);
+
+        // Assert
+        assertEquals(BookingStatus.PENDING, result.getStatus());
+        assertEquals(CORRELATION_ID, result.getCorrelationId());
+        verifyNoInteractions(hotelServiceClient);
+    }
+
+    /**
+     * Тест для метода: createBooking
+     * Сценарий: Одновременный дубль - бронирование с тем же correlationId вставил другой запрос
+     * Ожидаемый результат:
+     * - Возвращается бронирование, созданное первым запросом
+     * - Подтверждение в Hotel Service повторно не запускается
+     */
+    @Test
+    void createBooking_WhenConcurrentDuplicateInserted_ShouldReturnExistingWithoutSaga() {
+        // Arrange
+        Booking existing = new Booking();
+        existing.setId(2L);
+        existing.setCorrelationId(CORRELATION_ID);
+        existing.setStatus(BookingStatus.CONFIRMED);
+        when(idempotencyStore.insertOrGetExisting(any(Booking.class)))
+                .thenReturn(new BookingIdempotencyStore.InsertResult(existing, false));
+
+        // Act
+        Booking result = bookingService.createBooking(testBooking, CORRELATION_ID);
+
+        // Assert
+        assertSame(existing, result);
+        verifyNoInteractions(hotelServiceClient, internalAuthService);
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    /**
+     * Тест для метода: confirmPendingBooking
+     * Назначение: Подтверждение бронирования в пуле обработчиков
+     * Сценарий: Номер доступен
+     * Ожидаемый результат:
+     * - Статус бронирования CONFIRMED
+     */
+    @Test
+    void confirmPendingBooking_WhenRoomAvailable_ShouldConfirmBooking() {
+        // Arrange
+        testBooking.setStatus(BookingStatus.PENDING);
+        when(bookingRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBooking));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.confirmAvailabilityWithDates(eq(ROOM_ID), any(AvailabilityRequest.class))).thenReturn(true);
+
+        // Act
+        bookingService.confirmPendingBooking(1L);
+
+        // Assert
+        assertEquals(BookingStatus.CONFIRMED, testBooking.getStatus());
+    }
+
+    /**
+     * Тест для метода: confirmPendingBooking
+     * Сценарий: Номер недоступен
+     * Ожидаемый результат:
+     * - Исключение не выбрасывается (отмена должна зафиксироваться в транзакции)
+     * - Статус бронирования CANCELLED
+     */
+    @Test
+    void confirmPendingBooking_WhenRoomNotAvailable_ShouldCancelWithoutThrowing() {
+        // Arrange
+        testBooking.setStatus(BookingStatus.PENDING);
+        when(bookingRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBooking));
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(hotelServiceClient.confirmAvailabilityWithDates(eq(ROOM_ID), any(AvailabilityRequest.class))).thenReturn(false);
+
+        // Act
+        assertDoesNotThrow(() -> bookingService.confirmPendingBooking(1L));
+
+        // Assert
+        assertEquals(BookingStatus.CANCELLED, testBooking.getStatus());
+    }
+
+    /**
+     * Тест: уже обработанное бронирование повторно не подтверждается
+     */
+    @Test
+    void confirmPendingBooking_WhenNotPending_ShouldSkip() {
+        // Arrange
+        testBooking.setStatus(BookingStatus.CONFIRMED);
+        when(bookingRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBooking));
+
+        // Act
+        bookingService.confirmPendingBooking(1L);
+
+        // Assert
+        verifyNoInteractions(hotelServiceClient);
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    private List<Booking> groupOf(Long... roomIds) {
+        List<Booking> group = new ArrayList<>();
+        for (Long roomId : roomIds) {
+            Booking booking = new Booking();
+            booking.setId((long) group.size() + 1);
+            booking.setUserId(USER_ID);
+            booking.setRoomId(roomId);
+            booking.setStartDate(testBooking.getStartDate());
+            booking.setEndDate(testBooking.getEndDate());
+            group.add(booking);
+        }
+        return group;
+    }
+
+    private BatchReservationResponse reservationResult(boolean reserved, List<Long> unavailableRoomIds) {
+        BatchReservationResponse response = new BatchReservationResponse();
+        response.setReserved(reserved);
+        response.setUnavailableRoomIds(unavailableRoomIds);
+        return response;
+    }
+
     private void setupSimpleSecurityContext() {
         // Упрощенная настройка security context без сложных thenReturn
         when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
     }
-}
\ No newline at end of file
+
+    private static FeignException roomBusy() {
+        Request request = Request.create(Request.HttpMethod.POST, "/rooms/456/confirm-availability-with-dates",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.Conflict("Room is busy, please retry", request, null, Map.of());
+    }
+}
@@ -0,0 +1,136 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.client.HotelServiceClient;
+import com.hotelbooking.booking.client.dto.BatchReleaseRequest;
+import com.hotelbooking.booking.entity.HotelOutboxAction;
+import com.hotelbooking.booking.entity.HotelOutboxMessage;
+import com.hotelbooking.booking.entity.HotelOutboxStatus;
+import com.hotelbooking.booking.repository.HotelOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotelOutboxRelayTest {
+
+    @Mock
+    private HotelOutboxRepository outboxRepository;
+
+    @Mock
+    private HotelServiceClient hotelServiceClient;
+
+    @Mock
+    private InternalAuthService internalAuthService;
+
+    private HotelOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new HotelOutboxRelay(outboxRepository, hotelServiceClient, internalAuthService, 100, 3, 1000, 60000);
+    }
+
+    /**
+     * Тест для метода: relay
+     * Назначение: Пакетная доставка outbox в Hotel Service
+     * Сценарий: В outbox сообщения об освобождении и отмене
+     * Ожидаемый результат:
+     * - Каждое действие доставляется одним пакетным запросом
+     * - Доставленные сообщения удаляются
+     */
+    @Test
+    void relay_ShouldDeliverEachActionInOneBatch() {
+        HotelOutboxMessage release1 = message(HotelOutboxAction.RELEASE, 1L);
+        HotelOutboxMessage release2 = message(HotelOutboxAction.RELEASE, 2L);
+        HotelOutboxMessage cancel = message(HotelOutboxAction.CANCEL, 3L);
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                eq(HotelOutboxStatus.PENDING), any(LocalDateTime.class), any()))
+                .thenReturn(List.of(release1, cancel, release2));
+
+        relay.relay();
+
+        verify(hotelServiceClient).releaseRooms(argThat(request -> request.getBookingIds().equals(List.of(1L, 2L))));
+        verify(hotelServiceClient).cancelBookings(argThat(request -> request.getBookingIds().equals(List.of(3L))));
+        verify(outboxRepository).deleteAll(List.of(release1, release2));
+        verify(outboxRepository).deleteAll(List.of(cancel));
+    }
+
+    /**
+     * Тест для метода: relay
+     * Сценарий: Hotel Service недоступен
+     * Ожидаемый результат:
+     * - Сообщения остаются в outbox, счетчик попыток увеличен
+     * - Следующая попытка назначена с задержкой
+     */
+    @Test
+    void relay_WhenDeliveryFails_ShouldScheduleRetry() {
+        HotelOutboxMessage release = message(HotelOutboxAction.RELEASE, 1L);
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                eq(HotelOutboxStatus.PENDING), any(LocalDateTime.class), any()))
+                .thenReturn(List.of(release));
+        doThrow(new RuntimeException("Connection refused"))
+                .when(hotelServiceClient).releaseRooms(any(BatchReleaseRequest.class));
+
+        relay.relay();
+
+        assertEquals(1, release.getAttempts());
+        assertEquals(HotelOutboxStatus.PENDING, release.getStatus());
+        assertTrue(release.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("Connection refused", release.getLastError());
+        verify(outboxRepository).saveAll(List.of(release));
+        verify(outboxRepository, never()).deleteAll(any());
+    }
+
+    /**
+     * Тест: после исчерпания попыток сообщение помечается FAILED и больше не доставляется
+     */
+    @Test
+    void relay_WhenAttemptsExhausted_ShouldMarkFailed() {
+        HotelOutboxMessage cancel = message(HotelOutboxAction.CANCEL, 1L);
+        cancel.setAttempts(2);
+        when(internalAuthService.isTokenValid()).thenReturn(true);
+        when(outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                eq(HotelOutboxStatus.PENDING), any(LocalDateTime.class), any()))
+                .thenReturn(List.of(cancel));
+        doThrow(new RuntimeException("Connection refused"))
+                .when(hotelServiceClient).cancelBookings(any(BatchReleaseRequest.class));
+
+        relay.relay();
+
+        assertEquals(3, cancel.getAttempts());
+        assertEquals(HotelOutboxStatus.FAILED, cancel.getStatus());
+    }
+
+    /**
+     * Тест: без внутреннего токена доставка откладывается
+     */
+    @Test
+    void relay_WhenTokenNotAvailable_ShouldSkip() {
+        when(internalAuthService.isTokenValid()).thenReturn(false);
+
+        relay.relay();
+
+        verifyNoInteractions(outboxRepository, hotelServiceClient);
+    }
+
+    private HotelOutboxMessage message(HotelOutboxAction action, Long bookingId) {
+        HotelOutboxMessage message = new HotelOutboxMessage();
+        message.setAction(action);
+        message.setBookingId(bookingId);
+        message.setIdempotencyKey(action.name().toLowerCase() + ":" + bookingId);
+        message.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        return message;
+    }
+}
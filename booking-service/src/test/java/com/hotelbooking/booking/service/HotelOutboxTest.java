@@ -0,0 +1,66 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.entity.Booking;
+import com.hotelbooking.booking.entity.HotelOutboxAction;
+import com.hotelbooking.booking.entity.HotelOutboxMessage;
+import com.hotelbooking.booking.entity.HotelOutboxStatus;
+import com.hotelbooking.booking.repository.HotelOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotelOutboxTest {
+
+    @Mock
+    private HotelOutboxRepository outboxRepository;
+
+    @InjectMocks
+    private HotelOutbox hotelOutbox;
+
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        booking = new Booking();
+        booking.setId(7L);
+        booking.setRoomId(456L);
+    }
+
+    /**
+     * Тест: сообщение сохраняется с ключом идемпотентности и готово к немедленной доставке
+     */
+    @Test
+    void enqueue_ShouldSavePendingMessageWithIdempotencyKey() {
+        when(outboxRepository.existsByIdempotencyKey("release:7")).thenReturn(false);
+
+        hotelOutbox.enqueue(HotelOutboxAction.RELEASE, booking);
+
+        verify(outboxRepository).save(argThat((HotelOutboxMessage message) ->
+                message.getAction() == HotelOutboxAction.RELEASE
+                        && message.getBookingId().equals(7L)
+                        && message.getRoomId().equals(456L)
+                        && message.getStatus() == HotelOutboxStatus.PENDING
+                        && message.getNextAttemptAt() != null));
+    }
+
+    /**
+     * Тест: повторная компенсация того же бронирования не создает второе сообщение
+     */
+    @Test
+    void enqueue_WhenAlreadyQueued_ShouldNotDuplicate() {
+        when(outboxRepository.existsByIdempotencyKey("release:7")).thenReturn(true);
+
+        hotelOutbox.enqueue(HotelOutboxAction.RELEASE, booking);
+
+        verify(outboxRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,205 @@
+package com.hotelbooking.booking.service;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InternalAuthServiceTest {
+
+    private static final String AUTH_URL = "http://auth/api/auth";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private InternalAuthService internalAuthService;
+
+    @BeforeEach
+    void setUp() {
+        internalAuthService = new InternalAuthService(restTemplate, AUTH_URL, "internal-service", "secret", 300, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        internalAuthService.shutdown();
+    }
+
+    /**
+     * Тест: первый токен получается логином, срок действия берется из claim exp
+     */
+    @Test
+    void refreshInternalToken_ShouldLoginAndReadExpiryFromToken() throws Exception {
+        Instant exp = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        String jwt = jwt(exp);
+        stubAuth("/login", jwt, "refresh-1");
+
+        assertEquals(jwt, internalAuthService.refreshInternalToken().get(5, TimeUnit.SECONDS));
+
+        assertTrue(internalAuthService.isTokenValid());
+        assertEquals(jwt, internalAuthService.getInternalToken());
+        assertEquals(exp, InternalAuthService.readExpiry(jwt));
+    }
+
+    /**
+     * Тест: параллельные запросы обновления объединяются в один логин
+     */
+    @Test
+    void refreshInternalToken_ShouldRunSingleLogin_WhenCalledConcurrently() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        String jwt = jwt(Instant.now().plus(1, ChronoUnit.HOURS));
+        when(restTemplate.exchange(eq(AUTH_URL + "/login"), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(InternalAuthService.TokenResponse.class)))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return ResponseEntity.ok(new InternalAuthService.TokenResponse(jwt, "refresh-1"));
+                });
+
+        List<CompletableFuture<String>> refreshes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            refreshes.add(internalAuthService.refreshInternalToken());
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> refresh : refreshes) {
+            assertEquals(jwt, refresh.get(5, TimeUnit.SECONDS));
+        }
+        verify(restTemplate, times(1)).exchange(eq(AUTH_URL + "/login"), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(InternalAuthService.TokenResponse.class));
+    }
+
+    /**
+     * Тест: повторное обновление идет по refresh-токену, пароль не отправляется
+     */
+    @Test
+    void refreshInternalToken_ShouldUseRefreshToken_WhenAvailable() throws Exception {
+        String first = jwt(Instant.now().plus(1, ChronoUnit.HOURS));
+        String second = jwt(Instant.now().plus(2, ChronoUnit.HOURS));
+        stubAuth("/login", first, "refresh-1");
+        stubAuth("/refresh", second, "refresh-2");
+
+        internalAuthService.refreshInternalToken().get(5, TimeUnit.SECONDS);
+        assertEquals(second, internalAuthService.refreshInternalToken().get(5, TimeUnit.SECONDS));
+
+        verify(restTemplate, times(1)).exchange(eq(AUTH_URL + "/login"), any(HttpMethod.class), any(HttpEntity.class),
+                eq(InternalAuthService.TokenResponse.class));
+    }
+
+    /**
+     * Тест: отклоненный refresh-токен - откат на логин с паролем
+     */
+    @Test
+    void refreshInternalToken_ShouldFallBackToLogin_WhenRefreshTokenRejected() throws Exception {
+        String first = jwt(Instant.now().plus(1, ChronoUnit.HOURS));
+        String second = jwt(Instant.now().plus(2, ChronoUnit.HOURS));
+        when(restTemplate.exchange(eq(AUTH_URL + "/login"), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(InternalAuthService.TokenResponse.class)))
+                .thenReturn(ResponseEntity.ok(new InternalAuthService.TokenResponse(first, "refresh-1")),
+                        ResponseEntity.ok(new InternalAuthService.TokenResponse(second, "refresh-2")));
+        when(restTemplate.exchange(eq(AUTH_URL + "/refresh"), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(InternalAuthService.TokenResponse.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+
+        internalAuthService.refreshInternalToken().get(5, TimeUnit.SECONDS);
+        assertEquals(second, internalAuthService.refreshInternalToken().get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Тест: зависший вызов auth-service завершает обновление по таймауту и не блокирует следующее
+     */
+    @Test
+    void refreshInternalToken_ShouldTimeOutAndAllowNextRefresh_WhenAuthServiceHangs() throws Exception {
+        CountDownLatch hang = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        String jwt = jwt(Instant.now().plus(1, ChronoUnit.HOURS));
+        when(restTemplate.exchange(eq(AUTH_URL + "/login"), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(InternalAuthService.TokenResponse.class)))
+                .thenAnswer(invocation -> {
+                    if (calls.incrementAndGet() == 1) {
+                        hang.await(10, TimeUnit.SECONDS);
+                    }
+                    return ResponseEntity.ok(new InternalAuthService.TokenResponse(jwt, "refresh-1"));
+                });
+
+        CompletableFuture<String> stuck = internalAuthService.refreshInternalToken();
+        ExecutionException timeout = assertThrows(ExecutionException.class, () -> stuck.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, timeout.getCause());
+
+        CompletableFuture<String> next = internalAuthService.refreshInternalToken();
+        assertNotSame(stuck, next);
+        assertEquals(jwt, next.get(5, TimeUnit.SECONDS));
+        assertTrue(internalAuthService.isTokenValid());
+        hang.countDown();
+    }
+
+    /**
+     * Тест: без токена запрос не ждет auth-service - исключение сразу, обновление идет в фоне
+     */
+    @Test
+    void getInternalToken_ShouldFailFastAndRefreshInBackground_WhenNoToken() throws Exception {
+        String jwt = jwt(Instant.now().plus(1, ChronoUnit.HOURS));
+        stubAuth("/login", jwt, "refresh-1");
+
+        assertThrows(RuntimeException.class, () -> internalAuthService.getInternalToken());
+
+        assertEquals(jwt, internalAuthService.refreshInternalToken().get(5, TimeUnit.SECONDS));
+        assertEquals(jwt, internalAuthService.getInternalToken());
+    }
+
+    /**
+     * Тест: плановое обновление за margin до exp; для короткоживущего токена - на середине срока
+     */
+    @Test
+    void delayUntilRefresh_ShouldRespectMarginAndShortLivedTokens() {
+        Instant now = Instant.now();
+
+        InternalAuthService.TokenState hourToken =
+                new InternalAuthService.TokenState("t", now.plus(1, ChronoUnit.HOURS), null);
+        assertEquals(Duration.ofMinutes(55), internalAuthService.delayUntilRefresh(hourToken, now));
+
+        InternalAuthService.TokenState shortToken =
+                new InternalAuthService.TokenState("t", now.plus(4, ChronoUnit.MINUTES), null);
+        assertEquals(Duration.ofMinutes(2), internalAuthService.delayUntilRefresh(shortToken, now));
+    }
+
+    private void stubAuth(String path, String jwt, String refreshToken) {
+        when(restTemplate.exchange(eq(AUTH_URL + path), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(InternalAuthService.TokenResponse.class)))
+                .thenReturn(ResponseEntity.ok(new InternalAuthService.TokenResponse(jwt, refreshToken)));
+    }
+
+    private static String jwt(Instant expiresAt) {
+        return new PlainJWT(new JWTClaimsSet.Builder()
+                .subject("internal-service")
+                .expirationTime(Date.from(expiresAt))
+                .build()).serialize();
+    }
+}
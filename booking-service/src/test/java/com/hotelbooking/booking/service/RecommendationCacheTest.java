@@ -0,0 +1,161 @@
+package com.hotelbooking.booking.service;
+
+import com.hotelbooking.booking.client.dto.RoomRecommendation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationCacheTest {
+
+    private final LocalDate START_DATE = LocalDate.of(2025, 7, 1);
+    private final LocalDate END_DATE = LocalDate.of(2025, 7, 5);
+
+    /**
+     * Тест: Одновременные запросы с одинаковым ключом выполняют один вызов загрузчика
+     */
+    @Test
+    void get_WithConcurrentIdenticalLookups_ShouldShareOneLoad() throws Exception {
+        RecommendationCache cache = new RecommendationCache(5, 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<RoomRecommendation>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.get(START_DATE, END_DATE, () -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    await(releaseLoader);
+                    return List.of(recommendation(1L));
+                })));
+            }
+
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            releaseLoader.countDown();
+
+            for (Future<List<RoomRecommendation>> result : results) {
+                assertEquals(1L, result.get(5, TimeUnit.SECONDS).get(0).getId());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Тест: Сбрасываются только ключи, пересекающиеся с периодом бронирования
+     */
+    @Test
+    void invalidateOverlapping_ShouldEvictOnlyOverlappingKeys() {
+        RecommendationCache cache = new RecommendationCache(5, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(START_DATE, END_DATE, () -> countedLoad(loads));
+        cache.get(END_DATE, END_DATE.plusDays(2), () -> countedLoad(loads));
+        assertEquals(2, loads.get());
+
+        cache.invalidateOverlapping(START_DATE.plusDays(1), END_DATE);
+
+        cache.get(START_DATE, END_DATE, () -> countedLoad(loads));
+        cache.get(END_DATE, END_DATE.plusDays(2), () -> countedLoad(loads));
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Тест: Списки с разным limit кэшируются отдельно и сбрасываются вместе по периоду
+     */
+    @Test
+    void get_WithDifferentLimits_ShouldCacheSeparately() {
+        RecommendationCache cache = new RecommendationCache(5, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(START_DATE, END_DATE, () -> countedLoad(loads));
+        cache.get(START_DATE, END_DATE, 1, () -> countedLoad(loads));
+        cache.get(START_DATE, END_DATE, 1, () -> countedLoad(loads));
+        assertEquals(2, loads.get());
+
+        cache.invalidateOverlapping(START_DATE, END_DATE);
+
+        cache.get(START_DATE, END_DATE, 1, () -> countedLoad(loads));
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Тест: Долгая загрузка одного ключа не блокирует другие ключи и сброс кэша
+     */
+    @Test
+    void get_WhileLoadInProgress_ShouldNotBlockOtherKeysOrInvalidation() throws Exception {
+        RecommendationCache cache = new RecommendationCache(5, 100);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<RoomRecommendation>> slow = executor.submit(() -> cache.get(START_DATE, END_DATE, () -> {
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return List.of(recommendation(1L));
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i <= 50; i++) {
+                LocalDate start = START_DATE.plusDays(i);
+                assertEquals(2L, cache.get(start, start.plusDays(1), () -> List.of(recommendation(2L))).get(0).getId());
+            }
+            cache.invalidateOverlapping(START_DATE, END_DATE.plusDays(60));
+
+            releaseLoader.countDown();
+            assertEquals(1L, slow.get(5, TimeUnit.SECONDS).get(0).getId());
+        } finally {
+            releaseLoader.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Тест: Ошибка загрузчика не кэшируется
+     */
+    @Test
+    void get_WhenLoaderFails_ShouldNotCacheFailure() {
+        RecommendationCache cache = new RecommendationCache(5, 100);
+
+        assertThrows(RuntimeException.class, () -> cache.get(START_DATE, END_DATE, () -> {
+            throw new RuntimeException("Hotel service unavailable");
+        }));
+
+        List<RoomRecommendation> result = cache.get(START_DATE, END_DATE, () -> List.of(recommendation(2L)));
+        assertEquals(2L, result.get(0).getId());
+    }
+
+    private List<RoomRecommendation> countedLoad(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return List.of(recommendation(1L));
+    }
+
+    private RoomRecommendation recommendation(Long id) {
+        RoomRecommendation recommendation = new RoomRecommendation();
+        recommendation.setId(id);
+        return recommendation;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.hotelbooking.common.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtDecoder с кэшем проверенных токенов: ключ - SHA-256 токена, запись живет до exp токена.
+ * Повторные запросы с тем же токеном не проверяют подпись и не разбирают claims заново.
+ * Невалидные токены не кэшируются, токены без exp - тоже.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<ByteBuffer, Jwt> verified;
+    private final Timer verifyTimer;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maxSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        this.verifyTimer = Timer.builder("security.jwt.verify")
+                .description("Time spent verifying JWTs that were not in the cache")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "verifiedJwt");
+        Gauge.builder("security.jwt.cache.saved", this, CachingJwtDecoder::estimatedSavedSeconds)
+                .description("Estimated verification time saved by cache hits")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        ByteBuffer key = sha256(token);
+        Jwt cached = verified.getIfPresent(key);
+        if (cached != null && isUnexpired(cached)) {
+            return cached;
+        }
+
+        long startedAt = System.nanoTime();
+        Jwt jwt = delegate.decode(token);
+        verifyTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+        if (jwt.getExpiresAt() != null) {
+            verified.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    double estimatedSavedSeconds() {
+        return verified.stats().hitCount() * verifyTimer.mean(TimeUnit.SECONDS);
+    }
+
+    private static boolean isUnexpired(Jwt jwt) {
+        return jwt.getExpiresAt() != null && Instant.now().isBefore(jwt.getExpiresAt());
+    }
+
+    private static ByteBuffer sha256(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Запись удаляется в момент exp токена
+     */
+    private static final class UntilTokenExpires implements Expiry<ByteBuffer, Jwt> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Jwt jwt, long currentTime) {
+            long millis = jwt.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+            return Math.max(TimeUnit.MILLISECONDS.toNanos(millis), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.hotelbooking.common.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+
+    @Mock
+    private JwtDecoder delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        decoder = new CachingJwtDecoder(delegate, 100, meterRegistry);
+    }
+
+    /**
+     * Тест: повторный запрос с тем же токеном не проверяет подпись заново
+     */
+    @Test
+    void decode_WithSameToken_ShouldVerifyOnce() {
+        Jwt jwt = jwt("token-1", Instant.now().plusSeconds(3600));
+        when(delegate.decode("token-1")).thenReturn(jwt);
+
+        assertSame(jwt, decoder.decode("token-1"));
+        assertSame(jwt, decoder.decode("token-1"));
+
+        verify(delegate, times(1)).decode("token-1");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "verifiedJwt").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    /**
+     * Тест: токен с истекшим exp из кэша не возвращается
+     */
+    @Test
+    void decode_WithExpiredToken_ShouldNotServeFromCache() {
+        Jwt jwt = jwt("token-2", Instant.now().minusSeconds(1));
+        when(delegate.decode("token-2")).thenReturn(jwt);
+
+        decoder.decode("token-2");
+        decoder.decode("token-2");
+
+        verify(delegate, times(2)).decode("token-2");
+    }
+
+    /**
+     * Тест: невалидный токен не кэшируется, ошибка проверки передается вызывающему
+     */
+    @Test
+    void decode_WithInvalidToken_ShouldRethrowEveryTime() {
+        when(delegate.decode("bad")).thenThrow(new BadJwtException("Invalid signature"));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+
+        verify(delegate, times(2)).decode("bad");
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .subject("testuser")
+                .claim("role", "USER")
+                .issuedAt(expiresAt.minusSeconds(3600))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -1,5 +1,8 @@
 package com.hotelbooking.hotel.config;
 
+import com.hotelbooking.common.security.CachingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -97,11 +100,13 @@ public class SecurityConfig {
         return converter;
     }
 
+    // Проверенные токены кэшируются до их exp: клиенты используют один токен в течение часа
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry,
+                                 @Value("${hotel.jwt-cache.max-size:10000}") long cacheMaxSize) {
         String secretString = "mySuperSecretKeyForJWTTokenGenerationInAuthService123!";
         byte[] keyBytes = secretString.getBytes();
         SecretKeySpec secretKey = new SecretKeySpec(keyBytes, "HmacSHA256");
-        return NimbusJwtDecoder.withSecretKey(secretKey).build();
+        return new CachingJwtDecoder(NimbusJwtDecoder.withSecretKey(secretKey).build(), cacheMaxSize, meterRegistry);
     }
 }
\ No newline at end of file
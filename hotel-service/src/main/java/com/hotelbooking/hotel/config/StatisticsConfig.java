@@ -0,0 +1,21 @@
+package com.hotelbooking.hotel.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class StatisticsConfig {
+
+    /**
+     * Пул для параллельного расчета статистики по отелям (сравнительный отчет)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService statisticsExecutor(@Value("${hotel.statistics.parallelism:4}") int parallelism) {
+        return Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("statistics-"));
+    }
+}
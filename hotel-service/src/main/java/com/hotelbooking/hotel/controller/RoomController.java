@@ -3,6 +3,7 @@ package com.hotelbooking.hotel.controller;
 import com.hotelbooking.hotel.dto.*;
 import com.hotelbooking.hotel.entity.Room;
 import com.hotelbooking.hotel.mapper.RoomMapper;
+import com.hotelbooking.hotel.service.RoomBusyException;
 import com.hotelbooking.hotel.service.RoomService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,13 +13,21 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,6 +38,11 @@ import java.util.stream.Collectors;
 @SecurityRequirement(name = "bearerAuth")
 public class RoomController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Постраничная выдача по смещению требует детерминированного порядка, иначе страницы пересекаются
+    private static final Sort PAGE_ORDER = Sort.by("id");
+
     private final RoomService roomService;
     private final RoomMapper roomMapper;
 
@@ -115,11 +129,27 @@ public class RoomController {
         return ResponseEntity.ok(available);
     }
 
+    @Operation(summary = "Проверить доступность нескольких номеров",
+            description = "Возвращает для каждого номера, свободен ли он во всех указанных периодах")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Проверка выполнена успешно"),
+            @ApiResponse(responseCode = "400", description = "Неверный список номеров или параметры дат")
+    })
+    @PostMapping("/availability/batch")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('INTERNAL')")
+    public ResponseEntity<Map<Long, Boolean>> checkAvailabilityBatch(@RequestBody BatchAvailabilityRequest request) {
+
+        log.info("POST /rooms/availability/batch - Checking availability of {} rooms",
+                request.getRoomIds() != null ? request.getRoomIds().size() : 0);
+        Map<Long, Boolean> availability = roomService.checkAvailability(request.getRoomIds(), request.getRanges());
+        return ResponseEntity.ok(availability);
+    }
+
     @Operation(summary = "Найти доступные номера на даты",
             description = "Возвращает номера, доступные для бронирования на указанные даты")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Список номеров получен"),
-            @ApiResponse(responseCode = "400", description = "Неверные параметры дат")
+            @ApiResponse(responseCode = "400", description = "Неверные параметры дат или страницы")
     })
     @GetMapping("/available")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
@@ -127,21 +157,47 @@ public class RoomController {
             @Parameter(description = "Дата заезда (формат: YYYY-MM-DD)")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @Parameter(description = "Дата выезда (формат: YYYY-MM-DD)")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "ID отеля (необязательно)")
+            @RequestParam(required = false) Long hotelId,
+            @Parameter(description = "Номер страницы (с 0)")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Размер страницы (по умолчанию " + DEFAULT_PAGE_SIZE + ", не больше " + MAX_PAGE_SIZE + ")")
+            @RequestParam(required = false) Integer size) {
 
-        log.info("GET /rooms/available - Finding available rooms from {} to {}", startDate, endDate);
-        List<Room> rooms = roomService.findAvailableRooms(startDate, endDate);
-        List<RoomDto> roomDtos = rooms.stream()
+        log.info("GET /rooms/available - Finding available rooms from {} to {} (hotel: {}, page: {}, size: {})",
+                startDate, endDate, hotelId, page, size);
+
+        if ((page != null && page < 0) || (size != null && size <= 0)) {
+            log.warn("GET /rooms/available - Invalid paging parameters: page {}, size {}", page, size);
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Без фильтра и параметров страницы - прежний ответ полным списком (поиск по индексу занятости)
+        if (hotelId == null && page == null && size == null) {
+            List<Room> rooms = roomService.findAvailableRooms(startDate, endDate);
+            List<RoomDto> roomDtos = rooms.stream()
+                    .map(roomMapper::toDto)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(roomDtos);
+        }
+
+        Pageable pageable = PageRequest.of(page != null ? page : 0,
+                size != null ? Math.min(size, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE, PAGE_ORDER);
+        Page<Room> rooms = roomService.findAvailableRooms(hotelId, startDate, endDate, pageable);
+        List<RoomDto> roomDtos = rooms.getContent().stream()
                 .map(roomMapper::toDto)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(roomDtos);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(rooms.getTotalElements()))
+                .body(roomDtos);
     }
 
     @Operation(summary = "Получить рекомендованные номера на даты",
             description = "Возвращает рекомендованные номера на указанные даты, отсортированные по популярности")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Список номеров получен"),
-            @ApiResponse(responseCode = "400", description = "Неверные параметры дат")
+            @ApiResponse(responseCode = "400", description = "Неверные параметры дат или limit")
     })
     @GetMapping("/recommend/date")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
@@ -149,10 +205,21 @@ public class RoomController {
             @Parameter(description = "Дата заезда (формат: YYYY-MM-DD)")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @Parameter(description = "Дата выезда (формат: YYYY-MM-DD)")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Максимальное количество номеров (по умолчанию - все доступные, не больше "
+                    + MAX_PAGE_SIZE + ")")
+            @RequestParam(required = false) Integer limit) {
 
-        log.info("GET /rooms/recommend/date - Finding recommended rooms from {} to {}", startDate, endDate);
-        List<Room> rooms = roomService.findRecommendedRooms(startDate, endDate);
+        log.info("GET /rooms/recommend/date - Finding recommended rooms from {} to {} (limit: {})",
+                startDate, endDate, limit);
+        if (limit != null && limit <= 0) {
+            log.warn("GET /rooms/recommend/date - Invalid limit: {}", limit);
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Room> rooms = limit != null
+                ? roomService.findTopAvailableRooms(startDate, endDate, Math.min(limit, MAX_PAGE_SIZE))
+                : roomService.findRecommendedRooms(startDate, endDate);
         List<RoomDto> roomDtos = rooms.stream()
                 .map(roomMapper::toDto)
                 .collect(Collectors.toList());
@@ -160,10 +227,11 @@ public class RoomController {
     }
 
     @Operation(summary = "Подтвердить доступность на даты",
-            description = "Подтверждает доступность номера на указанные даты с временной блокировкой (INTERNAL)")
+            description = "Подтверждает доступность номера на указанные даты и бронирует его (INTERNAL)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Доступность проверена"),
-            @ApiResponse(responseCode = "400", description = "Неверные параметры запроса")
+            @ApiResponse(responseCode = "400", description = "Неверные параметры запроса"),
+            @ApiResponse(responseCode = "409", description = "Номер временно занят другой операцией, запрос можно повторить")
     })
     @PostMapping("/{id}/confirm-availability-with-dates")
     @PreAuthorize("hasRole('INTERNAL')")
@@ -179,6 +247,51 @@ public class RoomController {
         return ResponseEntity.ok(available);
     }
 
+    @Operation(summary = "Зарезервировать несколько номеров",
+            description = "Резервирует все номера группы на один период в одной транзакции: все или ничего (INTERNAL)")
+    @PostMapping("/reserve-batch")
+    @PreAuthorize("hasRole('INTERNAL')")
+    public ResponseEntity<BatchReservationResponse> reserveRooms(@RequestBody BatchReservationRequest request) {
+
+        Map<Long, Long> bookingIdsByRoom = new LinkedHashMap<>();
+        for (BatchReservationRequest.RoomReservation reservation : request.getReservations()) {
+            if (bookingIdsByRoom.put(reservation.getRoomId(), reservation.getBookingId()) != null) {
+                throw new IllegalArgumentException("Room " + reservation.getRoomId() + " is listed more than once");
+            }
+        }
+
+        log.info("POST /rooms/reserve-batch - Reserving {} rooms from {} to {}",
+                bookingIdsByRoom.size(), request.getStartDate(), request.getEndDate());
+        List<Long> unavailable = roomService.reserveRooms(request.getStartDate(), request.getEndDate(), bookingIdsByRoom);
+
+        BatchReservationResponse response = new BatchReservationResponse();
+        response.setReserved(unavailable.isEmpty());
+        response.setUnavailableRoomIds(unavailable);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Снять блокировки группы бронирований",
+            description = "Освобождает номера неудавшихся бронирований по списку идентификаторов (INTERNAL)")
+    @PostMapping("/release-batch")
+    @PreAuthorize("hasRole('INTERNAL')")
+    public ResponseEntity<Void> releaseBookings(@RequestBody BatchReleaseRequest request) {
+
+        log.info("POST /rooms/release-batch - Releasing bookings {}", request.getBookingIds());
+        roomService.releaseBookings(request.getBookingIds());
+        return ResponseEntity.ok().build();
+    }
+
+    @Operation(summary = "Отменить группу бронирований",
+            description = "Отменяет бронирования по списку идентификаторов; повторный вызов безопасен (INTERNAL)")
+    @PostMapping("/cancel-batch")
+    @PreAuthorize("hasRole('INTERNAL')")
+    public ResponseEntity<Void> cancelBookings(@RequestBody BatchReleaseRequest request) {
+
+        log.info("POST /rooms/cancel-batch - Cancelling bookings {}", request.getBookingIds());
+        roomService.cancelBookings(request.getBookingIds());
+        return ResponseEntity.ok().build();
+    }
+
     @Operation(summary = "Подтвердить доступность",
             description = "Подтверждает доступность номера на даты (INTERNAL) - устаревшая версия")
     @PostMapping("/{id}/confirm-availability")
@@ -239,4 +352,18 @@ public class RoomController {
         return ResponseEntity.ok().build();
     }
 
-}
\ No newline at end of file
+    /**
+     * Номер занят другой операцией или параллельная запись нарушила ограничение БД: транзакция откатана,
+     * ничего не забронировано, запрос можно повторить. Это не ответ "номер недоступен"
+     */
+    @ExceptionHandler({RoomBusyException.class, DataIntegrityViolationException.class})
+    public ResponseEntity<String> handleRetryableConflict(RuntimeException e) {
+        log.warn("Retryable room write conflict: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Room is busy, please retry");
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,17 @@
+package com.hotelbooking.hotel.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class BatchAvailabilityRequest {
+    private List<Long> roomIds;
+    private List<DateRange> ranges;
+
+    @Data
+    public static class DateRange {
+        private LocalDate startDate;
+        private LocalDate endDate;
+    }
+}
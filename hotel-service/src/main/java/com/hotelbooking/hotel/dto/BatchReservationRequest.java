@@ -0,0 +1,18 @@
+package com.hotelbooking.hotel.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class BatchReservationRequest {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<RoomReservation> reservations;
+
+    @Data
+    public static class RoomReservation {
+        private Long roomId;
+        private Long bookingId;
+    }
+}
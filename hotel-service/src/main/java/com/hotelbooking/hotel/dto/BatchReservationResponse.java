@@ -0,0 +1,10 @@
+package com.hotelbooking.hotel.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchReservationResponse {
+    private boolean reserved;
+    private List<Long> unavailableRoomIds;
+}
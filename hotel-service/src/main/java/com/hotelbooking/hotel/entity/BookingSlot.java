@@ -5,8 +5,14 @@ import javax.persistence.*;
 import java.time.LocalDate;
 
 @Entity
+// Уникального ключа по (room_id, start_date, end_date) нет: отмененные слоты остаются в таблице, и номер
+// можно снова забронировать на те же даты. Пересечения исключает блокировка номера при вставке слота
 @Table(name = "booking_slots",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"room_id", "start_date", "end_date"}))
+        indexes = {
+                @Index(name = "idx_booking_slots_room_status_dates",
+                        columnList = "room_id, status, start_date, end_date"),
+                @Index(name = "idx_booking_slots_status_created", columnList = "status, created_at")
+        })
 @Data
 public class BookingSlot {
 
@@ -26,6 +32,10 @@ public class BookingSlot {
     @Column(name = "booking_id")
     private Long bookingId;
 
+    // Цена ночи на момент бронирования: по ней считается доход в сводке загрузки
+    @Column(name = "nightly_price")
+    private Double nightlyPrice;
+
     @Column(name = "status", nullable = false)
     private String status = "RESERVED"; // RESERVED, CONFIRMED, CANCELLED
 
@@ -0,0 +1,31 @@
+package com.hotelbooking.hotel.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "hotel_daily_occupancy",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"hotel_id", "occupancy_date", "room_type"}))
+@Data
+public class HotelDailyOccupancy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "occupancy_date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "room_type", nullable = false)
+    private String roomType;
+
+    @Column(name = "occupied_rooms", nullable = false)
+    private Integer occupiedRooms = 0;
+
+    @Column(nullable = false)
+    private Double revenue = 0.0;
+}
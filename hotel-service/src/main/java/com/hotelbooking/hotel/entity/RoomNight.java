@@ -0,0 +1,29 @@
+package com.hotelbooking.hotel.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Занятая ночь номера: одна строка на (room_id, night), уникальный ключ не допускает двойного занятия
+ */
+@Entity
+@Table(name = "room_nights",
+        uniqueConstraints = @UniqueConstraint(name = "uk_room_nights_room_night", columnNames = {"room_id", "night"}),
+        indexes = @Index(name = "idx_room_nights_slot", columnList = "slot_id"))
+@Data
+public class RoomNight {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "night", nullable = false)
+    private LocalDate night;
+
+    @Column(name = "slot_id", nullable = false)
+    private Long slotId;
+}
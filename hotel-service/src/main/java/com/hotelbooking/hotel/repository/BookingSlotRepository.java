@@ -1,13 +1,18 @@
 package com.hotelbooking.hotel.repository;
 
 import com.hotelbooking.hotel.entity.BookingSlot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface BookingSlotRepository extends JpaRepository<BookingSlot, Long> {
@@ -28,10 +33,65 @@ public interface BookingSlotRepository extends JpaRepository<BookingSlot, Long>
                                            @Param("startDate") LocalDate startDate,
                                            @Param("endDate") LocalDate endDate);
 
+    @Query("SELECT bs FROM BookingSlot bs WHERE " +
+            "bs.roomId IN :roomIds AND " +
+            "bs.status = 'CONFIRMED' AND " +
+            "(:startDate < bs.endDate AND :endDate > bs.startDate)")
+    List<BookingSlot> findConfirmedSlotsForRooms(@Param("roomIds") Collection<Long> roomIds,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT bs FROM BookingSlot bs WHERE " +
+            "bs.roomId IN (SELECT r.id FROM Room r WHERE r.hotel.id = :hotelId) AND " +
+            "bs.status = 'CONFIRMED' AND " +
+            "(:startDate < bs.endDate AND :endDate > bs.startDate)")
+    List<BookingSlot> findConfirmedSlotsForHotel(@Param("hotelId") Long hotelId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT bs FROM BookingSlot bs WHERE " +
+            "bs.status = 'CONFIRMED' AND " +
+            "(:startDate < bs.endDate AND :endDate > bs.startDate)")
+    List<BookingSlot> findConfirmedSlotsInPeriod(@Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT DISTINCT bs.roomId FROM BookingSlot bs WHERE " +
+            "bs.roomId IN :roomIds AND " +
+            "bs.status IN ('RESERVED', 'CONFIRMED') AND " +
+            "(:startDate < bs.endDate AND :endDate > bs.startDate)")
+    Set<Long> findConflictingRoomIds(@Param("roomIds") Collection<Long> roomIds,
+                                     @Param("startDate") LocalDate startDate,
+                                     @Param("endDate") LocalDate endDate);
+
     List<BookingSlot> findByBookingId(Long bookingId);
 
+    List<BookingSlot> findByBookingIdIn(Collection<Long> bookingIds);
+
+    List<BookingSlot> findByStatus(String status);
+
+    List<BookingSlot> findByRoomIdInAndStatus(Collection<Long> roomIds, String status);
+
+    List<BookingSlot> findByStatusIn(Collection<String> statuses);
+
+    @Query("SELECT bs FROM BookingSlot bs WHERE " +
+            "bs.status IN ('RESERVED', 'CONFIRMED') AND " +
+            "bs.endDate > :fromDate")
+    List<BookingSlot> findActiveSlotsEndingAfter(@Param("fromDate") LocalDate fromDate);
+
+
+    @Query("SELECT bs FROM BookingSlot bs WHERE bs.status = 'RESERVED' AND bs.createdAt < :expiryTime " +
+            "ORDER BY bs.createdAt, bs.id")
+    List<BookingSlot> findExpiredReservations(@Param("expiryTime") LocalDateTime expiryTime,
+                                              Pageable pageable);
+
+    @Query("SELECT bs.id FROM BookingSlot bs WHERE " +
+            "bs.id IN :ids AND bs.status = 'RESERVED' AND bs.createdAt < :expiryTime")
+    List<Long> findExpiredReservationIds(@Param("ids") Collection<Long> ids,
+                                         @Param("expiryTime") LocalDateTime expiryTime);
 
-    @Query("SELECT bs FROM BookingSlot bs WHERE bs.roomId = :roomId AND bs.status = 'RESERVED' AND bs.createdAt < :expiryTime")
-    List<BookingSlot> findExpiredReservations(@Param("roomId") Long roomId,
-                                              @Param("expiryTime") java.time.LocalDateTime expiryTime);
+    @Modifying
+    @Query("DELETE FROM BookingSlot bs WHERE " +
+            "bs.id IN :ids AND bs.status = 'RESERVED' AND bs.createdAt < :expiryTime")
+    int deleteExpiredReservations(@Param("ids") Collection<Long> ids,
+                                  @Param("expiryTime") LocalDateTime expiryTime);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.hotelbooking.hotel.repository;
+
+import com.hotelbooking.hotel.entity.HotelDailyOccupancy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HotelDailyOccupancyRepository extends JpaRepository<HotelDailyOccupancy, Long> {
+
+    List<HotelDailyOccupancy> findByHotelIdAndDateBetween(Long hotelId, LocalDate startDate, LocalDate endDate);
+
+    List<HotelDailyOccupancy> findByDateBetween(LocalDate startDate, LocalDate endDate);
+
+    List<HotelDailyOccupancy> findByHotelIdAndRoomTypeAndDateBetween(Long hotelId, String roomType,
+                                                                     LocalDate startDate, LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM HotelDailyOccupancy o WHERE o.hotelId = :hotelId")
+    int deleteByHotelId(@Param("hotelId") Long hotelId);
+}
@@ -2,8 +2,22 @@ package com.hotelbooking.hotel.repository;
 
 import com.hotelbooking.hotel.entity.Hotel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface HotelRepository extends JpaRepository<Hotel, Long> {
+
+    @Query("SELECT h.id FROM Hotel h ORDER BY h.id")
+    List<Long> findAllIds();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hotel h WHERE h.id = :id")
+    Optional<Hotel> findByIdForUpdate(@Param("id") Long id);
 }
\ No newline at end of file
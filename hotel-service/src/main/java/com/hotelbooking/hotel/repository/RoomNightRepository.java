@@ -0,0 +1,31 @@
+package com.hotelbooking.hotel.repository;
+
+import com.hotelbooking.hotel.entity.RoomNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+@Repository
+public interface RoomNightRepository extends JpaRepository<RoomNight, Long> {
+
+    boolean existsByRoomIdAndNightBetween(Long roomId, LocalDate firstNight, LocalDate lastNight);
+
+    @Query("SELECT DISTINCT rn.roomId FROM RoomNight rn WHERE " +
+            "rn.roomId IN :roomIds AND rn.night BETWEEN :firstNight AND :lastNight")
+    Set<Long> findOccupiedRoomIds(@Param("roomIds") Collection<Long> roomIds,
+                                  @Param("firstNight") LocalDate firstNight,
+                                  @Param("lastNight") LocalDate lastNight);
+
+    @Query("SELECT DISTINCT rn.slotId FROM RoomNight rn")
+    Set<Long> findClaimedSlotIds();
+
+    @Modifying
+    @Query("DELETE FROM RoomNight rn WHERE rn.slotId IN :slotIds")
+    int deleteBySlotIds(@Param("slotIds") Collection<Long> slotIds);
+}
@@ -1,19 +1,86 @@
 package com.hotelbooking.hotel.repository;
 
 import com.hotelbooking.hotel.entity.Room;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
     List<Room> findByHotelId(Long hotelId);
 
+    /**
+     * Номер с блокировкой строки (SELECT ... FOR UPDATE) до конца транзакции
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Номера с блокировкой строк в порядке id (одинаковый порядок для всех групповых операций)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id IN :ids ORDER BY r.id")
+    List<Room> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r FROM Room r JOIN FETCH r.hotel")
+    List<Room> findAllWithHotel();
+
     List<Room> findByAvailableTrue();
 
     @Query("SELECT r FROM Room r WHERE r.available = true ORDER BY r.timesBooked ASC")
     List<Room> findAvailableRoomsOrderByTimesBooked();
-}
\ No newline at end of file
+
+    @Query(value = "SELECT r FROM Room r WHERE " +
+            "r.available = true AND " +
+            "(:hotelId IS NULL OR r.hotel.id = :hotelId) AND " +
+            "NOT EXISTS (SELECT bs.id FROM BookingSlot bs WHERE " +
+            "bs.roomId = r.id AND " +
+            "bs.status IN ('RESERVED', 'CONFIRMED') AND " +
+            "(:startDate < bs.endDate AND :endDate > bs.startDate))",
+            countQuery = "SELECT COUNT(r) FROM Room r WHERE " +
+                    "r.available = true AND " +
+                    "(:hotelId IS NULL OR r.hotel.id = :hotelId) AND " +
+                    "NOT EXISTS (SELECT bs.id FROM BookingSlot bs WHERE " +
+                    "bs.roomId = r.id AND " +
+                    "bs.status IN ('RESERVED', 'CONFIRMED') AND " +
+                    "(:startDate < bs.endDate AND :endDate > bs.startDate))")
+    Page<Room> findAvailableRoomsForDates(@Param("hotelId") Long hotelId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate,
+                                          Pageable pageable);
+
+    @Query("SELECT r FROM Room r WHERE " +
+            "r.available = true AND " +
+            "(:hotelId IS NULL OR r.hotel.id = :hotelId) AND " +
+            "NOT EXISTS (SELECT bs.id FROM BookingSlot bs WHERE " +
+            "bs.roomId = r.id AND " +
+            "bs.status IN ('RESERVED', 'CONFIRMED') AND " +
+            "(:startDate < bs.endDate AND :endDate > bs.startDate))")
+    List<Room> findAvailableRoomsForDates(@Param("hotelId") Long hotelId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate,
+                                          Sort sort);
+
+    @Query("SELECT r FROM Room r WHERE " +
+            "r.available = true AND " +
+            "NOT EXISTS (SELECT bs.id FROM BookingSlot bs WHERE " +
+            "bs.roomId = r.id AND " +
+            "bs.status IN ('RESERVED', 'CONFIRMED') AND " +
+            "(:startDate < bs.endDate AND :endDate > bs.startDate))")
+    List<Room> findTopAvailableRoomsForDates(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate,
+                                             Pageable pageable);
+}
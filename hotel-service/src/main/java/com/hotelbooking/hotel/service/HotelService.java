@@ -3,6 +3,10 @@ package com.hotelbooking.hotel.service;
 import com.hotelbooking.hotel.entity.Hotel;
 import com.hotelbooking.hotel.repository.HotelRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,19 +17,27 @@ public class HotelService {
 
     private final HotelRepository hotelRepository;
 
+    @Cacheable(cacheNames = "hotelList", key = "'all'")
     public List<Hotel> findAll() {
         return hotelRepository.findAll();
     }
 
+    @Cacheable(cacheNames = "hotels", key = "#id")
     public Hotel findById(Long id) {
         return hotelRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Hotel not found with id: " + id));
     }
 
+    @Caching(
+            put = @CachePut(cacheNames = "hotels", key = "#result.id"),
+            evict = @CacheEvict(cacheNames = "hotelList", allEntries = true))
     public Hotel save(Hotel hotel) {
         return hotelRepository.save(hotel);
     }
 
+    @Caching(
+            put = @CachePut(cacheNames = "hotels", key = "#id"),
+            evict = @CacheEvict(cacheNames = "hotelList", allEntries = true))
     public Hotel update(Long id, Hotel hotelDetails) {
         Hotel hotel = findById(id);
         hotel.setName(hotelDetails.getName());
@@ -34,6 +46,11 @@ public class HotelService {
         return hotelRepository.save(hotel);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "hotels", key = "#id"),
+            @CacheEvict(cacheNames = "hotelList", allEntries = true),
+            @CacheEvict(cacheNames = "hotelRooms", key = "#id"),
+            @CacheEvict(cacheNames = "rooms", allEntries = true)})
     public void deleteById(Long id) {
         hotelRepository.deleteById(id);
     }
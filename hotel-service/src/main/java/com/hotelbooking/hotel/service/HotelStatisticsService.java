@@ -7,6 +7,7 @@ import com.hotelbooking.hotel.dto.statistics.DateRange;
 import com.hotelbooking.hotel.entity.Hotel;
 import com.hotelbooking.hotel.entity.Room;
 import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.entity.HotelDailyOccupancy;
 import com.hotelbooking.hotel.repository.HotelRepository;
 import com.hotelbooking.hotel.repository.RoomRepository;
 import com.hotelbooking.hotel.repository.BookingSlotRepository;
@@ -17,6 +18,8 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -27,6 +30,8 @@ public class HotelStatisticsService {
     private final HotelRepository hotelRepository;
     private final RoomRepository roomRepository;
     private final BookingSlotRepository bookingSlotRepository;
+    private final OccupancyRollupService occupancyRollup;
+    private final ExecutorService statisticsExecutor;
 
     public HotelStatisticsDto getHotelStatistics(Long hotelId, LocalDate startDate, LocalDate endDate) {
         log.info("Calculating statistics for hotel {} from {} to {}", hotelId, startDate, endDate);
@@ -35,39 +40,107 @@ public class HotelStatisticsService {
                 .orElseThrow(() -> new RuntimeException("Hotel not found with id: " + hotelId));
 
         List<Room> hotelRooms = roomRepository.findByHotelId(hotelId);
-        List<BookingSlot> bookingSlots = getBookingSlotsInPeriod(hotelId, startDate, endDate);
+        StatisticsAccumulator accumulator = new StatisticsAccumulator(hotelRooms, startDate, endDate);
 
-        HotelStatisticsDto statistics = new HotelStatisticsDto();
-        statistics.setHotelId(hotelId);
-        statistics.setHotelName(hotel.getName());
-        statistics.setTotalRooms(hotelRooms.size());
-        statistics.setAvailableRooms((int) hotelRooms.stream().filter(Room::getAvailable).count());
-        statistics.setOccupancyRate(calculateOccupancyRate(hotelRooms, bookingSlots, startDate, endDate));
-        statistics.setDailyOccupancy(calculateDailyOccupancy(hotelRooms, bookingSlots, startDate, endDate));
-        statistics.setRoomTypeStats(calculateRoomTypeStatistics(hotelRooms, bookingSlots, startDate, endDate));
-        statistics.setMostPopularRoom(findMostPopularRoom(hotelRooms));
-        statistics.setLeastPopularRoom(findLeastPopularRoom(hotelRooms));
-        statistics.setTotalRevenue(calculateTotalRevenue(bookingSlots, hotelRooms));
-        statistics.setAverageRevenuePerRoom(calculateAverageRevenuePerRoom(statistics.getTotalRevenue(), hotelRooms.size()));
-        statistics.setDateRange(new DateRange(startDate, endDate, ChronoUnit.DAYS.between(startDate, endDate) + 1));
+        if (occupancyRollup.isReady()) {
+            occupancyRollup.findHotelRange(hotelId, startDate, endDate).forEach(accumulator::addRollupRow);
+        } else {
+            getBookingSlotsInPeriod(hotelRooms, startDate, endDate).forEach(accumulator::addSlot);
+        }
 
-        return statistics;
+        return buildStatistics(hotel, hotelRooms, accumulator);
     }
 
+    /**
+     * Сравнение отелей: номера и загрузка всех отелей загружаются пакетными запросами,
+     * статистика по каждому отелю считается параллельно на statisticsExecutor
+     */
     public List<HotelStatisticsDto> getHotelsComparison(LocalDate startDate, LocalDate endDate) {
         log.info("Calculating hotels comparison from {} to {}", startDate, endDate);
 
-        return hotelRepository.findAll().stream()
-                .map(hotel -> getHotelStatistics(hotel.getId(), startDate, endDate))
+        List<Hotel> hotels = hotelRepository.findAll();
+        if (hotels.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, List<Room>> roomsByHotel = roomRepository.findAllWithHotel().stream()
+                .collect(Collectors.groupingBy(room -> room.getHotel().getId()));
+
+        Map<Long, List<HotelDailyOccupancy>> rollupByHotel;
+        Map<Long, List<BookingSlot>> slotsByHotel;
+
+        if (occupancyRollup.isReady()) {
+            rollupByHotel = occupancyRollup.findRange(startDate, endDate).stream()
+                    .collect(Collectors.groupingBy(HotelDailyOccupancy::getHotelId));
+            slotsByHotel = Collections.emptyMap();
+        } else {
+            Map<Long, Long> hotelIdByRoom = new HashMap<>();
+            roomsByHotel.forEach((hotelId, rooms) -> rooms.forEach(room -> hotelIdByRoom.put(room.getId(), hotelId)));
+
+            slotsByHotel = bookingSlotRepository
+                    .findConfirmedSlotsInPeriod(startDate, endDate.plusDays(1)).stream()
+                    .filter(slot -> hotelIdByRoom.containsKey(slot.getRoomId()))
+                    .collect(Collectors.groupingBy(slot -> hotelIdByRoom.get(slot.getRoomId())));
+            rollupByHotel = Collections.emptyMap();
+        }
+
+        List<CompletableFuture<HotelStatisticsDto>> futures = hotels.stream()
+                .map(hotel -> CompletableFuture.supplyAsync(() -> {
+                    List<Room> hotelRooms = roomsByHotel.getOrDefault(hotel.getId(), Collections.emptyList());
+                    StatisticsAccumulator accumulator = new StatisticsAccumulator(hotelRooms, startDate, endDate);
+                    slotsByHotel.getOrDefault(hotel.getId(), Collections.emptyList()).forEach(accumulator::addSlot);
+                    rollupByHotel.getOrDefault(hotel.getId(), Collections.emptyList()).forEach(accumulator::addRollupRow);
+                    return buildStatistics(hotel, hotelRooms, accumulator);
+                }, statisticsExecutor))
+                .toList();
+
+        return futures.stream()
+                .map(CompletableFuture::join)
                 .sorted(Comparator.comparingDouble(HotelStatisticsDto::getOccupancyRate).reversed())
                 .collect(Collectors.toList());
     }
 
+    private HotelStatisticsDto buildStatistics(Hotel hotel, List<Room> hotelRooms, StatisticsAccumulator accumulator) {
+        OccupancyTimeline timeline = accumulator.timeline;
+
+        Map<String, RoomTypeStatistics> roomTypeStats = new HashMap<>();
+        accumulator.roomTypes.forEach((type, typeAccumulator) -> roomTypeStats.put(type, typeAccumulator.toStatistics()));
+
+        HotelStatisticsDto statistics = new HotelStatisticsDto();
+        statistics.setHotelId(hotel.getId());
+        statistics.setHotelName(hotel.getName());
+        statistics.setTotalRooms(hotelRooms.size());
+        statistics.setAvailableRooms(accumulator.availableRooms);
+        statistics.setOccupancyRate(calculateOccupancyRate(hotelRooms.size(), timeline));
+        statistics.setDailyOccupancy(calculateDailyOccupancy(hotelRooms.size(), timeline));
+        statistics.setRoomTypeStats(roomTypeStats);
+        statistics.setMostPopularRoom(findMostPopularRoom(hotelRooms));
+        statistics.setLeastPopularRoom(findLeastPopularRoom(hotelRooms));
+        statistics.setTotalRevenue(accumulator.totalRevenue);
+        statistics.setAverageRevenuePerRoom(calculateAverageRevenuePerRoom(statistics.getTotalRevenue(), hotelRooms.size()));
+        statistics.setDateRange(new DateRange(accumulator.startDate, accumulator.endDate,
+                ChronoUnit.DAYS.between(accumulator.startDate, accumulator.endDate) + 1));
+
+        return statistics;
+    }
+
     public Map<LocalDate, Double> getDailyOccupancy(Long hotelId, LocalDate startDate, LocalDate endDate) {
         List<Room> hotelRooms = roomRepository.findByHotelId(hotelId);
-        List<BookingSlot> bookingSlots = getBookingSlotsInPeriod(hotelId, startDate, endDate);
+        OccupancyTimeline timeline = new OccupancyTimeline(startDate, endDate);
 
-        return calculateDailyOccupancy(hotelRooms, bookingSlots, startDate, endDate);
+        if (hotelRooms.isEmpty()) {
+            return calculateDailyOccupancy(0, timeline);
+        }
+
+        if (occupancyRollup.isReady()) {
+            occupancyRollup.findHotelRange(hotelId, startDate, endDate)
+                    .forEach(row -> timeline.addDay(row.getDate(), row.getOccupiedRooms()));
+        } else {
+            bookingSlotRepository.findConfirmedSlotsForHotel(hotelId, startDate, endDate.plusDays(1))
+                    .forEach(slot -> timeline.add(slot.getStartDate(), slot.getEndDate()));
+        }
+
+        return calculateDailyOccupancy(hotelRooms.size(), timeline);
     }
 
     public List<RoomPopularityDto> getPopularRooms(Long hotelId, Integer limit) {
@@ -86,96 +159,35 @@ public class HotelStatisticsService {
         return popularRooms;
     }
 
-    private List<BookingSlot> getBookingSlotsInPeriod(Long hotelId, LocalDate startDate, LocalDate endDate) {
-        List<Room> hotelRooms = roomRepository.findByHotelId(hotelId);
-        List<Long> roomIds = hotelRooms.stream().map(Room::getId).toList();
+    private List<BookingSlot> getBookingSlotsInPeriod(List<Room> hotelRooms, LocalDate startDate, LocalDate endDate) {
+        if (hotelRooms.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        return roomIds.stream()
-                .flatMap(roomId -> bookingSlotRepository.findConflictingSlots(roomId, startDate, endDate).stream())
-                .filter(slot -> "CONFIRMED".equals(slot.getStatus()))
-                .collect(Collectors.toList());
+        // Период статистики включает endDate, поэтому нужны и слоты с заездом в этот день
+        List<Long> roomIds = hotelRooms.stream().map(Room::getId).toList();
+        return bookingSlotRepository.findConfirmedSlotsForRooms(roomIds, startDate, endDate.plusDays(1));
     }
 
-    private Double calculateOccupancyRate(List<Room> rooms, List<BookingSlot> bookingSlots,
-                                          LocalDate startDate, LocalDate endDate) {
-        if (rooms.isEmpty()) return 0.0;
+    private static Double calculateOccupancyRate(int roomCount, OccupancyTimeline timeline) {
+        if (roomCount == 0) return 0.0;
 
-        long totalRoomDays = rooms.size() * ChronoUnit.DAYS.between(startDate, endDate.plusDays(1));
-        long occupiedRoomDays = bookingSlots.stream()
-                .mapToLong(slot -> ChronoUnit.DAYS.between(
-                        slot.getStartDate().isAfter(startDate) ? slot.getStartDate() : startDate,
-                        slot.getEndDate().isBefore(endDate) ? slot.getEndDate().plusDays(1) : endDate.plusDays(1)
-                ))
-                .sum();
-
-        return totalRoomDays > 0 ? (occupiedRoomDays * 100.0) / totalRoomDays : 0.0;
+        long totalRoomDays = (long) roomCount * timeline.days();
+        return (timeline.occupiedRoomDays() * 100.0) / totalRoomDays;
     }
 
-    private Map<LocalDate, Double> calculateDailyOccupancy(List<Room> rooms, List<BookingSlot> bookingSlots,
-                                                           LocalDate startDate, LocalDate endDate) {
+    private Map<LocalDate, Double> calculateDailyOccupancy(int roomCount, OccupancyTimeline timeline) {
         Map<LocalDate, Double> dailyOccupancy = new LinkedHashMap<>();
+        int[] occupiedRooms = timeline.dailyCounts();
 
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            final LocalDate currentDate = date;
-            long occupiedRooms = bookingSlots.stream()
-                    .filter(slot -> !currentDate.isBefore(slot.getStartDate()) && currentDate.isBefore(slot.getEndDate()))
-                    .count();
-
-            double occupancyRate = rooms.isEmpty() ? 0.0 : (occupiedRooms * 100.0) / rooms.size();
-            dailyOccupancy.put(date, Math.round(occupancyRate * 100.0) / 100.0);
+        for (int day = 0; day < occupiedRooms.length; day++) {
+            double occupancyRate = roomCount == 0 ? 0.0 : (occupiedRooms[day] * 100.0) / roomCount;
+            dailyOccupancy.put(timeline.dateAt(day), Math.round(occupancyRate * 100.0) / 100.0);
         }
 
         return dailyOccupancy;
     }
 
-    private Map<String, RoomTypeStatistics> calculateRoomTypeStatistics(List<Room> rooms,
-                                                                        List<BookingSlot> bookingSlots,
-                                                                        LocalDate startDate, LocalDate endDate) {
-        return rooms.stream()
-                .collect(Collectors.groupingBy(
-                        Room::getType,
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                roomList -> {
-                                    RoomTypeStatistics stats = new RoomTypeStatistics();
-                                    stats.setRoomType(roomList.get(0).getType());
-                                    stats.setRoomCount(roomList.size());
-
-                                    List<BookingSlot> typeSlots = bookingSlots.stream()
-                                            .filter(slot -> roomList.stream().anyMatch(room -> room.getId().equals(slot.getRoomId())))
-                                            .collect(Collectors.toList());
-
-                                    stats.setOccupancyRate(calculateOccupancyRate(roomList, typeSlots, startDate, endDate));
-                                    stats.setTotalRevenue(calculateTotalRevenue(typeSlots, roomList));
-                                    stats.setAverageBookings(roomList.stream()
-                                            .mapToInt(Room::getTimesBooked)
-                                            .average()
-                                            .orElse(0.0));
-                                    stats.setRevenuePerRoom(stats.getRoomCount() > 0 ?
-                                            stats.getTotalRevenue() / stats.getRoomCount() : 0.0);
-
-                                    return stats;
-                                }
-                        )
-                ));
-    }
-
-    private Double calculateTotalRevenue(List<BookingSlot> bookingSlots, List<Room> rooms) {
-        return bookingSlots.stream()
-                .mapToDouble(slot -> {
-                    Room room = rooms.stream()
-                            .filter(r -> r.getId().equals(slot.getRoomId()))
-                            .findFirst()
-                            .orElse(null);
-                    if (room != null && room.getPrice() != null) {
-                        long days = ChronoUnit.DAYS.between(slot.getStartDate(), slot.getEndDate());
-                        return room.getPrice() * days;
-                    }
-                    return 0.0;
-                })
-                .sum();
-    }
-
     private Double calculateAverageRevenuePerRoom(Double totalRevenue, int roomCount) {
         return roomCount > 0 ? totalRevenue / roomCount : 0.0;
     }
@@ -215,4 +227,105 @@ public class HotelStatisticsService {
 
         return room.getPrice() != null ? room.getPrice() * room.getTimesBooked() * 2.5 : 0.0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Накопитель статистики отеля: номера индексируются по id и группируются по типу за один проход,
+     * затем загрузка и доход добавляются по слотам или по строкам посуточной сводки.
+     * Доход считается только за ночи внутри периода.
+     */
+    private static final class StatisticsAccumulator {
+
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final Map<Long, Room> roomsById;
+        private final Map<String, RoomTypeAccumulator> roomTypes = new HashMap<>();
+        private final OccupancyTimeline timeline;
+        private int availableRooms;
+        private double totalRevenue;
+
+        private StatisticsAccumulator(List<Room> hotelRooms, LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.roomsById = new HashMap<>(hotelRooms.size() * 2);
+            this.timeline = new OccupancyTimeline(startDate, endDate);
+
+            for (Room room : hotelRooms) {
+                roomsById.put(room.getId(), room);
+                roomTypes.computeIfAbsent(room.getType(), type -> new RoomTypeAccumulator(type, startDate, endDate))
+                        .addRoom(room);
+                if (Boolean.TRUE.equals(room.getAvailable())) {
+                    availableRooms++;
+                }
+            }
+        }
+
+        private void addSlot(BookingSlot slot) {
+            Room room = roomsById.get(slot.getRoomId());
+            if (room == null) {
+                return;
+            }
+
+            LocalDate from = slot.getStartDate().isAfter(startDate) ? slot.getStartDate() : startDate;
+            LocalDate to = slot.getEndDate().isAfter(endDate) ? endDate.plusDays(1) : slot.getEndDate();
+            long nights = Math.max(ChronoUnit.DAYS.between(from, to), 0);
+            double revenue = room.getPrice() != null ? room.getPrice() * nights : 0.0;
+
+            timeline.add(slot.getStartDate(), slot.getEndDate());
+            totalRevenue += revenue;
+            roomTypes.get(room.getType()).addSlot(slot, revenue);
+        }
+
+        private void addRollupRow(HotelDailyOccupancy row) {
+            timeline.addDay(row.getDate(), row.getOccupiedRooms());
+            totalRevenue += row.getRevenue();
+
+            RoomTypeAccumulator typeAccumulator = roomTypes.get(row.getRoomType());
+            if (typeAccumulator != null) {
+                typeAccumulator.addDay(row.getDate(), row.getOccupiedRooms(), row.getRevenue());
+            }
+        }
+    }
+
+    /**
+     * Накопитель статистики по типу номера: заполняется за один проход по номерам и слотам
+     */
+    private static final class RoomTypeAccumulator {
+
+        private final String roomType;
+        private final OccupancyTimeline timeline;
+        private int roomCount;
+        private long timesBooked;
+        private double revenue;
+
+        private RoomTypeAccumulator(String roomType, LocalDate startDate, LocalDate endDate) {
+            this.roomType = roomType;
+            this.timeline = new OccupancyTimeline(startDate, endDate);
+        }
+
+        private void addRoom(Room room) {
+            roomCount++;
+            timesBooked += room.getTimesBooked();
+        }
+
+        private void addSlot(BookingSlot slot, double slotRevenue) {
+            timeline.add(slot.getStartDate(), slot.getEndDate());
+            revenue += slotRevenue;
+        }
+
+        private void addDay(LocalDate date, int occupiedRooms, double dayRevenue) {
+            timeline.addDay(date, occupiedRooms);
+            revenue += dayRevenue;
+        }
+
+        private RoomTypeStatistics toStatistics() {
+            RoomTypeStatistics stats = new RoomTypeStatistics();
+            stats.setRoomType(roomType);
+            stats.setRoomCount(roomCount);
+            stats.setOccupancyRate(calculateOccupancyRate(roomCount, timeline));
+            stats.setTotalRevenue(revenue);
+            stats.setAverageBookings(roomCount > 0 ? (double) timesBooked / roomCount : 0.0);
+            stats.setRevenuePerRoom(roomCount > 0 ? revenue / roomCount : 0.0);
+            return stats;
+        }
+    }
+}
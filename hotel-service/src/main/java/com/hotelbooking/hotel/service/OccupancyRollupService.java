@@ -0,0 +1,266 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.entity.HotelDailyOccupancy;
+import com.hotelbooking.hotel.entity.Room;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import com.hotelbooking.hotel.repository.HotelDailyOccupancyRepository;
+import com.hotelbooking.hotel.repository.HotelRepository;
+import com.hotelbooking.hotel.repository.RoomRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Посуточная сводка загрузки hotel_daily_occupancy (отель, дата, тип номера): количество занятых
+ * номеров и доход за ночь. Изменения пишутся в той же транзакции, что и подтверждение или отмена слота,
+ * доход считается по цене, зафиксированной в слоте. Периодическая перестройка из booking_slots
+ * исправляет возможное расхождение.
+ * <p>
+ * Запись в сводку отеля и перестройка сводки отеля выполняются под блокировкой строки отеля в БД:
+ * перестройка видит либо слот вместе с его изменением сводки, либо ни то, ни другое, поэтому слот
+ * не учитывается дважды. Изменения транзакции накапливаются и пишутся перед коммитом, блокировка
+ * строки отеля держится только до конца коммита.
+ */
+@Slf4j
+@Service
+public class OccupancyRollupService {
+
+    private final HotelDailyOccupancyRepository occupancyRepository;
+    private final HotelRepository hotelRepository;
+    private final RoomRepository roomRepository;
+    private final BookingSlotRepository bookingSlotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private volatile boolean ready;
+
+    public OccupancyRollupService(
+            HotelDailyOccupancyRepository occupancyRepository,
+            HotelRepository hotelRepository,
+            RoomRepository roomRepository,
+            BookingSlotRepository bookingSlotRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${hotel.occupancy-rollup.enabled:true}") boolean enabled) {
+        this.occupancyRepository = occupancyRepository;
+        this.hotelRepository = hotelRepository;
+        this.roomRepository = roomRepository;
+        this.bookingSlotRepository = bookingSlotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+    }
+
+    /**
+     * Сводка построена и может использоваться вместо пересчета по booking_slots
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Строки сводки отеля за период [startDate, endDate] включительно
+     */
+    public List<HotelDailyOccupancy> findHotelRange(Long hotelId, LocalDate startDate, LocalDate endDate) {
+        return occupancyRepository.findByHotelIdAndDateBetween(hotelId, startDate, endDate);
+    }
+
+    /**
+     * Строки сводки всех отелей за период [startDate, endDate] включительно
+     */
+    public List<HotelDailyOccupancy> findRange(LocalDate startDate, LocalDate endDate) {
+        return occupancyRepository.findByDateBetween(startDate, endDate);
+    }
+
+    /**
+     * Слот переведен в CONFIRMED (записывается в текущей транзакции перед коммитом)
+     */
+    public void slotConfirmed(BookingSlot slot) {
+        record(slot, 1);
+    }
+
+    /**
+     * Подтвержденный слот отменен (записывается в текущей транзакции перед коммитом)
+     */
+    public void slotCancelled(BookingSlot slot) {
+        record(slot, -1);
+    }
+
+    /**
+     * Полная перестройка сводки из подтвержденных слотов (при старте и по расписанию).
+     * Каждый отель перестраивается в отдельной транзакции под блокировкой его строки
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.occupancy-rollup.rebuild-cron:0 15 0 * * *}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        int rows = 0;
+        for (Long hotelId : hotelRepository.findAllIds()) {
+            rows += transactionTemplate.execute(status -> rebuildHotel(hotelId));
+        }
+
+        ready = true;
+        log.info("Occupancy rollup rebuilt: {} rows", rows);
+    }
+
+    private int rebuildHotel(Long hotelId) {
+        if (hotelRepository.findByIdForUpdate(hotelId).isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Room> roomsById = roomRepository.findByHotelId(hotelId).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+
+        Map<RollupKey, HotelDailyOccupancy> rollup = new HashMap<>();
+        if (!roomsById.isEmpty()) {
+            for (BookingSlot slot : bookingSlotRepository.findByRoomIdInAndStatus(roomsById.keySet(), "CONFIRMED")) {
+                Room room = roomsById.get(slot.getRoomId());
+                double price = nightlyPrice(slot.getNightlyPrice(), room);
+                for (LocalDate night = slot.getStartDate(); night.isBefore(slot.getEndDate()); night = night.plusDays(1)) {
+                    HotelDailyOccupancy row = rollup.computeIfAbsent(
+                            new RollupKey(hotelId, night, room.getType()),
+                            key -> newRow(key.hotelId(), key.date(), key.roomType()));
+                    addNights(row, 1, price);
+                }
+            }
+        }
+
+        occupancyRepository.deleteByHotelId(hotelId);
+        occupancyRepository.saveAll(rollup.values());
+        return rollup.size();
+    }
+
+    private void record(BookingSlot slot, int sign) {
+        if (!enabled || !slot.getStartDate().isBefore(slot.getEndDate())) {
+            return;
+        }
+
+        SlotDelta delta = new SlotDelta(slot.getRoomId(), slot.getStartDate(), slot.getEndDate(),
+                slot.getNightlyPrice(), sign);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingDeltas().add(delta);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> apply(List.of(delta)));
+        }
+    }
+
+    /**
+     * Изменения сводки текущей транзакции: пишутся одним проходом перед коммитом
+     */
+    @SuppressWarnings("unchecked")
+    private List<SlotDelta> pendingDeltas() {
+        List<SlotDelta> pending = (List<SlotDelta>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        List<SlotDelta> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                apply(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OccupancyRollupService.this);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Применить изменения: отели блокируются по возрастанию id, чтобы транзакции с несколькими
+     * отелями не блокировали друг друга взаимно
+     */
+    private void apply(List<SlotDelta> deltas) {
+        Set<Long> roomIds = deltas.stream().map(SlotDelta::roomId).collect(Collectors.toSet());
+        Map<Long, Room> roomsById = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+
+        Map<Long, Map<RollupKey, double[]>> changesByHotel = new TreeMap<>();
+        for (SlotDelta delta : deltas) {
+            Room room = roomsById.get(delta.roomId());
+            if (room == null || room.getHotel() == null) {
+                continue;
+            }
+            Long hotelId = room.getHotel().getId();
+            double price = nightlyPrice(delta.nightlyPrice(), room);
+            Map<RollupKey, double[]> changes = changesByHotel.computeIfAbsent(hotelId, id -> new HashMap<>());
+            for (LocalDate night = delta.startDate(); night.isBefore(delta.endDate()); night = night.plusDays(1)) {
+                double[] change = changes.computeIfAbsent(new RollupKey(hotelId, night, room.getType()), key -> new double[2]);
+                change[0] += delta.sign();
+                change[1] += delta.sign() * price;
+            }
+        }
+
+        changesByHotel.forEach(this::applyHotel);
+    }
+
+    private void applyHotel(Long hotelId, Map<RollupKey, double[]> changes) {
+        // Блокировка строки отеля до коммита: перестройка сводки отеля ждет эту транзакцию
+        hotelRepository.findByIdForUpdate(hotelId);
+
+        LocalDate from = changes.keySet().stream().map(RollupKey::date).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate to = changes.keySet().stream().map(RollupKey::date).max(Comparator.naturalOrder()).orElseThrow();
+        Map<RollupKey, HotelDailyOccupancy> rows = occupancyRepository.findByHotelIdAndDateBetween(hotelId, from, to)
+                .stream()
+                .collect(Collectors.toMap(row -> new RollupKey(row.getHotelId(), row.getDate(), row.getRoomType()),
+                        Function.identity()));
+
+        List<HotelDailyOccupancy> changed = new ArrayList<>();
+        changes.forEach((key, change) -> {
+            HotelDailyOccupancy row = rows.computeIfAbsent(key, k -> newRow(k.hotelId(), k.date(), k.roomType()));
+            row.setOccupiedRooms(row.getOccupiedRooms() + (int) change[0]);
+            row.setRevenue(row.getRevenue() + change[1]);
+            changed.add(row);
+        });
+        occupancyRepository.saveAll(changed);
+    }
+
+    private static HotelDailyOccupancy newRow(Long hotelId, LocalDate date, String roomType) {
+        HotelDailyOccupancy row = new HotelDailyOccupancy();
+        row.setHotelId(hotelId);
+        row.setDate(date);
+        row.setRoomType(roomType);
+        return row;
+    }
+
+    private static void addNights(HotelDailyOccupancy row, int nights, double price) {
+        row.setOccupiedRooms(row.getOccupiedRooms() + nights);
+        row.setRevenue(row.getRevenue() + nights * price);
+    }
+
+    /**
+     * Цена ночи из слота; для слотов, созданных до появления nightly_price, - текущая цена номера
+     */
+    private static double nightlyPrice(Double slotPrice, Room room) {
+        if (slotPrice != null) {
+            return slotPrice;
+        }
+        return room.getPrice() != null ? room.getPrice() : 0.0;
+    }
+
+    private record RollupKey(Long hotelId, LocalDate date, String roomType) {
+    }
+
+    private record SlotDelta(Long roomId, LocalDate startDate, LocalDate endDate, Double nightlyPrice, int sign) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.hotelbooking.hotel.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Посуточная загрузка за период [startDate, endDate] (обе даты включительно), построенная
+ * разностным массивом: добавление слота стоит O(1), подсчёт по дням - один проход O(days).
+ * Слот занимает ночи [slotStart, slotEnd): день выезда свободен.
+ */
+class OccupancyTimeline {
+
+    private final LocalDate startDate;
+    private final int days;
+    private final int[] delta;
+
+    private int[] dailyCounts;
+
+    OccupancyTimeline(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        this.startDate = startDate;
+        this.days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        this.delta = new int[days + 1];
+    }
+
+    /**
+     * Учесть слот, обрезанный по границам периода
+     */
+    void add(LocalDate slotStart, LocalDate slotEnd) {
+        int from = Math.max(offset(slotStart), 0);
+        int to = Math.min(offset(slotEnd), days);
+        if (from >= to) {
+            return;
+        }
+        delta[from]++;
+        delta[to]--;
+        dailyCounts = null;
+    }
+
+    /**
+     * Учесть занятые номера за один день (для данных из посуточной сводки)
+     */
+    void addDay(LocalDate date, int rooms) {
+        int day = offset(date);
+        if (day < 0 || day >= days || rooms == 0) {
+            return;
+        }
+        delta[day] += rooms;
+        delta[day + 1] -= rooms;
+        dailyCounts = null;
+    }
+
+    /**
+     * Количество занятых номеров на каждый день периода
+     */
+    int[] dailyCounts() {
+        if (dailyCounts == null) {
+            int[] counts = new int[days];
+            int running = 0;
+            for (int i = 0; i < days; i++) {
+                running += delta[i];
+                counts[i] = running;
+            }
+            dailyCounts = counts;
+        }
+        return dailyCounts;
+    }
+
+    /**
+     * Суммарное количество занятых номеро-дней за период
+     */
+    long occupiedRoomDays() {
+        long total = 0;
+        for (int count : dailyCounts()) {
+            total += count;
+        }
+        return total;
+    }
+
+    int days() {
+        return days;
+    }
+
+    LocalDate dateAt(int dayIndex) {
+        return startDate.plusDays(dayIndex);
+    }
+
+    private int offset(LocalDate date) {
+        return (int) Math.max(Math.min(ChronoUnit.DAYS.between(startDate, date), days), -1);
+    }
+}
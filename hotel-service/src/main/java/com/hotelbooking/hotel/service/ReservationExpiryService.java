@@ -0,0 +1,129 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Снятие временных блокировок (слоты RESERVED), не подтвержденных за hold-ttl. Бронирования Booking Service
+ * создают слоты сразу в статусе CONFIRMED и сюда не попадают; снимаются только блокировки двухшагового
+ * сценария (confirm-availability + confirm-booking), брошенные клиентом. Слоты выбираются пачками
+ * по индексу (status, created_at); каждая пачка удаляется одним DELETE в отдельной транзакции под
+ * блокировками своих номеров, после чего номера освобождаются в индексе доступности и посуточном учете.
+ */
+@Slf4j
+@Service
+public class ReservationExpiryService {
+
+    private final BookingSlotRepository bookingSlotRepository;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final RoomNightInventory roomNights;
+    private final RoomLockManager roomLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdTtl;
+    private final int batchSize;
+    private final Counter reclaimedCounter;
+
+    public ReservationExpiryService(
+            BookingSlotRepository bookingSlotRepository,
+            RoomAvailabilityIndex availabilityIndex,
+            RoomNightInventory roomNights,
+            RoomLockManager roomLocks,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${hotel.reservation-expiry.hold-ttl-minutes:10}") long holdTtlMinutes,
+            @Value("${hotel.reservation-expiry.batch-size:200}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.bookingSlotRepository = bookingSlotRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.roomNights = roomNights;
+        this.roomLocks = roomLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdTtl = Duration.ofMinutes(holdTtlMinutes);
+        this.batchSize = batchSize;
+        this.reclaimedCounter = Counter.builder("hotel.reservations.reclaimed")
+                .description("Temporary room holds removed after the hold TTL")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${hotel.reservation-expiry.interval-ms:60000}")
+    public void scheduledCleanup() {
+        try {
+            reclaimExpiredReservations();
+        } catch (Exception e) {
+            log.error("Error cleaning up expired reservations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Удалить все слоты RESERVED старше hold-ttl
+     *
+     * @return количество снятых блокировок
+     */
+    public int reclaimExpiredReservations() {
+        LocalDateTime expiryTime = LocalDateTime.now().minus(holdTtl);
+        int reclaimed = 0;
+
+        while (true) {
+            List<BookingSlot> expired = bookingSlotRepository.findExpiredReservations(
+                    expiryTime, PageRequest.of(0, batchSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+
+            Integer batchReclaimed = transactionTemplate.execute(status -> reclaimBatch(expired, expiryTime));
+            reclaimed += batchReclaimed != null ? batchReclaimed : 0;
+
+            if (expired.size() < batchSize) {
+                break;
+            }
+        }
+
+        reclaimedCounter.increment(reclaimed);
+        if (reclaimed > 0) {
+            log.info("Cleaned up {} expired temporary reservations", reclaimed);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Пока пачка ждала блокировок, часть слотов могла быть подтверждена или снята другим запросом:
+     * удаляются и освобождаются только те, что все еще просрочены
+     */
+    private int reclaimBatch(List<BookingSlot> expired, LocalDateTime expiryTime) {
+        roomLocks.lockAllUntilTransactionEnds(expired.stream()
+                .map(BookingSlot::getRoomId)
+                .collect(Collectors.toSet()));
+
+        Set<Long> stillExpired = new HashSet<>(bookingSlotRepository.findExpiredReservationIds(
+                expired.stream().map(BookingSlot::getId).toList(), expiryTime));
+        if (stillExpired.isEmpty()) {
+            return 0;
+        }
+
+        List<BookingSlot> reclaimed = expired.stream()
+                .filter(slot -> stillExpired.contains(slot.getId()))
+                .toList();
+        bookingSlotRepository.deleteExpiredReservations(stillExpired, expiryTime);
+        reclaimed.forEach(slot -> availabilityIndex.release(slot.getRoomId(), slot.getStartDate(), slot.getEndDate()));
+        roomNights.release(reclaimed);
+        return reclaimed.size();
+    }
+}
@@ -0,0 +1,211 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory индекс занятости номеров: для каждого номера хранится битовая маска ночей
+ * на скользящем горизонте [baseDate, baseDate + horizonDays). Бит i установлен, если
+ * ночь baseDate + i занята слотом в статусе RESERVED или CONFIRMED.
+ * <p>
+ * Изменения, закоммиченные во время перестройки, записываются в журнал и повторяются на новом
+ * снимке перед подменой: иначе они попали бы только в старый снимок и потерялись.
+ */
+@Slf4j
+@Component
+public class RoomAvailabilityIndex {
+
+    private final BookingSlotRepository bookingSlotRepository;
+    private final boolean enabled;
+    private final int horizonDays;
+
+    private final Object journalLock = new Object();
+
+    private volatile Snapshot snapshot;
+    private List<Mark> rebuildJournal;
+
+    public RoomAvailabilityIndex(
+            BookingSlotRepository bookingSlotRepository,
+            @Value("${hotel.availability-index.enabled:true}") boolean enabled,
+            @Value("${hotel.availability-index.horizon-days:400}") int horizonDays) {
+        this.bookingSlotRepository = bookingSlotRepository;
+        this.enabled = enabled;
+        this.horizonDays = horizonDays;
+    }
+
+    /**
+     * Полная перестройка индекса из booking_slots (при старте и ежедневно для сдвига горизонта)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.availability-index.rebuild-cron:0 5 0 * * *}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (journalLock) {
+            rebuildJournal = new ArrayList<>();
+        }
+
+        LocalDate baseDate = LocalDate.now();
+        Snapshot fresh = new Snapshot(baseDate, horizonDays);
+        List<BookingSlot> activeSlots;
+        try {
+            activeSlots = bookingSlotRepository.findActiveSlotsEndingAfter(baseDate);
+            for (BookingSlot slot : activeSlots) {
+                fresh.mark(slot.getRoomId(), slot.getStartDate(), slot.getEndDate(), true);
+            }
+        } catch (RuntimeException e) {
+            synchronized (journalLock) {
+                rebuildJournal = null;
+            }
+            throw e;
+        }
+
+        int replayed;
+        synchronized (journalLock) {
+            // Повтор в порядке коммитов: для ночей, уже прочитанных из БД, он идемпотентен
+            for (Mark mark : rebuildJournal) {
+                fresh.mark(mark.roomId(), mark.startDate(), mark.endDate(), mark.occupied());
+            }
+            replayed = rebuildJournal.size();
+            rebuildJournal = null;
+            snapshot = fresh;
+        }
+        log.info("Availability index rebuilt: {} active slots, {} replayed changes, {} rooms, horizon {} - {}",
+                activeSlots.size(), replayed, fresh.rooms.size(), baseDate, baseDate.plusDays(horizonDays));
+    }
+
+    /**
+     * Покрывает ли индекс указанный период (иначе нужен запрос в БД)
+     */
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        return current != null && current.covers(startDate, endDate);
+    }
+
+    /**
+     * Свободен ли номер на все ночи периода [startDate, endDate)
+     */
+    public boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        if (current == null || !current.covers(startDate, endDate)) {
+            throw new IllegalStateException("Availability index does not cover " + startDate + " - " + endDate);
+        }
+        return current.isFree(roomId, startDate, endDate);
+    }
+
+    /**
+     * Отметить ночи периода как занятые (после коммита текущей транзакции)
+     */
+    public void occupy(Long roomId, LocalDate startDate, LocalDate endDate) {
+        afterCommit(() -> mark(roomId, startDate, endDate, true));
+    }
+
+    /**
+     * Освободить ночи периода (после коммита текущей транзакции)
+     */
+    public void release(Long roomId, LocalDate startDate, LocalDate endDate) {
+        afterCommit(() -> mark(roomId, startDate, endDate, false));
+    }
+
+    private void mark(Long roomId, LocalDate startDate, LocalDate endDate, boolean occupied) {
+        if (roomId == null || startDate == null || endDate == null) {
+            return;
+        }
+        Snapshot current;
+        synchronized (journalLock) {
+            current = snapshot;
+            if (rebuildJournal != null) {
+                rebuildJournal.add(new Mark(roomId, startDate, endDate, occupied));
+            }
+        }
+        if (current != null) {
+            current.mark(roomId, startDate, endDate, occupied);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Изменение занятости, закоммиченное во время перестройки
+     */
+    private record Mark(Long roomId, LocalDate startDate, LocalDate endDate, boolean occupied) {
+    }
+
+    /**
+     * Неизменяемый горизонт и битовые маски номеров. Маска номера меняется под его монитором;
+     * перестройка индекса подменяет снимок целиком.
+     */
+    private static final class Snapshot {
+
+        private final long baseEpochDay;
+        private final int horizonDays;
+        private final Map<Long, BitSet> rooms = new ConcurrentHashMap<>();
+
+        private Snapshot(LocalDate baseDate, int horizonDays) {
+            this.baseEpochDay = baseDate.toEpochDay();
+            this.horizonDays = horizonDays;
+        }
+
+        private boolean covers(LocalDate startDate, LocalDate endDate) {
+            return startDate.toEpochDay() >= baseEpochDay
+                    && endDate.toEpochDay() - baseEpochDay <= horizonDays;
+        }
+
+        private boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+            BitSet nights = rooms.get(roomId);
+            if (nights == null) {
+                return true;
+            }
+            int from = offset(startDate);
+            int to = offset(endDate);
+            synchronized (nights) {
+                int firstOccupied = nights.nextSetBit(from);
+                return firstOccupied < 0 || firstOccupied >= to;
+            }
+        }
+
+        private void mark(Long roomId, LocalDate startDate, LocalDate endDate, boolean occupied) {
+            int from = Math.max(offset(startDate), 0);
+            int to = Math.min(offset(endDate), horizonDays);
+            if (from >= to) {
+                return;
+            }
+            BitSet nights = rooms.computeIfAbsent(roomId, id -> new BitSet(horizonDays));
+            synchronized (nights) {
+                nights.set(from, to, occupied);
+            }
+        }
+
+        private int offset(LocalDate date) {
+            return (int) (date.toEpochDay() - baseEpochDay);
+        }
+    }
+}
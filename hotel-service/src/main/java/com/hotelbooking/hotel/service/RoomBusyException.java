@@ -0,0 +1,12 @@
+package com.hotelbooking.hotel.service;
+
+/**
+ * Номер временно занят другой операцией (не дождались блокировки). Это не отказ в бронировании:
+ * запрос можно повторить
+ */
+public class RoomBusyException extends RuntimeException {
+
+    public RoomBusyException(String message) {
+        super(message);
+    }
+}
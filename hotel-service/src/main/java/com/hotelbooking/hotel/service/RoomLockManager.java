@@ -0,0 +1,110 @@
+package com.hotelbooking.hotel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Блокировки записи по номерам: roomId отображается на один из фиксированного набора ReentrantLock.
+ * Изменения одного номера выполняются по очереди, разные номера (почти всегда разные полосы)
+ * обрабатываются параллельно. Блокировка держится до завершения текущей транзакции.
+ */
+@Slf4j
+@Component
+public class RoomLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    public RoomLockManager(
+            @Value("${hotel.room-locks.stripes:256}") int stripeCount,
+            @Value("${hotel.room-locks.timeout-ms:2000}") long timeoutMs,
+            MeterRegistry meterRegistry) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+        this.waitTimer = Timer.builder("hotel.room.lock.wait")
+                .description("Time spent waiting for a room write lock")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("hotel.room.lock.timeouts")
+                .description("Room write lock acquisitions that timed out")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Захватить блокировку номера и отпустить ее после коммита или отката текущей транзакции
+     */
+    public void lockUntilTransactionEnds(Long roomId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Room lock requires an active transaction");
+        }
+
+        unlockAfterCompletion(acquire(stripeIndex(roomId), "room " + roomId));
+    }
+
+    /**
+     * Захватить блокировки нескольких номеров до завершения транзакции. Полосы берутся по возрастанию
+     * индекса и по одному разу, поэтому две групповые операции не могут заблокировать друг друга
+     */
+    public void lockAllUntilTransactionEnds(Collection<Long> roomIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Room lock requires an active transaction");
+        }
+
+        int[] stripeIndexes = roomIds.stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+        for (int stripeIndex : stripeIndexes) {
+            unlockAfterCompletion(acquire(stripeIndex, roomIds.size() + " rooms"));
+        }
+    }
+
+    int stripeIndex(Long roomId) {
+        int hash = roomId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    private ReentrantLock acquire(int stripeIndex, String target) {
+        ReentrantLock lock = stripes[stripeIndex];
+        long startedAt = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RoomBusyException("Interrupted while waiting for lock on " + target);
+        } finally {
+            waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            timeoutCounter.increment();
+            log.warn("Timed out after {} ms waiting for lock on {}", timeoutMs, target);
+            throw new RoomBusyException("Timed out waiting for lock on " + target + ", please retry");
+        }
+        return lock;
+    }
+
+    private static void unlockAfterCompletion(ReentrantLock lock) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.entity.RoomNight;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import com.hotelbooking.hotel.repository.RoomNightRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Посуточный учет занятости (hotel.inventory.mode=nights): каждая занятая ночь - строка room_nights
+ * с уникальным ключом (room_id, night). Проверка пересечения - поиск по индексу, резервирование -
+ * вставка, которая падает на уже занятой ночи. booking_slots остается источником статусов бронирований.
+ */
+@Slf4j
+@Service
+public class RoomNightInventory {
+
+    static final String MODE_SLOTS = "slots";
+    static final String MODE_NIGHTS = "nights";
+
+    private static final List<String> ACTIVE_STATUSES = List.of("RESERVED", "CONFIRMED");
+
+    private final RoomNightRepository roomNightRepository;
+    private final BookingSlotRepository bookingSlotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private volatile boolean ready;
+
+    public RoomNightInventory(
+            RoomNightRepository roomNightRepository,
+            BookingSlotRepository bookingSlotRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${hotel.inventory.mode:slots}") String mode) {
+        if (!MODE_SLOTS.equals(mode) && !MODE_NIGHTS.equals(mode)) {
+            throw new IllegalArgumentException("Unknown inventory mode: " + mode);
+        }
+        this.roomNightRepository = roomNightRepository;
+        this.bookingSlotRepository = bookingSlotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = MODE_NIGHTS.equals(mode);
+    }
+
+    /**
+     * Ночи перенесены из booking_slots и проверки доступности можно выполнять по room_nights
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Есть ли у номера занятые ночи в периоде [startDate, endDate)
+     */
+    public boolean hasConflict(Long roomId, LocalDate startDate, LocalDate endDate) {
+        return roomNightRepository.existsByRoomIdAndNightBetween(roomId, startDate, endDate.minusDays(1));
+    }
+
+    /**
+     * Номера из списка, у которых есть занятые ночи в периоде [startDate, endDate)
+     */
+    public Set<Long> findOccupiedRoomIds(Collection<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        return roomNightRepository.findOccupiedRoomIds(roomIds, startDate, endDate.minusDays(1));
+    }
+
+    /**
+     * Занять ночи слота; при уже занятой ночи вставка падает на уникальном ключе
+     */
+    public void claim(BookingSlot slot) {
+        if (!enabled) {
+            return;
+        }
+        roomNightRepository.saveAll(nightsOf(slot));
+        roomNightRepository.flush();
+    }
+
+    /**
+     * Освободить ночи удаленных или отмененных слотов
+     */
+    public void release(Collection<BookingSlot> slots) {
+        if (!enabled || slots.isEmpty()) {
+            return;
+        }
+        roomNightRepository.deleteBySlotIds(slots.stream().map(BookingSlot::getId).toList());
+    }
+
+    /**
+     * Перенос активных слотов из booking_slots: ночи создаются только для слотов, у которых их еще нет
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void migrate() {
+        if (!enabled) {
+            return;
+        }
+
+        int migrated = transactionTemplate.execute(status -> {
+            Set<Long> claimedSlotIds = roomNightRepository.findClaimedSlotIds();
+            List<RoomNight> nights = new ArrayList<>();
+            int slots = 0;
+            for (BookingSlot slot : bookingSlotRepository.findByStatusIn(ACTIVE_STATUSES)) {
+                if (!claimedSlotIds.contains(slot.getId())) {
+                    nights.addAll(nightsOf(slot));
+                    slots++;
+                }
+            }
+            roomNightRepository.saveAll(nights);
+            return slots;
+        });
+
+        ready = true;
+        log.info("Room night inventory ready: migrated {} booking slots", migrated);
+    }
+
+    private static List<RoomNight> nightsOf(BookingSlot slot) {
+        List<RoomNight> nights = new ArrayList<>();
+        for (LocalDate night = slot.getStartDate(); night.isBefore(slot.getEndDate()); night = night.plusDays(1)) {
+            RoomNight roomNight = new RoomNight();
+            roomNight.setRoomId(slot.getRoomId());
+            roomNight.setNight(night);
+            roomNight.setSlotId(slot.getId());
+            nights.add(roomNight);
+        }
+        return nights;
+    }
+}
@@ -1,19 +1,35 @@
 package com.hotelbooking.hotel.service;
 
+import com.hotelbooking.hotel.dto.BatchAvailabilityRequest;
 import com.hotelbooking.hotel.entity.BookingSlot;
 import com.hotelbooking.hotel.entity.Room;
 import com.hotelbooking.hotel.repository.BookingSlotRepository;
 import com.hotelbooking.hotel.repository.RoomRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -22,6 +38,17 @@ public class RoomService {
 
     private final RoomRepository roomRepository;
     private final BookingSlotRepository bookingSlotRepository;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final OccupancyRollupService occupancyRollup;
+    private final RoomLockManager roomLocks;
+    private final RoomNightInventory roomNights;
+
+    private static final int MAX_BATCH_ROOMS = 500;
+
+    private static final Sort LEAST_BOOKED_FIRST = Sort.by("timesBooked", "id");
+    private static final Comparator<Room> LEAST_BOOKED_ORDER = Comparator
+            .comparingInt((Room room) -> room.getTimesBooked() != null ? room.getTimesBooked() : 0)
+            .thenComparing(Room::getId, Comparator.nullsLast(Comparator.naturalOrder()));
 
     /**
      * Проверка доступности номера на конкретные даты
@@ -35,7 +62,7 @@ public class RoomService {
             return false;
         }
 
-        boolean hasConflict = bookingSlotRepository.hasDateConflict(roomId, startDate, endDate);
+        boolean hasConflict = hasDateConflict(roomId, startDate, endDate);
 
         log.debug("Room {} availability check: {} (has conflict: {})",
                 roomId, !hasConflict, hasConflict);
@@ -43,49 +70,222 @@ public class RoomService {
     }
 
     /**
-     * Подтверждение доступности с временной блокировкой
+     * Проверка доступности нескольких номеров: номер доступен, если свободен во всех периодах.
+     * Номера загружаются одним запросом, занятые номера - одним запросом IN (...) на период
+     * (или по индексу занятости, если он покрывает период)
      */
-    @Transactional
-    public boolean confirmAvailability(Long roomId, LocalDate startDate, LocalDate endDate, Long bookingId) {
-        try {
-            validateDates(startDate, endDate);
-            log.info("Confirming availability for room {} from {} to {} (booking: {})",
-                    roomId, startDate, endDate, bookingId);
-
-            Optional<Room> roomOpt = roomRepository.findById(roomId);
-            if (roomOpt.isEmpty() || !roomOpt.get().getAvailable()) {
-                log.warn("Room {} is not available", roomId);
-                return false;
+    public Map<Long, Boolean> checkAvailability(List<Long> roomIds, List<BatchAvailabilityRequest.DateRange> ranges) {
+        if (roomIds == null || roomIds.isEmpty()) {
+            throw new IllegalArgumentException("Room ids are required");
+        }
+        if (roomIds.size() > MAX_BATCH_ROOMS) {
+            throw new IllegalArgumentException("Cannot check more than " + MAX_BATCH_ROOMS + " rooms at once");
+        }
+        if (ranges == null || ranges.isEmpty()) {
+            throw new IllegalArgumentException("At least one date range is required");
+        }
+        ranges.forEach(range -> validateDates(range.getStartDate(), range.getEndDate()));
+
+        Set<Long> candidates = new HashSet<>();
+        for (Room room : roomRepository.findAllById(new HashSet<>(roomIds))) {
+            if (Boolean.TRUE.equals(room.getAvailable())) {
+                candidates.add(room.getId());
             }
+        }
 
-            if (bookingSlotRepository.hasDateConflict(roomId, startDate, endDate)) {
-                List<BookingSlot> conflicts = bookingSlotRepository.findConflictingSlots(roomId, startDate, endDate);
-                log.warn("Room {} has date conflict for period {} - {}. Conflicts: {}",
-                        roomId, startDate, endDate, conflicts.size());
-                return false;
+        for (BatchAvailabilityRequest.DateRange range : ranges) {
+            if (candidates.isEmpty()) {
+                break;
             }
+            candidates.removeAll(findOccupiedRoomIds(candidates, range.getStartDate(), range.getEndDate()));
+        }
 
-            BookingSlot tempSlot = new BookingSlot();
-            tempSlot.setRoomId(roomId);
-            tempSlot.setStartDate(startDate);
-            tempSlot.setEndDate(endDate);
-            tempSlot.setBookingId(bookingId);
-            tempSlot.setStatus("RESERVED");
+        Map<Long, Boolean> availability = new LinkedHashMap<>();
+        for (Long roomId : roomIds) {
+            availability.put(roomId, candidates.contains(roomId));
+        }
 
-            bookingSlotRepository.save(tempSlot);
+        log.debug("Batch availability check: {} of {} rooms available for {} date ranges",
+                candidates.size(), availability.size(), ranges.size());
+        return availability;
+    }
 
-            Room room = roomOpt.get();
-            room.setTimesBooked(room.getTimesBooked() != null ? room.getTimesBooked() + 1 : 1);
-            roomRepository.save(room);
+    /**
+     * Подтверждение доступности и бронирование номера (меняет timesBooked, поэтому сбрасывает кэш номера).
+     * Слот сразу создается в статусе CONFIRMED: Booking Service подтверждает бронирование по успешному ответу,
+     * и отдельного шага подтверждения, который мог бы не дойти до снятия блокировки по таймауту, нет.
+     * Номер блокируется (в памяти и строкой в БД) на время проверки конфликтов и вставки слота, поэтому
+     * параллельные запросы на один номер выполняются по очереди, а запросы на разные номера не мешают друг другу.
+     * false возвращается только если номер недоступен или занят на эти даты. Таймаут блокировки (RoomBusyException)
+     * и ошибки БД пробрасываются и откатывают транзакцию: вызывающий может повторить запрос.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "rooms", key = "#roomId"),
+            @CacheEvict(cacheNames = "hotelRooms", allEntries = true)})
+    public boolean confirmAvailability(Long roomId, LocalDate startDate, LocalDate endDate, Long bookingId) {
+        validateDates(startDate, endDate);
+        log.info("Confirming availability for room {} from {} to {} (booking: {})",
+                roomId, startDate, endDate, bookingId);
+        roomLocks.lockUntilTransactionEnds(roomId);
 
-            log.info("Room {} availability confirmed and temporarily reserved. Times booked: {}",
-                    roomId, room.getTimesBooked());
-            return true;
+        Optional<Room> roomOpt = roomRepository.findByIdForUpdate(roomId);
+        if (roomOpt.isEmpty() || !roomOpt.get().getAvailable()) {
+            log.warn("Room {} is not available", roomId);
+            return false;
+        }
 
-        } catch (Exception e) {
-            log.error("Error confirming availability for room {}: {}", roomId, e.getMessage());
+        if (hasDateConflict(roomId, startDate, endDate)) {
+            List<BookingSlot> conflicts = bookingSlotRepository.findConflictingSlots(roomId, startDate, endDate);
+            log.warn("Room {} has date conflict for period {} - {}. Conflicts: {}",
+                    roomId, startDate, endDate, conflicts.size());
             return false;
         }
+
+        BookingSlot slot = new BookingSlot();
+        slot.setRoomId(roomId);
+        slot.setStartDate(startDate);
+        slot.setEndDate(endDate);
+        slot.setBookingId(bookingId);
+        slot.setNightlyPrice(roomOpt.get().getPrice());
+        slot.setStatus("CONFIRMED");
+
+        roomNights.claim(bookingSlotRepository.save(slot));
+        availabilityIndex.occupy(roomId, startDate, endDate);
+        occupancyRollup.slotConfirmed(slot);
+
+        Room room = roomOpt.get();
+        room.setTimesBooked(room.getTimesBooked() != null ? room.getTimesBooked() + 1 : 1);
+        roomRepository.save(room);
+
+        log.info("Room {} availability confirmed and booked. Times booked: {}",
+                roomId, room.getTimesBooked());
+        return true;
+    }
+
+    /**
+     * Групповое резервирование номеров на один период в одной транзакции по принципу "все или ничего":
+     * сначала блокируются и проверяются все номера, слоты (сразу CONFIRMED) создаются, только если свободны все.
+     * Возвращает номера, которые зарезервировать нельзя (пустой список - резервирование выполнено)
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "rooms", allEntries = true),
+            @CacheEvict(cacheNames = "hotelRooms", allEntries = true)})
+    public List<Long> reserveRooms(LocalDate startDate, LocalDate endDate, Map<Long, Long> bookingIdsByRoom) {
+        validateDates(startDate, endDate);
+        if (bookingIdsByRoom == null || bookingIdsByRoom.isEmpty()) {
+            throw new IllegalArgumentException("At least one room is required");
+        }
+        if (bookingIdsByRoom.size() > MAX_BATCH_ROOMS) {
+            throw new IllegalArgumentException("Cannot reserve more than " + MAX_BATCH_ROOMS + " rooms at once");
+        }
+
+        log.info("Reserving {} rooms from {} to {}", bookingIdsByRoom.size(), startDate, endDate);
+        roomLocks.lockAllUntilTransactionEnds(bookingIdsByRoom.keySet());
+
+        List<Room> rooms = roomRepository.findAllByIdForUpdate(bookingIdsByRoom.keySet()).stream()
+                .filter(room -> Boolean.TRUE.equals(room.getAvailable()))
+                .toList();
+        Set<Long> freeRoomIds = rooms.stream().map(Room::getId).collect(Collectors.toCollection(HashSet::new));
+        freeRoomIds.removeAll(findConflictingRoomIds(freeRoomIds, startDate, endDate));
+
+        List<Long> unavailable = bookingIdsByRoom.keySet().stream()
+                .filter(roomId -> !freeRoomIds.contains(roomId))
+                .sorted()
+                .toList();
+        if (!unavailable.isEmpty()) {
+            log.warn("Group reservation from {} to {} rejected, rooms not available: {}", startDate, endDate, unavailable);
+            return unavailable;
+        }
+
+        for (Room room : rooms) {
+            BookingSlot slot = new BookingSlot();
+            slot.setRoomId(room.getId());
+            slot.setStartDate(startDate);
+            slot.setEndDate(endDate);
+            slot.setBookingId(bookingIdsByRoom.get(room.getId()));
+            slot.setNightlyPrice(room.getPrice());
+            slot.setStatus("CONFIRMED");
+
+            roomNights.claim(bookingSlotRepository.save(slot));
+            availabilityIndex.occupy(room.getId(), startDate, endDate);
+            occupancyRollup.slotConfirmed(slot);
+            room.setTimesBooked(room.getTimesBooked() != null ? room.getTimesBooked() + 1 : 1);
+        }
+        roomRepository.saveAll(rooms);
+
+        log.info("Reserved {} rooms from {} to {}", rooms.size(), startDate, endDate);
+        return List.of();
+    }
+
+    /**
+     * Групповое освобождение (компенсация неудачного бронирования в Booking Service): удаляет активные слоты
+     * бронирований, и временные, и подтвержденные вызовом confirm-availability-with-dates / reserve-batch
+     */
+    @Transactional
+    public void releaseBookings(Collection<Long> bookingIds) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            return;
+        }
+
+        Set<Long> roomIds = bookingSlotRepository.findByBookingIdIn(bookingIds).stream()
+                .map(BookingSlot::getRoomId)
+                .collect(Collectors.toSet());
+        if (roomIds.isEmpty()) {
+            log.info("No booking slots to release for bookings {}", bookingIds);
+            return;
+        }
+        roomLocks.lockAllUntilTransactionEnds(roomIds);
+
+        List<BookingSlot> active = bookingSlotRepository.findByBookingIdIn(bookingIds).stream()
+                .filter(slot -> !"CANCELLED".equals(slot.getStatus()))
+                .toList();
+        bookingSlotRepository.deleteAll(active);
+        for (BookingSlot slot : active) {
+            if ("CONFIRMED".equals(slot.getStatus())) {
+                occupancyRollup.slotCancelled(slot);
+            }
+            availabilityIndex.release(slot.getRoomId(), slot.getStartDate(), slot.getEndDate());
+        }
+        roomNights.release(active);
+
+        log.info("Released {} slots for {} bookings", active.size(), bookingIds.size());
+    }
+
+    /**
+     * Групповая отмена бронирований: активные слоты переводятся в CANCELLED, номера освобождаются.
+     * Повторный вызов для тех же бронирований ничего не меняет
+     */
+    @Transactional
+    public void cancelBookings(Collection<Long> bookingIds) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            return;
+        }
+
+        Set<Long> roomIds = bookingSlotRepository.findByBookingIdIn(bookingIds).stream()
+                .map(BookingSlot::getRoomId)
+                .collect(Collectors.toSet());
+        if (roomIds.isEmpty()) {
+            log.info("No booking slots to cancel for bookings {}", bookingIds);
+            return;
+        }
+        roomLocks.lockAllUntilTransactionEnds(roomIds);
+
+        List<BookingSlot> active = bookingSlotRepository.findByBookingIdIn(bookingIds).stream()
+                .filter(slot -> !"CANCELLED".equals(slot.getStatus()))
+                .toList();
+        for (BookingSlot slot : active) {
+            if ("CONFIRMED".equals(slot.getStatus())) {
+                occupancyRollup.slotCancelled(slot);
+            }
+            slot.setStatus("CANCELLED");
+            availabilityIndex.release(slot.getRoomId(), slot.getStartDate(), slot.getEndDate());
+        }
+        bookingSlotRepository.saveAll(active);
+        roomNights.release(active);
+
+        log.info("Cancelled {} booking slots for {} bookings", active.size(), bookingIds.size());
     }
 
     /**
@@ -95,17 +295,21 @@ public class RoomService {
     public void releaseRoom(Long roomId, Long bookingId) {
         try {
             log.info("Releasing room {} for booking {}", roomId, bookingId);
+            roomLocks.lockUntilTransactionEnds(roomId);
 
             List<BookingSlot> slots = bookingSlotRepository.findByBookingId(bookingId);
-            int releasedCount = 0;
+            List<BookingSlot> released = new ArrayList<>();
 
             for (BookingSlot slot : slots) {
                 if ("RESERVED".equals(slot.getStatus())) {
                     bookingSlotRepository.delete(slot);
-                    releasedCount++;
+                    availabilityIndex.release(slot.getRoomId(), slot.getStartDate(), slot.getEndDate());
+                    released.add(slot);
                     log.debug("Removed temporary slot {} for room {}", slot.getId(), roomId);
                 }
             }
+            roomNights.release(released);
+            int releasedCount = released.size();
 
             log.info("Room {} released from temporary reservation for booking {}. Released {} slots",
                     roomId, bookingId, releasedCount);
@@ -121,6 +325,7 @@ public class RoomService {
     @Transactional
     public void confirmBooking(Long roomId, Long bookingId) {
         try {
+            roomLocks.lockUntilTransactionEnds(roomId);
             List<BookingSlot> slots = bookingSlotRepository.findByBookingId(bookingId);
             int confirmedCount = 0;
 
@@ -128,6 +333,8 @@ public class RoomService {
                 if ("RESERVED".equals(slot.getStatus())) {
                     slot.setStatus("CONFIRMED");
                     bookingSlotRepository.save(slot);
+                    availabilityIndex.occupy(slot.getRoomId(), slot.getStartDate(), slot.getEndDate());
+                    occupancyRollup.slotConfirmed(slot);
                     confirmedCount++;
                     log.info("Booking slot {} confirmed for room {}", slot.getId(), roomId);
                 }
@@ -148,15 +355,27 @@ public class RoomService {
     @Transactional
     public void cancelBooking(Long roomId, Long bookingId) {
         try {
+            roomLocks.lockUntilTransactionEnds(roomId);
             List<BookingSlot> slots = bookingSlotRepository.findByBookingId(bookingId);
+            List<BookingSlot> freed = new ArrayList<>();
             int cancelledCount = 0;
 
             for (BookingSlot slot : slots) {
+                boolean wasActive = !"CANCELLED".equals(slot.getStatus());
+                boolean wasConfirmed = "CONFIRMED".equals(slot.getStatus());
                 slot.setStatus("CANCELLED");
                 bookingSlotRepository.save(slot);
+                if (wasActive) {
+                    availabilityIndex.release(slot.getRoomId(), slot.getStartDate(), slot.getEndDate());
+                    freed.add(slot);
+                }
+                if (wasConfirmed) {
+                    occupancyRollup.slotCancelled(slot);
+                }
                 cancelledCount++;
                 log.debug("Cancelled booking slot {} for room {}", slot.getId(), roomId);
             }
+            roomNights.release(freed);
 
             log.info("Cancelled {} booking slots for room {} (booking: {})",
                     cancelledCount, roomId, bookingId);
@@ -172,11 +391,20 @@ public class RoomService {
     public List<Room> findAvailableRooms(LocalDate startDate, LocalDate endDate) {
         validateDates(startDate, endDate);
 
-        List<Room> allAvailableRooms = roomRepository.findByAvailableTrue();
+        if (availabilityIndex.covers(startDate, endDate)) {
+            return findAvailableRoomsInIndex(startDate, endDate);
+        }
 
-        return allAvailableRooms.stream()
-                .filter(room -> !bookingSlotRepository.hasDateConflict(room.getId(), startDate, endDate))
-                .toList();
+        return roomRepository.findAvailableRoomsForDates(null, startDate, endDate, Sort.unsorted());
+    }
+
+    /**
+     * Постраничный поиск доступных номеров на даты (одним запросом NOT EXISTS, опционально по отелю)
+     */
+    public Page<Room> findAvailableRooms(Long hotelId, LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        validateDates(startDate, endDate);
+
+        return roomRepository.findAvailableRoomsForDates(hotelId, startDate, endDate, pageable);
     }
 
     /**
@@ -185,34 +413,54 @@ public class RoomService {
     public List<Room> findRecommendedRooms(LocalDate startDate, LocalDate endDate) {
         validateDates(startDate, endDate);
 
-        List<Room> availableRooms = findAvailableRooms(startDate, endDate);
+        if (availabilityIndex.covers(startDate, endDate)) {
+            return findAvailableRoomsInIndex(startDate, endDate).stream()
+                    .sorted(LEAST_BOOKED_ORDER)
+                    .toList();
+        }
+
+        return roomRepository.findAvailableRoomsForDates(null, startDate, endDate, LEAST_BOOKED_FIRST);
+    }
 
-        return availableRooms.stream()
-                .sorted((r1, r2) -> {
-                    int booked1 = r1.getTimesBooked() != null ? r1.getTimesBooked() : 0;
-                    int booked2 = r2.getTimesBooked() != null ? r2.getTimesBooked() : 0;
-                    return Integer.compare(booked1, booked2);
-                })
+    private List<Room> findAvailableRoomsInIndex(LocalDate startDate, LocalDate endDate) {
+        return roomRepository.findByAvailableTrue().stream()
+                .filter(room -> availabilityIndex.isFree(room.getId(), startDate, endDate))
                 .toList();
     }
 
     /**
-     * Очистка устаревших временных бронирований (выполняется по расписанию)
+     * Пересечение с активными слотами: по занятым ночам, если посуточный учет включен, иначе по диапазонам
      */
-    @Scheduled(fixedRate = 300000)
-    @Transactional
-    public void cleanupExpiredReservations() {
-        try {
-            LocalDateTime expiryTime = LocalDateTime.now().minusMinutes(10); // 10 минут назад
-            List<BookingSlot> expiredSlots = bookingSlotRepository.findExpiredReservations(null, expiryTime);
+    private boolean hasDateConflict(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (roomNights.isReady()) {
+            return roomNights.hasConflict(roomId, startDate, endDate);
+        }
+        return bookingSlotRepository.hasDateConflict(roomId, startDate, endDate);
+    }
 
-            if (!expiredSlots.isEmpty()) {
-                bookingSlotRepository.deleteAll(expiredSlots);
-                log.info("Cleaned up {} expired temporary reservations", expiredSlots.size());
-            }
-        } catch (Exception e) {
-            log.error("Error cleaning up expired reservations: {}", e.getMessage());
+    /**
+     * Номера из набора, занятые в периоде: по индексу, по занятым ночам или одним запросом к booking_slots
+     */
+    private Set<Long> findOccupiedRoomIds(Set<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        if (availabilityIndex.covers(startDate, endDate)) {
+            return roomIds.stream()
+                    .filter(roomId -> !availabilityIndex.isFree(roomId, startDate, endDate))
+                    .collect(Collectors.toSet());
+        }
+        return findConflictingRoomIds(roomIds, startDate, endDate);
+    }
+
+    /**
+     * Номера из набора с активными слотами в периоде - всегда по БД (для записи)
+     */
+    private Set<Long> findConflictingRoomIds(Set<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        if (roomIds.isEmpty()) {
+            return Set.of();
+        }
+        if (roomNights.isReady()) {
+            return roomNights.findOccupiedRoomIds(roomIds, startDate, endDate);
         }
+        return bookingSlotRepository.findConflictingRoomIds(roomIds, startDate, endDate);
     }
 
     /**
@@ -244,7 +492,7 @@ public class RoomService {
 
         log.info("Finding best available room for dates {} to {}", startDate, endDate);
 
-        List<Room> recommendedRooms = findRecommendedRooms(startDate, endDate);
+        List<Room> recommendedRooms = findTopAvailableRooms(startDate, endDate, 1);
 
         if (recommendedRooms.isEmpty()) {
             log.warn("No available rooms found for dates {} to {}", startDate, endDate);
@@ -259,18 +507,32 @@ public class RoomService {
     }
 
     /**
-     * Найти несколько лучших вариантов для выбора
+     * Найти несколько лучших вариантов для выбора: ограниченная куча по индексу занятости
+     * или ORDER BY times_booked с LIMIT в БД, без сортировки всего списка доступных номеров
      */
     public List<Room> findTopAvailableRooms(LocalDate startDate, LocalDate endDate, int limit) {
         validateDates(startDate, endDate);
 
-        List<Room> recommendedRooms = findRecommendedRooms(startDate, endDate);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
 
-        if (recommendedRooms.size() > limit) {
-            return recommendedRooms.subList(0, limit);
+        if (availabilityIndex.covers(startDate, endDate)) {
+            // Без предварительного размера: куча растет не больше чем до limit + 1 элементов
+            PriorityQueue<Room> top = new PriorityQueue<>(LEAST_BOOKED_ORDER.reversed());
+            for (Room room : roomRepository.findByAvailableTrue()) {
+                if (availabilityIndex.isFree(room.getId(), startDate, endDate)) {
+                    top.offer(room);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            return top.stream().sorted(LEAST_BOOKED_ORDER).toList();
         }
 
-        return recommendedRooms;
+        return roomRepository.findTopAvailableRoomsForDates(startDate, endDate,
+                PageRequest.of(0, limit, LEAST_BOOKED_FIRST));
     }
 
     @Transactional
@@ -292,19 +554,27 @@ public class RoomService {
         return roomRepository.findAvailableRoomsOrderByTimesBooked();
     }
 
+    @Cacheable(cacheNames = "rooms", key = "#id")
     public Room findById(Long id) {
         return roomRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Room not found with id: " + id));
     }
 
+    @Cacheable(cacheNames = "hotelRooms", key = "#hotelId")
     public List<Room> findRoomsByHotelId(Long hotelId) {
         return roomRepository.findByHotelId(hotelId);
     }
 
+    @Caching(
+            put = @CachePut(cacheNames = "rooms", key = "#result.id"),
+            evict = @CacheEvict(cacheNames = "hotelRooms", allEntries = true))
     public Room save(Room room) {
         return roomRepository.save(room);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "rooms", key = "#id"),
+            @CacheEvict(cacheNames = "hotelRooms", allEntries = true)})
     public void deleteById(Long id) {
         roomRepository.deleteById(id);
     }
@@ -4,6 +4,7 @@ import com.hotelbooking.hotel.dto.*;
 import com.hotelbooking.hotel.entity.Room;
 import com.hotelbooking.hotel.entity.Hotel;
 import com.hotelbooking.hotel.mapper.RoomMapper;
+import com.hotelbooking.hotel.service.RoomBusyException;
 import com.hotelbooking.hotel.service.RoomService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,19 +12,32 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
 class RoomControllerTest {
@@ -257,6 +271,60 @@ class RoomControllerTest {
         verify(roomService).isRoomAvailable(ROOM_ID, START_DATE, END_DATE);
     }
 
+    /**
+     * Тест для endpoint: POST /rooms/availability/batch
+     * Назначение: Проверка доступности нескольких номеров одним запросом
+     * Сценарий: Передан список номеров и период
+     */
+    @Test
+    void checkAvailabilityBatch_ShouldReturnAvailabilityByRoomId() {
+
+        setupUserAuthentication("ROLE_USER");
+        BatchAvailabilityRequest.DateRange range = new BatchAvailabilityRequest.DateRange();
+        range.setStartDate(START_DATE);
+        range.setEndDate(END_DATE);
+        BatchAvailabilityRequest request = new BatchAvailabilityRequest();
+        request.setRoomIds(List.of(ROOM_ID, 2L));
+        request.setRanges(List.of(range));
+
+        when(roomService.checkAvailability(request.getRoomIds(), request.getRanges()))
+                .thenReturn(Map.of(ROOM_ID, true, 2L, false));
+
+        ResponseEntity<Map<Long, Boolean>> response = roomController.checkAvailabilityBatch(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().get(ROOM_ID));
+        assertFalse(response.getBody().get(2L));
+    }
+
+    /**
+     * Тест для endpoint: POST /rooms/reserve-batch
+     * Назначение: Групповое резервирование номеров
+     * Сценарий: Один номер группы занят - резервирование отклонено целиком
+     */
+    @Test
+    void reserveRooms_WithBusyRoom_ShouldReturnUnavailableRooms() {
+
+        BatchReservationRequest.RoomReservation first = new BatchReservationRequest.RoomReservation();
+        first.setRoomId(ROOM_ID);
+        first.setBookingId(10L);
+        BatchReservationRequest.RoomReservation second = new BatchReservationRequest.RoomReservation();
+        second.setRoomId(2L);
+        second.setBookingId(11L);
+        BatchReservationRequest request = new BatchReservationRequest();
+        request.setStartDate(START_DATE);
+        request.setEndDate(END_DATE);
+        request.setReservations(List.of(first, second));
+
+        when(roomService.reserveRooms(START_DATE, END_DATE, Map.of(ROOM_ID, 10L, 2L, 11L))).thenReturn(List.of(2L));
+
+        ResponseEntity<BatchReservationResponse> response = roomController.reserveRooms(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertFalse(response.getBody().isReserved());
+        assertEquals(List.of(2L), response.getBody().getUnavailableRoomIds());
+    }
+
     /**
      * Тест для endpoint: GET /rooms/{id}/availability
      * Назначение: Проверка доступности номера на даты
@@ -295,7 +363,7 @@ class RoomControllerTest {
         when(roomMapper.toDto(testRoom)).thenReturn(testRoomDto);
 
 
-        ResponseEntity<List<RoomDto>> response = roomController.getAvailableRoomsForDates(START_DATE, END_DATE);
+        ResponseEntity<List<RoomDto>> response = roomController.getAvailableRoomsForDates(START_DATE, END_DATE, null, null, null);
 
 
         assertNotNull(response);
@@ -307,6 +375,78 @@ class RoomControllerTest {
         verify(roomMapper).toDto(testRoom);
     }
 
+    /**
+     * Тест для endpoint: GET /rooms/available
+     * Назначение: Поиск доступных номеров на даты
+     * Сценарий: Постраничный запрос с фильтром по отелю
+     */
+    @Test
+    void getAvailableRoomsForDates_WithHotelAndPage_ShouldReturnPageWithTotalCount() {
+
+        setupUserAuthentication("ROLE_USER");
+        Pageable pageable = PageRequest.of(1, 20, Sort.by("id"));
+        Page<Room> page = new PageImpl<>(Collections.singletonList(testRoom), pageable, 21);
+
+        when(roomService.findAvailableRooms(HOTEL_ID, START_DATE, END_DATE, pageable)).thenReturn(page);
+        when(roomMapper.toDto(testRoom)).thenReturn(testRoomDto);
+
+
+        ResponseEntity<List<RoomDto>> response = roomController.getAvailableRoomsForDates(START_DATE, END_DATE, HOTEL_ID, 1, 20);
+
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+        assertEquals("21", response.getHeaders().getFirst("X-Total-Count"));
+
+        verify(roomService, never()).findAvailableRooms(START_DATE, END_DATE);
+    }
+
+    /**
+     * Тест для endpoint: GET /rooms/available
+     * Назначение: Поиск доступных номеров на даты
+     * Сценарий: Фильтр по отелю и номер страницы без размера - страница размера по умолчанию,
+     * слишком большой размер ограничивается максимумом
+     */
+    @Test
+    void getAvailableRoomsForDates_WithoutSize_ShouldUseDefaultAndMaxPageSize() {
+
+        setupUserAuthentication("ROLE_USER");
+        when(roomService.findAvailableRooms(eq(HOTEL_ID), eq(START_DATE), eq(END_DATE), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(), invocation.getArgument(3), 0));
+
+
+        roomController.getAvailableRoomsForDates(START_DATE, END_DATE, HOTEL_ID, null, null);
+        roomController.getAvailableRoomsForDates(START_DATE, END_DATE, HOTEL_ID, 2, null);
+        roomController.getAvailableRoomsForDates(START_DATE, END_DATE, HOTEL_ID, null, 10_000);
+
+
+        verify(roomService).findAvailableRooms(HOTEL_ID, START_DATE, END_DATE, PageRequest.of(0, 20, Sort.by("id")));
+        verify(roomService).findAvailableRooms(HOTEL_ID, START_DATE, END_DATE, PageRequest.of(2, 20, Sort.by("id")));
+        verify(roomService).findAvailableRooms(HOTEL_ID, START_DATE, END_DATE, PageRequest.of(0, 100, Sort.by("id")));
+    }
+
+    /**
+     * Тест для endpoint: GET /rooms/available
+     * Назначение: Поиск доступных номеров на даты
+     * Сценарий: Отрицательный номер страницы или неположительный размер - 400 без обращения к сервису
+     */
+    @Test
+    void getAvailableRoomsForDates_WithInvalidPaging_ShouldReturnBadRequest() {
+
+        setupUserAuthentication("ROLE_USER");
+
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                roomController.getAvailableRoomsForDates(START_DATE, END_DATE, null, -1, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                roomController.getAvailableRoomsForDates(START_DATE, END_DATE, HOTEL_ID, 0, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                roomController.getAvailableRoomsForDates(START_DATE, END_DATE, HOTEL_ID, null, -5).getStatusCode());
+
+        verifyNoInteractions(roomService);
+    }
+
     /**
      * Тест для endpoint: GET /rooms/recommend/date
      * Назначение: Получение рекомендованных номеров на даты
@@ -322,7 +462,7 @@ class RoomControllerTest {
         when(roomMapper.toDto(testRoom)).thenReturn(testRoomDto);
 
 
-        ResponseEntity<List<RoomDto>> response = roomController.getRecommendedRoomsForDates(START_DATE, END_DATE);
+        ResponseEntity<List<RoomDto>> response = roomController.getRecommendedRoomsForDates(START_DATE, END_DATE, null);
 
 
         assertNotNull(response);
@@ -334,6 +474,48 @@ class RoomControllerTest {
         verify(roomMapper).toDto(testRoom);
     }
 
+    /**
+     * Тест для endpoint: GET /rooms/recommend/date?limit=N
+     * Назначение: Получение ограниченного списка рекомендованных номеров
+     * Сценарий: Передан limit - используется поиск top-K без загрузки всего списка
+     */
+    @Test
+    void getRecommendedRoomsForDates_WithLimit_ShouldReturnTopRooms() {
+
+        setupUserAuthentication("ROLE_USER");
+
+        when(roomService.findTopAvailableRooms(START_DATE, END_DATE, 1)).thenReturn(List.of(testRoom));
+        when(roomMapper.toDto(testRoom)).thenReturn(testRoomDto);
+
+        ResponseEntity<List<RoomDto>> response = roomController.getRecommendedRoomsForDates(START_DATE, END_DATE, 1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+        verify(roomService, never()).findRecommendedRooms(any(), any());
+    }
+
+    /**
+     * Тест для endpoint: GET /rooms/recommend/date?limit=N
+     * Назначение: Получение ограниченного списка рекомендованных номеров
+     * Сценарий: Неположительный limit - 400, слишком большой limit ограничивается максимумом
+     */
+    @Test
+    void getRecommendedRoomsForDates_WithOutOfRangeLimit_ShouldRejectOrClamp() {
+
+        setupUserAuthentication("ROLE_USER");
+        when(roomService.findTopAvailableRooms(START_DATE, END_DATE, 100)).thenReturn(List.of());
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                roomController.getRecommendedRoomsForDates(START_DATE, END_DATE, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                roomController.getRecommendedRoomsForDates(START_DATE, END_DATE, -3).getStatusCode());
+        assertEquals(HttpStatus.OK,
+                roomController.getRecommendedRoomsForDates(START_DATE, END_DATE, Integer.MAX_VALUE).getStatusCode());
+
+        verify(roomService).findTopAvailableRooms(START_DATE, END_DATE, 100);
+        verifyNoMoreInteractions(roomService);
+    }
+
     /**
      * Тест для endpoint: POST /rooms/{id}/confirm-availability-with-dates
      * Назначение: Подтверждение доступности с временной блокировкой
@@ -363,6 +545,32 @@ class RoomControllerTest {
         verify(roomService).confirmAvailability(ROOM_ID, START_DATE, END_DATE, bookingId);
     }
 
+    /**
+     * Тест для endpoint: POST /rooms/{id}/confirm-availability-with-dates
+     * Назначение: Подтверждение доступности с временной блокировкой
+     * Сценарий: Номер занят другой операцией (таймаут блокировки) или вставка нарушила ограничение БД
+     * Ожидаемый результат:
+     * - 409 Conflict (повторяемая ошибка), а не 200 false - номер не выдается за занятый на даты
+     */
+    @Test
+    void confirmAvailabilityWithDates_WhenRoomBusyOrWriteConflict_ShouldReturnConflict() throws Exception {
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(roomController).build();
+        String body = "{\"startDate\":\"" + START_DATE + "\",\"endDate\":\"" + END_DATE + "\",\"bookingId\":100}";
+
+        when(roomService.confirmAvailability(ROOM_ID, START_DATE, END_DATE, 100L))
+                .thenThrow(new RoomBusyException("Timed out waiting for lock on room 1, please retry"))
+                .thenThrow(new DataIntegrityViolationException("uk_room_nights_room_night"));
+
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/rooms/{id}/confirm-availability-with-dates", ROOM_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isConflict());
+        }
+    }
+
     /**
      * Тест для endpoint: POST /rooms/{id}/confirm-availability
      * Назначение: Подтверждение доступности (устаревшая версия)
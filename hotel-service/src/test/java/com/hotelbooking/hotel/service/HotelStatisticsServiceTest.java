@@ -5,18 +5,21 @@ import com.hotelbooking.hotel.dto.statistics.RoomPopularityDto;
 import com.hotelbooking.hotel.entity.Hotel;
 import com.hotelbooking.hotel.entity.Room;
 import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.entity.HotelDailyOccupancy;
 import com.hotelbooking.hotel.repository.HotelRepository;
 import com.hotelbooking.hotel.repository.RoomRepository;
 import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,7 +38,11 @@ class HotelStatisticsServiceTest {
     @Mock
     private BookingSlotRepository bookingSlotRepository;
 
-    @InjectMocks
+    @Mock
+    private OccupancyRollupService occupancyRollup;
+
+    private ExecutorService statisticsExecutor;
+
     private HotelStatisticsService hotelStatisticsService;
 
     private Hotel testHotel;
@@ -49,6 +56,10 @@ class HotelStatisticsServiceTest {
     @BeforeEach
     void setUp() {
 
+        statisticsExecutor = Executors.newFixedThreadPool(2);
+        hotelStatisticsService = new HotelStatisticsService(
+                hotelRepository, roomRepository, bookingSlotRepository, occupancyRollup, statisticsExecutor);
+
         testHotel = new Hotel();
         testHotel.setId(HOTEL_ID);
         testHotel.setName("Test Hotel");
@@ -83,6 +94,11 @@ class HotelStatisticsServiceTest {
         testBookingSlot.setStatus("CONFIRMED");
     }
 
+    @AfterEach
+    void tearDown() {
+        statisticsExecutor.shutdownNow();
+    }
+
     /**
      * Тест: Получение статистики по отелю
      */
@@ -94,8 +110,7 @@ class HotelStatisticsServiceTest {
         when(hotelRepository.findById(HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(hotelRooms);
 
-        when(bookingSlotRepository.findConflictingSlots(anyLong(), eq(START_DATE), eq(END_DATE)))
-                .thenReturn(Collections.emptyList())
+        when(bookingSlotRepository.findConfirmedSlotsForRooms(List.of(1L, 2L), START_DATE, END_DATE.plusDays(1)))
                 .thenReturn(Collections.singletonList(testBookingSlot));
 
         HotelStatisticsDto result = hotelStatisticsService.getHotelStatistics(HOTEL_ID, START_DATE, END_DATE);
@@ -104,8 +119,74 @@ class HotelStatisticsServiceTest {
         assertEquals(HOTEL_ID, result.getHotelId());
         assertEquals("Test Hotel", result.getHotelName());
 
-        verify(roomRepository, times(2)).findByHotelId(HOTEL_ID);
-        verify(bookingSlotRepository, times(2)).findConflictingSlots(anyLong(), eq(START_DATE), eq(END_DATE));
+        verify(roomRepository).findByHotelId(HOTEL_ID);
+        verify(bookingSlotRepository).findConfirmedSlotsForRooms(List.of(1L, 2L), START_DATE, END_DATE.plusDays(1));
+        verify(bookingSlotRepository, never()).findConflictingSlots(anyLong(), any(), any());
+    }
+
+    /**
+     * Тест: Общая загрузка согласована с посуточной - день выезда не считается занятым
+     */
+    @Test
+    void getHotelStatistics_WithConfirmedSlot_ShouldDeriveOccupancyFromDailyCounts() {
+
+        when(hotelRepository.findById(HOTEL_ID)).thenReturn(Optional.of(testHotel));
+        when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(Arrays.asList(testRoom1, testRoom2));
+        when(bookingSlotRepository.findConfirmedSlotsForRooms(List.of(1L, 2L), START_DATE, END_DATE.plusDays(1)))
+                .thenReturn(Collections.singletonList(testBookingSlot));
+
+        HotelStatisticsDto result = hotelStatisticsService.getHotelStatistics(HOTEL_ID, START_DATE, END_DATE);
+
+        Map<LocalDate, Double> daily = result.getDailyOccupancy();
+        assertEquals(31, daily.size());
+        assertEquals(50.0, daily.get(LocalDate.now().minusDays(5)));
+        assertEquals(50.0, daily.get(LocalDate.now().minusDays(3)));
+        assertEquals(0.0, daily.get(LocalDate.now().minusDays(2)));
+        assertEquals(3 * 100.0 / (2 * 31), result.getOccupancyRate(), 0.0001);
+        assertEquals(100.0 * 3 / 31, result.getRoomTypeStats().get("DELUXE").getOccupancyRate(), 0.0001);
+    }
+
+    /**
+     * Тест: Сводка построена - статистика читается из hotel_daily_occupancy без запроса слотов
+     */
+    @Test
+    void getHotelStatistics_WithRollupReady_ShouldReadRollupInsteadOfSlots() {
+
+        when(hotelRepository.findById(HOTEL_ID)).thenReturn(Optional.of(testHotel));
+        when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(Arrays.asList(testRoom1, testRoom2));
+        when(occupancyRollup.isReady()).thenReturn(true);
+        when(occupancyRollup.findHotelRange(HOTEL_ID, START_DATE, END_DATE)).thenReturn(List.of(
+                rollupRow(LocalDate.now().minusDays(5), "DELUXE", 1, 200.0),
+                rollupRow(LocalDate.now().minusDays(4), "DELUXE", 1, 200.0),
+                rollupRow(LocalDate.now().minusDays(4), "STANDARD", 1, 100.0)));
+
+        HotelStatisticsDto result = hotelStatisticsService.getHotelStatistics(HOTEL_ID, START_DATE, END_DATE);
+
+        assertEquals(500.0, result.getTotalRevenue());
+        assertEquals(100.0, result.getDailyOccupancy().get(LocalDate.now().minusDays(4)));
+        assertEquals(50.0, result.getDailyOccupancy().get(LocalDate.now().minusDays(5)));
+        assertEquals(3 * 100.0 / (2 * 31), result.getOccupancyRate(), 0.0001);
+        assertEquals(400.0, result.getRoomTypeStats().get("DELUXE").getTotalRevenue());
+        verify(bookingSlotRepository, never()).findConfirmedSlotsForRooms(any(), any(), any());
+    }
+
+    /**
+     * Тест: Посуточная загрузка из сводки
+     */
+    @Test
+    void getDailyOccupancy_WithRollupReady_ShouldReadRollup() {
+
+        when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(Arrays.asList(testRoom1, testRoom2));
+        when(occupancyRollup.isReady()).thenReturn(true);
+        when(occupancyRollup.findHotelRange(HOTEL_ID, START_DATE, END_DATE))
+                .thenReturn(List.of(rollupRow(LocalDate.now().minusDays(1), "DELUXE", 2, 400.0)));
+
+        Map<LocalDate, Double> result = hotelStatisticsService.getDailyOccupancy(HOTEL_ID, START_DATE, END_DATE);
+
+        assertEquals(31, result.size());
+        assertEquals(100.0, result.get(LocalDate.now().minusDays(1)));
+        assertEquals(0.0, result.get(END_DATE));
+        verify(bookingSlotRepository, never()).findConfirmedSlotsForHotel(any(), any(), any());
     }
 
     /**
@@ -139,8 +220,8 @@ class HotelStatisticsServiceTest {
         assertEquals(0, result.getTotalRooms());
         assertEquals(0, result.getAvailableRooms());
 
-        verify(roomRepository, times(2)).findByHotelId(HOTEL_ID);
-        verify(bookingSlotRepository, never()).findConflictingSlots(anyLong(), any(), any());
+        verify(roomRepository).findByHotelId(HOTEL_ID);
+        verify(bookingSlotRepository, never()).findConfirmedSlotsForRooms(any(), any(), any());
     }
 
     /**
@@ -172,16 +253,25 @@ class HotelStatisticsServiceTest {
         room2.setType("STANDARD");
         room2.setPrice(100.0);
         room2.setAvailable(true);
+        room2.setHotel(hotel2);
+        room1.setHotel(hotel1);
 
-        when(hotelRepository.findById(1L)).thenReturn(Optional.of(hotel1));
-        when(roomRepository.findByHotelId(1L)).thenReturn(List.of(room1));
+        BookingSlot slot = new BookingSlot();
+        slot.setRoomId(2L);
+        slot.setStartDate(LocalDate.now().minusDays(10));
+        slot.setEndDate(LocalDate.now().minusDays(5));
+        slot.setStatus("CONFIRMED");
 
-        when(hotelRepository.findById(2L)).thenReturn(Optional.of(hotel2));
-        when(roomRepository.findByHotelId(2L)).thenReturn(List.of(room2));
+        BookingSlot foreignSlot = new BookingSlot();
+        foreignSlot.setRoomId(99L);
+        foreignSlot.setStartDate(LocalDate.now().minusDays(10));
+        foreignSlot.setEndDate(LocalDate.now().minusDays(5));
+        foreignSlot.setStatus("CONFIRMED");
 
         when(hotelRepository.findAll()).thenReturn(hotels);
-        when(bookingSlotRepository.findConflictingSlots(anyLong(), eq(START_DATE), eq(END_DATE)))
-                .thenReturn(Collections.emptyList());
+        when(roomRepository.findAllWithHotel()).thenReturn(List.of(room1, room2));
+        when(bookingSlotRepository.findConfirmedSlotsInPeriod(START_DATE, END_DATE.plusDays(1)))
+                .thenReturn(List.of(slot, foreignSlot));
 
         List<HotelStatisticsDto> result = hotelStatisticsService.getHotelsComparison(START_DATE, END_DATE);
 
@@ -194,11 +284,30 @@ class HotelStatisticsServiceTest {
         assertTrue(hotelIds.contains(1L));
         assertTrue(hotelIds.contains(2L));
 
+        assertEquals(2L, result.get(0).getHotelId());
+        assertEquals(500.0, result.get(0).getTotalRevenue());
+        assertEquals(0.0, result.get(1).getOccupancyRate());
+
         verify(hotelRepository).findAll();
-        verify(hotelRepository).findById(1L);
-        verify(hotelRepository).findById(2L);
-        verify(roomRepository, times(2)).findByHotelId(1L);
-        verify(roomRepository, times(2)).findByHotelId(2L);
+        verify(roomRepository).findAllWithHotel();
+        verify(bookingSlotRepository).findConfirmedSlotsInPeriod(START_DATE, END_DATE.plusDays(1));
+        verify(hotelRepository, never()).findById(anyLong());
+        verify(roomRepository, never()).findByHotelId(anyLong());
+    }
+
+    /**
+     * Тест: Сравнительная статистика - отелей нет
+     */
+    @Test
+    void getHotelsComparison_WithNoHotels_ShouldReturnEmptyListWithoutLoadingRooms() {
+
+        when(hotelRepository.findAll()).thenReturn(Collections.emptyList());
+
+        List<HotelStatisticsDto> result = hotelStatisticsService.getHotelsComparison(START_DATE, END_DATE);
+
+        assertTrue(result.isEmpty());
+        verify(roomRepository, never()).findAllWithHotel();
+        verify(bookingSlotRepository, never()).findConfirmedSlotsInPeriod(any(), any());
     }
 
     /**
@@ -212,8 +321,7 @@ class HotelStatisticsServiceTest {
         LocalDate testEndDate = LocalDate.now();
 
         when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(hotelRooms);
-        when(bookingSlotRepository.findConflictingSlots(anyLong(), eq(testStartDate), eq(testEndDate)))
-                .thenReturn(Collections.emptyList())
+        when(bookingSlotRepository.findConfirmedSlotsForHotel(HOTEL_ID, testStartDate, testEndDate.plusDays(1)))
                 .thenReturn(Collections.singletonList(testBookingSlot));
 
         Map<LocalDate, Double> result = hotelStatisticsService.getDailyOccupancy(HOTEL_ID, testStartDate, testEndDate);
@@ -221,8 +329,8 @@ class HotelStatisticsServiceTest {
         assertNotNull(result);
         assertFalse(result.isEmpty());
 
-        verify(roomRepository, times(2)).findByHotelId(HOTEL_ID);
-        verify(bookingSlotRepository, times(2)).findConflictingSlots(anyLong(), eq(testStartDate), eq(testEndDate));
+        verify(roomRepository).findByHotelId(HOTEL_ID);
+        verify(bookingSlotRepository).findConfirmedSlotsForHotel(HOTEL_ID, testStartDate, testEndDate.plusDays(1));
     }
 
     /**
@@ -288,7 +396,7 @@ class HotelStatisticsServiceTest {
 
         when(hotelRepository.findById(HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(hotelRooms);
-        when(bookingSlotRepository.findConflictingSlots(anyLong(), eq(START_DATE), eq(END_DATE)))
+        when(bookingSlotRepository.findConfirmedSlotsForRooms(anyCollection(), eq(START_DATE), eq(END_DATE.plusDays(1))))
                 .thenReturn(Collections.emptyList());
 
         HotelStatisticsDto result = hotelStatisticsService.getHotelStatistics(HOTEL_ID, START_DATE, END_DATE);
@@ -296,8 +404,8 @@ class HotelStatisticsServiceTest {
         assertNotNull(result);
         assertNotNull(result.getRoomTypeStats());
 
-        verify(roomRepository, times(2)).findByHotelId(HOTEL_ID);
-        verify(bookingSlotRepository, times(3)).findConflictingSlots(anyLong(), eq(START_DATE), eq(END_DATE));
+        verify(roomRepository).findByHotelId(HOTEL_ID);
+        verify(bookingSlotRepository).findConfirmedSlotsForRooms(List.of(1L, 2L, 3L), START_DATE, END_DATE.plusDays(1));
     }
 
     /**
@@ -328,17 +436,20 @@ class HotelStatisticsServiceTest {
 
         when(hotelRepository.findById(HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(hotelRooms);
-        when(bookingSlotRepository.findConflictingSlots(eq(1L), eq(START_DATE), eq(END_DATE)))
+        when(bookingSlotRepository.findConfirmedSlotsForRooms(List.of(1L, 2L), START_DATE, END_DATE.plusDays(1)))
                 .thenReturn(Collections.singletonList(longBooking));
-        when(bookingSlotRepository.findConflictingSlots(eq(2L), eq(START_DATE), eq(END_DATE)))
-                .thenReturn(Collections.emptyList());
 
         HotelStatisticsDto result = hotelStatisticsService.getHotelStatistics(HOTEL_ID, START_DATE, END_DATE);
 
         assertNotNull(result);
         assertTrue(result.getTotalRevenue() > 0);
+        assertEquals(1500.0, result.getTotalRevenue());
+        assertEquals(1500.0, result.getRoomTypeStats().get("DELUXE").getTotalRevenue());
+        assertEquals(0.0, result.getRoomTypeStats().get("STANDARD").getTotalRevenue());
+        assertEquals(3.0, result.getRoomTypeStats().get("STANDARD").getAverageBookings());
+        assertEquals(750.0, result.getAverageRevenuePerRoom());
 
-        verify(roomRepository, times(2)).findByHotelId(HOTEL_ID);
+        verify(roomRepository).findByHotelId(HOTEL_ID);
     }
 
     /**
@@ -372,7 +483,7 @@ class HotelStatisticsServiceTest {
 
         when(hotelRepository.findById(HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(hotelRooms);
-        when(bookingSlotRepository.findConflictingSlots(anyLong(), eq(START_DATE), eq(END_DATE)))
+        when(bookingSlotRepository.findConfirmedSlotsForRooms(anyCollection(), eq(START_DATE), eq(END_DATE.plusDays(1))))
                 .thenReturn(Collections.emptyList());
 
         HotelStatisticsDto result = hotelStatisticsService.getHotelStatistics(HOTEL_ID, START_DATE, END_DATE);
@@ -384,6 +495,16 @@ class HotelStatisticsServiceTest {
         assertEquals(mostPopular.getId(), result.getMostPopularRoom().getRoomId());
         assertEquals(leastPopular.getId(), result.getLeastPopularRoom().getRoomId());
 
-        verify(roomRepository, times(2)).findByHotelId(HOTEL_ID);
+        verify(roomRepository).findByHotelId(HOTEL_ID);
+    }
+
+    private HotelDailyOccupancy rollupRow(LocalDate date, String roomType, int occupiedRooms, double revenue) {
+        HotelDailyOccupancy row = new HotelDailyOccupancy();
+        row.setHotelId(HOTEL_ID);
+        row.setDate(date);
+        row.setRoomType(roomType);
+        row.setOccupiedRooms(occupiedRooms);
+        row.setRevenue(revenue);
+        return row;
     }
-}
\ No newline at end of file
+}
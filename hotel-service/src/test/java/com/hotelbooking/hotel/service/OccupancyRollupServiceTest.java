@@ -0,0 +1,206 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.entity.Hotel;
+import com.hotelbooking.hotel.entity.HotelDailyOccupancy;
+import com.hotelbooking.hotel.entity.Room;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import com.hotelbooking.hotel.repository.HotelDailyOccupancyRepository;
+import com.hotelbooking.hotel.repository.HotelRepository;
+import com.hotelbooking.hotel.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OccupancyRollupServiceTest {
+
+    @Mock
+    private HotelDailyOccupancyRepository occupancyRepository;
+
+    @Mock
+    private HotelRepository hotelRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private BookingSlotRepository bookingSlotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OccupancyRollupService occupancyRollup;
+
+    private Hotel hotel;
+    private Room testRoom;
+    private final Long HOTEL_ID = 1L;
+    private final Long ROOM_ID = 1L;
+    private final LocalDate START_DATE = LocalDate.of(2025, 6, 1);
+    private final LocalDate END_DATE = LocalDate.of(2025, 6, 4);
+
+    @BeforeEach
+    void setUp() {
+        occupancyRollup = new OccupancyRollupService(
+                occupancyRepository, hotelRepository, roomRepository, bookingSlotRepository, transactionManager, true);
+
+        hotel = new Hotel();
+        hotel.setId(HOTEL_ID);
+
+        testRoom = new Room();
+        testRoom.setId(ROOM_ID);
+        testRoom.setType("DELUXE");
+        testRoom.setPrice(200.0);
+        testRoom.setHotel(hotel);
+    }
+
+    /**
+     * Тест: Перестройка сводки отеля под блокировкой его строки - одна строка на ночь по цене из слота
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_WithConfirmedSlots_ShouldWriteRowPerNight() {
+
+        BookingSlot slot = confirmedSlot(START_DATE, END_DATE, 180.0);
+
+        when(hotelRepository.findAllIds()).thenReturn(List.of(HOTEL_ID));
+        when(hotelRepository.findByIdForUpdate(HOTEL_ID)).thenReturn(Optional.of(hotel));
+        when(roomRepository.findByHotelId(HOTEL_ID)).thenReturn(List.of(testRoom));
+        when(bookingSlotRepository.findByRoomIdInAndStatus(Set.of(ROOM_ID), "CONFIRMED")).thenReturn(List.of(slot));
+
+        assertFalse(occupancyRollup.isReady());
+        occupancyRollup.rebuild();
+
+        ArgumentCaptor<Collection<HotelDailyOccupancy>> captor = ArgumentCaptor.forClass(Collection.class);
+        InOrder order = inOrder(hotelRepository, bookingSlotRepository, occupancyRepository);
+        order.verify(hotelRepository).findByIdForUpdate(HOTEL_ID);
+        order.verify(bookingSlotRepository).findByRoomIdInAndStatus(Set.of(ROOM_ID), "CONFIRMED");
+        order.verify(occupancyRepository).deleteByHotelId(HOTEL_ID);
+        order.verify(occupancyRepository).saveAll(captor.capture());
+
+        List<HotelDailyOccupancy> rows = new ArrayList<>(captor.getValue());
+        assertEquals(3, rows.size());
+        assertTrue(rows.stream().allMatch(row -> row.getOccupiedRooms() == 1 && row.getRevenue() == 180.0));
+        assertTrue(rows.stream().noneMatch(row -> row.getDate().equals(END_DATE)));
+        assertTrue(occupancyRollup.isReady());
+    }
+
+    /**
+     * Тест: Отмена уменьшает доход на цену из слота, а не на текущую цену номера
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void slotCancelled_AfterPriceChange_ShouldUseSlotPrice() {
+
+        HotelDailyOccupancy existing = new HotelDailyOccupancy();
+        existing.setHotelId(HOTEL_ID);
+        existing.setDate(START_DATE);
+        existing.setRoomType("DELUXE");
+        existing.setOccupiedRooms(2);
+        existing.setRevenue(330.0);
+
+        when(roomRepository.findAllById(Set.of(ROOM_ID))).thenReturn(List.of(testRoom));
+        when(occupancyRepository.findByHotelIdAndDateBetween(HOTEL_ID, START_DATE, START_DATE))
+                .thenReturn(List.of(existing));
+
+        occupancyRollup.slotCancelled(confirmedSlot(START_DATE, START_DATE.plusDays(1), 150.0));
+
+        ArgumentCaptor<List<HotelDailyOccupancy>> captor = ArgumentCaptor.forClass(List.class);
+        verify(hotelRepository).findByIdForUpdate(HOTEL_ID);
+        verify(occupancyRepository).saveAll(captor.capture());
+        assertSame(existing, captor.getValue().get(0));
+        assertEquals(1, existing.getOccupiedRooms());
+        assertEquals(180.0, existing.getRevenue());
+    }
+
+    /**
+     * Тест: В транзакции изменения накапливаются и пишутся одним проходом перед коммитом
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void slotConfirmed_InTransaction_ShouldWriteBeforeCommit() {
+
+        when(roomRepository.findAllById(Set.of(ROOM_ID))).thenReturn(List.of(testRoom));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            occupancyRollup.slotConfirmed(confirmedSlot(START_DATE, START_DATE.plusDays(2), 200.0));
+            occupancyRollup.slotConfirmed(confirmedSlot(START_DATE.plusDays(1), END_DATE, 200.0));
+            verifyNoInteractions(occupancyRepository, hotelRepository);
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.beforeCommit(false);
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ArgumentCaptor<List<HotelDailyOccupancy>> captor = ArgumentCaptor.forClass(List.class);
+        verify(hotelRepository, times(1)).findByIdForUpdate(HOTEL_ID);
+        verify(occupancyRepository).saveAll(captor.capture());
+        Map<LocalDate, Integer> occupied = captor.getValue().stream()
+                .collect(Collectors.toMap(HotelDailyOccupancy::getDate, HotelDailyOccupancy::getOccupiedRooms));
+        assertEquals(Map.of(START_DATE, 1, START_DATE.plusDays(1), 2, START_DATE.plusDays(2), 1), occupied);
+        assertFalse(TransactionSynchronizationManager.hasResource(occupancyRollup));
+    }
+
+    /**
+     * Тест: Ошибка записи сводки прерывает транзакцию слота, а не теряется молча
+     */
+    @Test
+    void slotConfirmed_WhenRepositoryFails_ShouldThrow() {
+
+        when(roomRepository.findAllById(any())).thenThrow(new RuntimeException("Database error"));
+
+        assertThrows(RuntimeException.class,
+                () -> occupancyRollup.slotConfirmed(confirmedSlot(START_DATE, END_DATE, 200.0)));
+        verify(occupancyRepository, never()).saveAll(any());
+    }
+
+    /**
+     * Тест: Выключенная сводка не перестраивается и не используется
+     */
+    @Test
+    void rebuild_WhenDisabled_ShouldSkip() {
+
+        OccupancyRollupService disabledRollup = new OccupancyRollupService(
+                occupancyRepository, hotelRepository, roomRepository, bookingSlotRepository, transactionManager, false);
+
+        disabledRollup.rebuild();
+        disabledRollup.slotConfirmed(confirmedSlot(START_DATE, END_DATE, 200.0));
+
+        assertFalse(disabledRollup.isReady());
+        verifyNoInteractions(occupancyRepository, hotelRepository, roomRepository, bookingSlotRepository);
+    }
+
+    private BookingSlot confirmedSlot(LocalDate startDate, LocalDate endDate, Double nightlyPrice) {
+        BookingSlot slot = new BookingSlot();
+        slot.setRoomId(ROOM_ID);
+        slot.setStartDate(startDate);
+        slot.setEndDate(endDate);
+        slot.setNightlyPrice(nightlyPrice);
+        slot.setStatus("CONFIRMED");
+        return slot;
+    }
+}
@@ -0,0 +1,54 @@
+package com.hotelbooking.hotel.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyTimelineTest {
+
+    private final LocalDate START_DATE = LocalDate.of(2025, 1, 1);
+    private final LocalDate END_DATE = LocalDate.of(2025, 1, 10);
+
+    /**
+     * Тест: Слоты внутри периода - день выезда свободен
+     */
+    @Test
+    void dailyCounts_WithOverlappingSlots_ShouldCountNightsPerDay() {
+
+        OccupancyTimeline timeline = new OccupancyTimeline(START_DATE, END_DATE);
+        timeline.add(LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 5));
+        timeline.add(LocalDate.of(2025, 1, 4), LocalDate.of(2025, 1, 6));
+
+        assertArrayEquals(new int[]{0, 1, 1, 2, 1, 0, 0, 0, 0, 0}, timeline.dailyCounts());
+        assertEquals(5, timeline.occupiedRoomDays());
+        assertEquals(10, timeline.days());
+    }
+
+    /**
+     * Тест: Слоты обрезаются по границам периода, endDate входит в период
+     */
+    @Test
+    void dailyCounts_WithSlotsOutsidePeriod_ShouldClipToBounds() {
+
+        OccupancyTimeline timeline = new OccupancyTimeline(START_DATE, END_DATE);
+        timeline.add(LocalDate.of(2024, 12, 25), LocalDate.of(2025, 1, 3));
+        timeline.add(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 20));
+        timeline.add(LocalDate.of(2024, 11, 1), LocalDate.of(2024, 11, 5));
+
+        assertArrayEquals(new int[]{1, 1, 0, 0, 0, 0, 0, 0, 0, 1}, timeline.dailyCounts());
+        assertEquals(3, timeline.occupiedRoomDays());
+        assertEquals(END_DATE, timeline.dateAt(9));
+    }
+
+    /**
+     * Тест: Дата окончания раньше даты начала
+     */
+    @Test
+    void constructor_WithEndBeforeStart_ShouldThrowException() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new OccupancyTimeline(END_DATE, START_DATE));
+    }
+}
@@ -0,0 +1,111 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationExpiryServiceTest {
+
+    private static final LocalDate START_DATE = LocalDate.now().plusDays(1);
+    private static final LocalDate END_DATE = LocalDate.now().plusDays(3);
+
+    @Mock
+    private BookingSlotRepository bookingSlotRepository;
+
+    @Mock
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private RoomNightInventory roomNights;
+
+    @Mock
+    private RoomLockManager roomLocks;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReservationExpiryService expiryService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        expiryService = new ReservationExpiryService(bookingSlotRepository, availabilityIndex, roomNights,
+                roomLocks, transactionManager, meterRegistry, 10, 2);
+    }
+
+    /**
+     * Тест: просроченные блокировки удаляются пачками, номера освобождаются, счетчик метрики растет
+     */
+    @Test
+    void reclaimExpiredReservations_ShouldDeleteInBatchesAndReleaseRooms() {
+        BookingSlot first = slot(1L, 10L);
+        BookingSlot second = slot(2L, 20L);
+        BookingSlot third = slot(3L, 30L);
+        when(bookingSlotRepository.findExpiredReservations(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first, second), List.of(third));
+        when(bookingSlotRepository.findExpiredReservationIds(anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+
+        int reclaimed = expiryService.reclaimExpiredReservations();
+
+        assertEquals(3, reclaimed);
+        verify(roomLocks).lockAllUntilTransactionEnds(Set.of(10L, 20L));
+        verify(roomLocks).lockAllUntilTransactionEnds(Set.of(30L));
+        verify(bookingSlotRepository).deleteExpiredReservations(eq(Set.of(1L, 2L)), any(LocalDateTime.class));
+        verify(bookingSlotRepository).deleteExpiredReservations(eq(Set.of(3L)), any(LocalDateTime.class));
+        verify(availabilityIndex).release(30L, START_DATE, END_DATE);
+        verify(roomNights).release(List.of(first, second));
+        assertEquals(3.0, meterRegistry.get("hotel.reservations.reclaimed").counter().count());
+    }
+
+    /**
+     * Тест: слот, подтвержденный пока пачка ждала блокировку номера, не удаляется
+     */
+    @Test
+    void reclaimExpiredReservations_WhenSlotConfirmedMeanwhile_ShouldKeepIt() {
+        BookingSlot expired = slot(1L, 10L);
+        BookingSlot confirmed = slot(2L, 20L);
+        when(bookingSlotRepository.findExpiredReservations(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(expired, confirmed), List.of());
+        when(bookingSlotRepository.findExpiredReservationIds(anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(1L));
+
+        int reclaimed = expiryService.reclaimExpiredReservations();
+
+        assertEquals(1, reclaimed);
+        verify(bookingSlotRepository).deleteExpiredReservations(eq(Set.of(1L)), any(LocalDateTime.class));
+        verify(availabilityIndex, never()).release(eq(20L), any(), any());
+        verify(roomNights).release(List.of(expired));
+    }
+
+    private BookingSlot slot(Long id, Long roomId) {
+        BookingSlot slot = new BookingSlot();
+        slot.setId(id);
+        slot.setRoomId(roomId);
+        slot.setStartDate(START_DATE);
+        slot.setEndDate(END_DATE);
+        slot.setStatus("RESERVED");
+        return slot;
+    }
+}
@@ -0,0 +1,136 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomAvailabilityIndexTest {
+
+    @Mock
+    private BookingSlotRepository bookingSlotRepository;
+
+    private RoomAvailabilityIndex availabilityIndex;
+
+    private final Long ROOM_ID = 1L;
+    private final LocalDate TODAY = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = new RoomAvailabilityIndex(bookingSlotRepository, true, 30);
+    }
+
+    /**
+     * Тест: Индекс не построен - период не покрыт
+     */
+    @Test
+    void covers_BeforeRebuild_ShouldReturnFalse() {
+
+        assertFalse(availabilityIndex.covers(TODAY.plusDays(1), TODAY.plusDays(3)));
+    }
+
+    /**
+     * Тест: Период за пределами горизонта не покрыт
+     */
+    @Test
+    void covers_WithPeriodBeyondHorizon_ShouldReturnFalse() {
+
+        when(bookingSlotRepository.findActiveSlotsEndingAfter(TODAY)).thenReturn(List.of());
+        availabilityIndex.rebuild();
+
+        assertTrue(availabilityIndex.covers(TODAY.plusDays(1), TODAY.plusDays(30)));
+        assertFalse(availabilityIndex.covers(TODAY.plusDays(29), TODAY.plusDays(31)));
+    }
+
+    /**
+     * Тест: Слоты из БД учитываются при перестройке, дата выезда не занята
+     */
+    @Test
+    void isFree_AfterRebuild_ShouldReflectExistingSlots() {
+
+        when(bookingSlotRepository.findActiveSlotsEndingAfter(TODAY))
+                .thenReturn(List.of(slot(ROOM_ID, TODAY.plusDays(2), TODAY.plusDays(5))));
+        availabilityIndex.rebuild();
+
+        assertFalse(availabilityIndex.isFree(ROOM_ID, TODAY.plusDays(1), TODAY.plusDays(3)));
+        assertFalse(availabilityIndex.isFree(ROOM_ID, TODAY.plusDays(4), TODAY.plusDays(6)));
+        assertTrue(availabilityIndex.isFree(ROOM_ID, TODAY.plusDays(5), TODAY.plusDays(7)));
+        assertTrue(availabilityIndex.isFree(ROOM_ID, TODAY.plusDays(1), TODAY.plusDays(2)));
+        assertTrue(availabilityIndex.isFree(2L, TODAY.plusDays(2), TODAY.plusDays(5)));
+    }
+
+    /**
+     * Тест: Занятие и освобождение номера обновляют индекс
+     */
+    @Test
+    void occupyAndRelease_ShouldUpdateRoomNights() {
+
+        when(bookingSlotRepository.findActiveSlotsEndingAfter(any())).thenReturn(List.of());
+        availabilityIndex.rebuild();
+
+        availabilityIndex.occupy(ROOM_ID, TODAY.plusDays(3), TODAY.plusDays(6));
+        assertFalse(availabilityIndex.isFree(ROOM_ID, TODAY.plusDays(5), TODAY.plusDays(8)));
+
+        availabilityIndex.release(ROOM_ID, TODAY.plusDays(3), TODAY.plusDays(6));
+        assertTrue(availabilityIndex.isFree(ROOM_ID, TODAY.plusDays(1), TODAY.plusDays(10)));
+    }
+
+    /**
+     * Тест: Изменения, закоммиченные во время перестройки, не теряются при подмене снимка
+     */
+    @Test
+    void rebuild_ShouldReplayChangesCommittedDuringRebuild() {
+
+        when(bookingSlotRepository.findActiveSlotsEndingAfter(any())).thenReturn(List.of());
+        availabilityIndex.rebuild();
+        availabilityIndex.occupy(ROOM_ID, TODAY.plusDays(1), TODAY.plusDays(3));
+
+        when(bookingSlotRepository.findActiveSlotsEndingAfter(any())).thenAnswer(invocation -> {
+            // БД прочитана до этих коммитов: бронь номера 1 еще активна, номера 2 еще нет
+            availabilityIndex.release(ROOM_ID, TODAY.plusDays(1), TODAY.plusDays(3));
+            availabilityIndex.occupy(2L, TODAY.plusDays(4), TODAY.plusDays(6));
+            return List.of(slot(ROOM_ID, TODAY.plusDays(1), TODAY.plusDays(3)));
+        });
+        availabilityIndex.rebuild();
+
+        assertTrue(availabilityIndex.isFree(ROOM_ID, TODAY.plusDays(1), TODAY.plusDays(3)));
+        assertFalse(availabilityIndex.isFree(2L, TODAY.plusDays(4), TODAY.plusDays(6)));
+
+        availabilityIndex.occupy(3L, TODAY.plusDays(1), TODAY.plusDays(2));
+        assertFalse(availabilityIndex.isFree(3L, TODAY.plusDays(1), TODAY.plusDays(2)));
+    }
+
+    /**
+     * Тест: Выключенный индекс не загружается из БД
+     */
+    @Test
+    void rebuild_WhenDisabled_ShouldNotLoadSlots() {
+
+        RoomAvailabilityIndex disabledIndex = new RoomAvailabilityIndex(bookingSlotRepository, false, 30);
+
+        disabledIndex.rebuild();
+
+        assertFalse(disabledIndex.covers(TODAY.plusDays(1), TODAY.plusDays(3)));
+        verify(bookingSlotRepository, never()).findActiveSlotsEndingAfter(any());
+    }
+
+    private BookingSlot slot(Long roomId, LocalDate startDate, LocalDate endDate) {
+        BookingSlot slot = new BookingSlot();
+        slot.setRoomId(roomId);
+        slot.setStartDate(startDate);
+        slot.setEndDate(endDate);
+        slot.setStatus("CONFIRMED");
+        return slot;
+    }
+}
@@ -0,0 +1,127 @@
+package com.hotelbooking.hotel.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomLockManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoomLockManager roomLocks;
+    private ExecutorService otherThread;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        roomLocks = new RoomLockManager(64, 100, meterRegistry);
+        otherThread = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherThread.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Тест: Номер заблокирован до завершения транзакции, второй поток получает таймаут
+     */
+    @Test
+    void lockUntilTransactionEnds_WithSameRoom_ShouldTimeOutUntilCompletion() throws Exception {
+
+        TransactionSynchronizationManager.initSynchronization();
+        roomLocks.lockUntilTransactionEnds(1L);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> inOtherTransaction(1L));
+        assertTrue(exception.getMessage().contains("lock on room 1"));
+        assertEquals(1.0, meterRegistry.counter("hotel.room.lock.timeouts").count());
+
+        completeTransaction();
+
+        assertEquals("locked", inOtherTransaction(1L));
+        assertEquals(3, meterRegistry.timer("hotel.room.lock.wait").count());
+    }
+
+    /**
+     * Тест: Номера из разных полос блокируются независимо
+     */
+    @Test
+    void lockUntilTransactionEnds_WithRoomsInDifferentStripes_ShouldNotBlock() throws Exception {
+
+        Long otherRoomId = 2L;
+        while (roomLocks.stripeIndex(otherRoomId) == roomLocks.stripeIndex(1L)) {
+            otherRoomId++;
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        roomLocks.lockUntilTransactionEnds(1L);
+
+        assertEquals("locked", inOtherTransaction(otherRoomId));
+        assertEquals(0.0, meterRegistry.counter("hotel.room.lock.timeouts").count());
+    }
+
+    /**
+     * Тест: Групповая блокировка держит все полосы номеров до завершения транзакции
+     */
+    @Test
+    void lockAllUntilTransactionEnds_ShouldHoldEveryRoomUntilCompletion() throws Exception {
+
+        TransactionSynchronizationManager.initSynchronization();
+        roomLocks.lockAllUntilTransactionEnds(List.of(5L, 1L, 3L, 1L));
+
+        assertThrows(RuntimeException.class, () -> inOtherTransaction(3L));
+        assertThrows(RuntimeException.class, () -> inOtherTransaction(5L));
+
+        completeTransaction();
+
+        assertEquals("locked", inOtherTransaction(1L));
+        assertEquals("locked", inOtherTransaction(5L));
+    }
+
+    /**
+     * Тест: Блокировка вне транзакции не допускается
+     */
+    @Test
+    void lockUntilTransactionEnds_WithoutTransaction_ShouldThrowException() {
+
+        assertThrows(IllegalStateException.class, () -> roomLocks.lockUntilTransactionEnds(1L));
+    }
+
+    private String inOtherTransaction(Long roomId) throws Exception {
+        Callable<String> task = () -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                roomLocks.lockUntilTransactionEnds(roomId);
+                return "locked";
+            } finally {
+                completeTransaction();
+            }
+        };
+        try {
+            return otherThread.submit(task).get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static void completeTransaction() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
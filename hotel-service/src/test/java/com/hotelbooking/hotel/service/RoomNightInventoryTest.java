@@ -0,0 +1,133 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.entity.RoomNight;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import com.hotelbooking.hotel.repository.RoomNightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomNightInventoryTest {
+
+    @Mock
+    private RoomNightRepository roomNightRepository;
+
+    @Mock
+    private BookingSlotRepository bookingSlotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RoomNightInventory roomNights;
+
+    private final Long ROOM_ID = 1L;
+    private final LocalDate START_DATE = LocalDate.of(2025, 6, 1);
+    private final LocalDate END_DATE = LocalDate.of(2025, 6, 4);
+
+    @BeforeEach
+    void setUp() {
+        roomNights = new RoomNightInventory(roomNightRepository, bookingSlotRepository, transactionManager, "nights");
+    }
+
+    /**
+     * Тест: Резервирование занимает по строке на каждую ночь, день выезда свободен
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void claim_ShouldInsertRowPerNight() {
+
+        roomNights.claim(slot(10L, START_DATE, END_DATE));
+
+        ArgumentCaptor<List<RoomNight>> captor = ArgumentCaptor.forClass(List.class);
+        verify(roomNightRepository).saveAll(captor.capture());
+        verify(roomNightRepository).flush();
+        assertEquals(List.of(START_DATE, START_DATE.plusDays(1), START_DATE.plusDays(2)),
+                captor.getValue().stream().map(RoomNight::getNight).toList());
+        assertTrue(captor.getValue().stream().allMatch(night -> night.getSlotId() == 10L));
+    }
+
+    /**
+     * Тест: Проверка конфликта ищет ночи [startDate, endDate - 1]
+     */
+    @Test
+    void hasConflict_ShouldLookUpNightsBeforeCheckOut() {
+
+        when(roomNightRepository.existsByRoomIdAndNightBetween(ROOM_ID, START_DATE, END_DATE.minusDays(1)))
+                .thenReturn(true);
+
+        assertTrue(roomNights.hasConflict(ROOM_ID, START_DATE, END_DATE));
+    }
+
+    /**
+     * Тест: Перенос создает ночи только для активных слотов, у которых их еще нет
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void migrate_ShouldBackfillOnlyUnclaimedSlots() {
+
+        when(roomNightRepository.findClaimedSlotIds()).thenReturn(Set.of(10L));
+        when(bookingSlotRepository.findByStatusIn(List.of("RESERVED", "CONFIRMED"))).thenReturn(List.of(
+                slot(10L, START_DATE, END_DATE),
+                slot(11L, END_DATE, END_DATE.plusDays(2))));
+
+        assertFalse(roomNights.isReady());
+        roomNights.migrate();
+
+        ArgumentCaptor<List<RoomNight>> captor = ArgumentCaptor.forClass(List.class);
+        verify(roomNightRepository).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertTrue(captor.getValue().stream().allMatch(night -> night.getSlotId() == 11L));
+        assertTrue(roomNights.isReady());
+    }
+
+    /**
+     * Тест: В режиме slots таблица room_nights не используется
+     */
+    @Test
+    void slotsMode_ShouldNotTouchRoomNights() {
+
+        RoomNightInventory slotsInventory =
+                new RoomNightInventory(roomNightRepository, bookingSlotRepository, transactionManager, "slots");
+
+        slotsInventory.migrate();
+        slotsInventory.claim(slot(10L, START_DATE, END_DATE));
+        slotsInventory.release(List.of(slot(10L, START_DATE, END_DATE)));
+
+        assertFalse(slotsInventory.isReady());
+        verifyNoInteractions(roomNightRepository, bookingSlotRepository);
+    }
+
+    /**
+     * Тест: Неизвестный режим учета отклоняется при старте
+     */
+    @Test
+    void constructor_WithUnknownMode_ShouldThrowException() {
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new RoomNightInventory(roomNightRepository, bookingSlotRepository, transactionManager, "bitmask"));
+    }
+
+    private BookingSlot slot(Long id, LocalDate startDate, LocalDate endDate) {
+        BookingSlot slot = new BookingSlot();
+        slot.setId(id);
+        slot.setRoomId(ROOM_ID);
+        slot.setStartDate(startDate);
+        slot.setEndDate(endDate);
+        slot.setStatus("CONFIRMED");
+        return slot;
+    }
+}
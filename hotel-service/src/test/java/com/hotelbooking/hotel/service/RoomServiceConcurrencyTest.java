@@ -0,0 +1,240 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.BookingSlot;
+import com.hotelbooking.hotel.entity.Hotel;
+import com.hotelbooking.hotel.entity.Room;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import com.hotelbooking.hotel.repository.HotelRepository;
+import com.hotelbooking.hotel.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"eureka.client.enabled=false", "spring.jpa.show-sql=false"})
+class RoomServiceConcurrencyTest {
+
+    private static final int ROOMS = 3;
+    private static final int THREADS = 48;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private BookingSlotRepository bookingSlotRepository;
+
+    private final LocalDate BASE_DATE = LocalDate.now().plusDays(10);
+
+    private Hotel hotel;
+    private final List<Room> rooms = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        hotel = new Hotel();
+        hotel.setName("Concurrency Hotel");
+        hotel.setAddress("Test Street 1");
+        hotel = hotelRepository.save(hotel);
+
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = new Room();
+            room.setNumber("C" + i);
+            room.setType("STANDARD");
+            room.setPrice(100.0);
+            room.setHotel(hotel);
+            rooms.add(roomRepository.save(room));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Room room : rooms) {
+            bookingSlotRepository.deleteAll(bookingSlotRepository.findConflictingSlots(
+                    room.getId(), BASE_DATE.minusDays(1), BASE_DATE.plusDays(30)));
+        }
+        roomRepository.deleteAll(rooms);
+        hotelRepository.delete(hotel);
+    }
+
+    /**
+     * Тест для метода: confirmAvailability
+     * Назначение: Подтверждение доступности с временной блокировкой
+     * Сценарий: Много параллельных запросов на пересекающиеся, но не совпадающие периоды
+     * Ожидаемый результат:
+     * - Для каждого номера успешен ровно один запрос
+     * - Остальные получают false (занято) или RoomBusyException (не дождались блокировки, можно повторить)
+     * - В БД нет пересекающихся активных слотов
+     * Бизнес-логика:
+     * 1. Строка номера блокируется на время проверки конфликтов и вставки слота
+     * 2. Уникального ключа по периоду нет - пересечения исключает только блокировка номера
+     */
+    @Test
+    void confirmAvailability_WithConcurrentOverlappingRequests_ShouldNeverDoubleBook() throws Exception {
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                Long roomId = rooms.get(i % ROOMS).getId();
+                LocalDate startDate = BASE_DATE.plusDays((i / ROOMS) % 4);
+                LocalDate endDate = startDate.plusDays(4);
+                long bookingId = 1000L + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return roomService.confirmAvailability(roomId, startDate, endDate, bookingId);
+                    } catch (RoomBusyException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int confirmed = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    confirmed++;
+                }
+            }
+            assertEquals(ROOMS, confirmed);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Room room : rooms) {
+            List<BookingSlot> slots = bookingSlotRepository.findConflictingSlots(
+                    room.getId(), BASE_DATE, BASE_DATE.plusDays(8));
+            assertEquals(1, slots.size(), "Room " + room.getId() + " is double-booked: " + slots);
+            assertEquals(1, roomRepository.findById(room.getId()).orElseThrow().getTimesBooked());
+        }
+    }
+
+    /**
+     * Тест для методов: cancelBookings, confirmAvailability
+     * Назначение: Повторное бронирование после отмены
+     * Сценарий: Бронирование отменено (слот остается в статусе CANCELLED), затем тот же номер
+     * бронируется на те же даты
+     * Ожидаемый результат:
+     * - Повторное бронирование успешно, отмененный слот не мешает вставке нового
+     */
+    @Test
+    void confirmAvailability_AfterCancel_ShouldBookSameRoomAndDatesAgain() {
+
+        Long roomId = rooms.get(0).getId();
+        LocalDate startDate = BASE_DATE;
+        LocalDate endDate = BASE_DATE.plusDays(3);
+
+        try {
+            assertTrue(roomService.confirmAvailability(roomId, startDate, endDate, 3001L));
+            roomService.cancelBookings(List.of(3001L));
+            assertEquals("CANCELLED", bookingSlotRepository.findByBookingId(3001L).get(0).getStatus());
+
+            assertTrue(roomService.confirmAvailability(roomId, startDate, endDate, 3002L));
+
+            List<BookingSlot> active = bookingSlotRepository.findConflictingSlots(roomId, startDate, endDate);
+            assertEquals(1, active.size());
+            assertEquals(3002L, active.get(0).getBookingId());
+        } finally {
+            bookingSlotRepository.deleteAll(bookingSlotRepository.findByBookingIdIn(List.of(3001L, 3002L)));
+        }
+    }
+
+    /**
+     * Тест для метода: findAvailableRooms (постранично)
+     * Назначение: Стабильная постраничная выдача доступных номеров
+     * Сценарий: Номера отеля запрашиваются страницами по одному с сортировкой по id
+     * Ожидаемый результат:
+     * - Страницы не повторяют и не пропускают номера, порядок совпадает с порядком id
+     */
+    @Test
+    void findAvailableRooms_PagedById_ShouldReturnEachRoomExactlyOnce() {
+
+        List<Long> pagedIds = new ArrayList<>();
+        for (int page = 0; page < ROOMS; page++) {
+            Page<Room> result = roomService.findAvailableRooms(hotel.getId(), BASE_DATE, BASE_DATE.plusDays(2),
+                    PageRequest.of(page, 1, Sort.by("id")));
+            assertEquals(ROOMS, result.getTotalElements());
+            result.forEach(room -> pagedIds.add(room.getId()));
+        }
+
+        List<Long> expected = new ArrayList<>();
+        rooms.forEach(room -> expected.add(room.getId()));
+        Collections.sort(expected);
+        assertEquals(expected, pagedIds);
+    }
+
+    /**
+     * Тест для метода: reserveRooms
+     * Назначение: Групповое резервирование номеров
+     * Сценарий: Параллельные группы на одни и те же номера, перечисленные в разном порядке
+     * Ожидаемый результат:
+     * - Нет взаимной блокировки: все запросы завершаются
+     * - Каждый номер зарезервирован не более одного раза, группа резервируется целиком или никак
+     */
+    @Test
+    void reserveRooms_WithConcurrentOverlappingGroups_ShouldNeverDoubleBook() throws Exception {
+
+        List<Long> roomIds = rooms.stream().map(Room::getId).toList();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                List<Long> group = new ArrayList<>(roomIds);
+                if (i % 2 == 1) {
+                    Collections.reverse(group);
+                }
+                Map<Long, Long> bookingIdsByRoom = new LinkedHashMap<>();
+                for (Long roomId : group) {
+                    bookingIdsByRoom.put(roomId, 2000L + i * ROOMS + bookingIdsByRoom.size());
+                }
+                LocalDate startDate = BASE_DATE.plusDays(i % 3);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return roomService.reserveRooms(startDate, startDate.plusDays(3), bookingIdsByRoom);
+                }));
+            }
+            start.countDown();
+
+            int reservedGroups = 0;
+            for (Future<List<Long>> result : results) {
+                if (result.get(30, TimeUnit.SECONDS).isEmpty()) {
+                    reservedGroups++;
+                }
+            }
+            assertEquals(1, reservedGroups);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Room room : rooms) {
+            assertEquals(1, bookingSlotRepository.findConflictingSlots(
+                    room.getId(), BASE_DATE, BASE_DATE.plusDays(8)).size());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.hotelbooking.hotel.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Тот же нагрузочный сценарий при посуточном учете занятости (hotel.inventory.mode=nights)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"eureka.client.enabled=false", "spring.jpa.show-sql=false", "hotel.inventory.mode=nights",
+                "spring.datasource.url=jdbc:h2:mem:hoteldb-nights"})
+class RoomServiceNightInventoryConcurrencyTest extends RoomServiceConcurrencyTest {
+}
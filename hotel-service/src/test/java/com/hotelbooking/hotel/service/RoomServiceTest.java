@@ -1,5 +1,6 @@
 package com.hotelbooking.hotel.service;
 
+import com.hotelbooking.hotel.dto.BatchAvailabilityRequest;
 import com.hotelbooking.hotel.entity.BookingSlot;
 import com.hotelbooking.hotel.entity.Room;
 import com.hotelbooking.hotel.repository.BookingSlotRepository;
@@ -10,16 +11,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +43,18 @@ class RoomServiceTest {
     @Mock
     private BookingSlotRepository bookingSlotRepository;
 
+    @Mock
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private OccupancyRollupService occupancyRollup;
+
+    @Mock
+    private RoomLockManager roomLocks;
+
+    @Mock
+    private RoomNightInventory roomNights;
+
     @InjectMocks
     private RoomService roomService;
 
@@ -158,24 +182,97 @@ class RoomServiceTest {
         verify(bookingSlotRepository).hasDateConflict(ROOM_ID, START_DATE, END_DATE);
     }
 
+    /**
+     * Тест для метода: checkAvailability
+     * Назначение: Проверка доступности нескольких номеров одним запросом
+     * Сценарий: Период не покрыт индексом, часть номеров занята, недоступна или не существует
+     * Ожидаемый результат:
+     * - Возвращает доступность для каждого запрошенного номера в исходном порядке
+     * - Номера загружаются одним запросом, конфликты - одним запросом на каждый период
+     * Бизнес-логика:
+     * 1. Недоступные и несуществующие номера сразу отмечаются как занятые
+     * 2. Номер доступен, только если свободен во всех периодах
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkAvailability_WithSeveralRoomsAndRanges_ShouldUseBulkQueries() {
+
+        Room closedRoom = new Room(); closedRoom.setId(2L); closedRoom.setAvailable(false);
+        Room bookedLater = new Room(); bookedLater.setId(3L); bookedLater.setAvailable(true);
+        BatchAvailabilityRequest.DateRange first = range(START_DATE, END_DATE);
+        BatchAvailabilityRequest.DateRange second = range(END_DATE, END_DATE.plusDays(2));
+
+        when(roomRepository.findAllById(any(Iterable.class))).thenReturn(List.of(testRoom, closedRoom, bookedLater));
+        when(bookingSlotRepository.findConflictingRoomIds(any(), eq(START_DATE), eq(END_DATE))).thenReturn(Set.of());
+        when(bookingSlotRepository.findConflictingRoomIds(any(), eq(END_DATE), eq(END_DATE.plusDays(2))))
+                .thenReturn(Set.of(3L));
+
+        Map<Long, Boolean> result = roomService.checkAvailability(List.of(3L, ROOM_ID, 2L, 99L), List.of(first, second));
+
+        assertEquals(List.of(3L, ROOM_ID, 2L, 99L), List.copyOf(result.keySet()));
+        assertEquals(List.of(false, true, false, false), List.copyOf(result.values()));
+        verify(roomRepository).findAllById(any(Iterable.class));
+        verify(roomRepository, never()).findById(anyLong());
+        verify(bookingSlotRepository, times(2)).findConflictingRoomIds(any(), any(), any());
+    }
+
+    /**
+     * Тест для метода: checkAvailability
+     * Назначение: Проверка доступности нескольких номеров одним запросом
+     * Сценарий: Период покрыт индексом занятости
+     * Ожидаемый результат:
+     * - Конфликты определяются по индексу без запросов к booking_slots
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkAvailability_WithIndexCoverage_ShouldNotQuerySlots() {
+
+        when(roomRepository.findAllById(any(Iterable.class))).thenReturn(List.of(testRoom));
+        when(availabilityIndex.covers(START_DATE, END_DATE)).thenReturn(true);
+        when(availabilityIndex.isFree(ROOM_ID, START_DATE, END_DATE)).thenReturn(false);
+
+        Map<Long, Boolean> result = roomService.checkAvailability(List.of(ROOM_ID), List.of(range(START_DATE, END_DATE)));
+
+        assertFalse(result.get(ROOM_ID));
+        verify(bookingSlotRepository, never()).findConflictingRoomIds(any(), any(), any());
+    }
+
+    /**
+     * Тест для метода: checkAvailability
+     * Назначение: Проверка доступности нескольких номеров одним запросом
+     * Сценарий: Слишком много номеров или нет периодов
+     * Ожидаемый результат:
+     * - Выбрасывает IllegalArgumentException
+     */
+    @Test
+    void checkAvailability_WithInvalidRequest_ShouldThrowException() {
+
+        List<Long> tooManyRooms = LongStream.rangeClosed(1, 501).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.checkAvailability(tooManyRooms, List.of(range(START_DATE, END_DATE))));
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.checkAvailability(List.of(ROOM_ID), List.of()));
+    }
+
     /**
      * Тест для метода: confirmAvailability
-     * Назначение: Подтверждение доступности с временной блокировкой
+     * Назначение: Подтверждение доступности и бронирование номера
      * Сценарий: Успешное подтверждение доступности
      * Ожидаемый результат:
      * - Возвращает true
-     * - Создается временная блокировка
+     * - Создается подтвержденный слот, который не снимается по таймауту блокировки
      * - Увеличивается счетчик бронирований
      * Бизнес-логика:
      * 1. Проверяет базовую доступность номера
      * 2. Проверяет конфликты по датам
-     * 3. Создает временный слот бронирования
+     * 3. Создает слот CONFIRMED и учитывает его в сводке загрузки
      * 4. Увеличивает счетчик timesBooked
      */
     @Test
     void confirmAvailability_WithAvailableRoom_ShouldReturnTrueAndCreateReservation() {
 
-        when(roomRepository.findById(ROOM_ID)).thenReturn(Optional.of(testRoom));
+        when(roomRepository.findByIdForUpdate(ROOM_ID)).thenReturn(Optional.of(testRoom));
         when(bookingSlotRepository.hasDateConflict(ROOM_ID, START_DATE, END_DATE)).thenReturn(false);
         when(bookingSlotRepository.save(any(BookingSlot.class))).thenReturn(testBookingSlot);
         when(roomRepository.save(testRoom)).thenReturn(testRoom);
@@ -183,10 +280,14 @@ class RoomServiceTest {
         boolean result = roomService.confirmAvailability(ROOM_ID, START_DATE, END_DATE, BOOKING_ID);
 
         assertTrue(result);
-        verify(roomRepository).findById(ROOM_ID);
+        verify(roomLocks).lockUntilTransactionEnds(ROOM_ID);
+        verify(roomRepository).findByIdForUpdate(ROOM_ID);
         verify(bookingSlotRepository).hasDateConflict(ROOM_ID, START_DATE, END_DATE);
-        verify(bookingSlotRepository).save(any(BookingSlot.class));
+        verify(bookingSlotRepository).save(argThat(slot -> "CONFIRMED".equals(slot.getStatus())));
         verify(roomRepository).save(testRoom);
+        verify(availabilityIndex).occupy(ROOM_ID, START_DATE, END_DATE);
+        verify(occupancyRollup).slotConfirmed(argThat(slot ->
+                ROOM_ID.equals(slot.getRoomId()) && testRoom.getPrice().equals(slot.getNightlyPrice())));
         assertEquals(6, testRoom.getTimesBooked()); // 5 + 1
     }
 
@@ -206,12 +307,12 @@ class RoomServiceTest {
     void confirmAvailability_WithUnavailableRoom_ShouldReturnFalse() {
 
         testRoom.setAvailable(false);
-        when(roomRepository.findById(ROOM_ID)).thenReturn(Optional.of(testRoom));
+        when(roomRepository.findByIdForUpdate(ROOM_ID)).thenReturn(Optional.of(testRoom));
 
         boolean result = roomService.confirmAvailability(ROOM_ID, START_DATE, END_DATE, BOOKING_ID);
 
         assertFalse(result);
-        verify(roomRepository).findById(ROOM_ID);
+        verify(roomRepository).findByIdForUpdate(ROOM_ID);
         verify(bookingSlotRepository, never()).hasDateConflict(anyLong(), any(), any());
         verify(bookingSlotRepository, never()).save(any(BookingSlot.class));
     }
@@ -231,17 +332,186 @@ class RoomServiceTest {
     @Test
     void confirmAvailability_WithDateConflict_ShouldReturnFalse() {
 
-        when(roomRepository.findById(ROOM_ID)).thenReturn(Optional.of(testRoom));
+        when(roomRepository.findByIdForUpdate(ROOM_ID)).thenReturn(Optional.of(testRoom));
         when(bookingSlotRepository.hasDateConflict(ROOM_ID, START_DATE, END_DATE)).thenReturn(true);
 
         boolean result = roomService.confirmAvailability(ROOM_ID, START_DATE, END_DATE, BOOKING_ID);
 
         assertFalse(result);
-        verify(roomRepository).findById(ROOM_ID);
+        verify(roomRepository).findByIdForUpdate(ROOM_ID);
         verify(bookingSlotRepository).hasDateConflict(ROOM_ID, START_DATE, END_DATE);
         verify(bookingSlotRepository, never()).save(any(BookingSlot.class));
     }
 
+    /**
+     * Тест для метода: confirmAvailability
+     * Назначение: Подтверждение доступности с временной блокировкой
+     * Сценарий: Номер занят другим запросом дольше таймаута блокировки
+     * Ожидаемый результат:
+     * - Пробрасывает RoomBusyException (повторяемая ошибка), а не false - номер не считается занятым на даты
+     * - Не обращается к БД
+     */
+    @Test
+    void confirmAvailability_WhenRoomLockTimesOut_ShouldThrowRoomBusy() {
+
+        doThrow(new RoomBusyException("Timed out waiting for lock on room 1, please retry"))
+                .when(roomLocks).lockUntilTransactionEnds(ROOM_ID);
+
+        assertThrows(RoomBusyException.class,
+                () -> roomService.confirmAvailability(ROOM_ID, START_DATE, END_DATE, BOOKING_ID));
+
+        verify(roomRepository, never()).findByIdForUpdate(anyLong());
+        verify(bookingSlotRepository, never()).save(any(BookingSlot.class));
+    }
+
+    /**
+     * Тест для метода: confirmAvailability
+     * Назначение: Подтверждение доступности с временной блокировкой
+     * Сценарий: Включен посуточный учет занятости
+     * Ожидаемый результат:
+     * - Конфликт проверяется по занятым ночам, а не по пересечению диапазонов
+     * - Ночи нового слота занимаются в room_nights
+     */
+    @Test
+    void confirmAvailability_WithNightInventory_ShouldCheckAndClaimNights() {
+
+        when(roomNights.isReady()).thenReturn(true);
+        when(roomRepository.findByIdForUpdate(ROOM_ID)).thenReturn(Optional.of(testRoom));
+        when(roomNights.hasConflict(ROOM_ID, START_DATE, END_DATE)).thenReturn(false);
+        when(bookingSlotRepository.save(any(BookingSlot.class))).thenReturn(testBookingSlot);
+
+        boolean result = roomService.confirmAvailability(ROOM_ID, START_DATE, END_DATE, BOOKING_ID);
+
+        assertTrue(result);
+        verify(roomNights).claim(testBookingSlot);
+        verify(bookingSlotRepository, never()).hasDateConflict(anyLong(), any(), any());
+    }
+
+    /**
+     * Тест для метода: reserveRooms
+     * Назначение: Групповое резервирование номеров
+     * Сценарий: Все номера свободны
+     * Ожидаемый результат:
+     * - Возвращает пустой список недоступных номеров
+     * - Создает слот CONFIRMED на каждый номер со своим bookingId
+     * Бизнес-логика:
+     * 1. Блокирует все номера группы и читает их одним запросом FOR UPDATE
+     * 2. Проверяет конфликты одним запросом IN (...)
+     */
+    @Test
+    void reserveRooms_WithAllRoomsFree_ShouldReserveEveryRoom() {
+
+        Room secondRoom = new Room(); secondRoom.setId(2L); secondRoom.setAvailable(true); secondRoom.setTimesBooked(0);
+        Map<Long, Long> bookingIdsByRoom = Map.of(ROOM_ID, 10L, 2L, 11L);
+
+        when(roomRepository.findAllByIdForUpdate(bookingIdsByRoom.keySet())).thenReturn(List.of(testRoom, secondRoom));
+        when(bookingSlotRepository.findConflictingRoomIds(any(), eq(START_DATE), eq(END_DATE))).thenReturn(Set.of());
+        when(bookingSlotRepository.save(any(BookingSlot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Long> unavailable = roomService.reserveRooms(START_DATE, END_DATE, bookingIdsByRoom);
+
+        assertTrue(unavailable.isEmpty());
+        verify(roomLocks).lockAllUntilTransactionEnds(bookingIdsByRoom.keySet());
+        verify(bookingSlotRepository, times(2)).save(argThat(slot ->
+                bookingIdsByRoom.get(slot.getRoomId()).equals(slot.getBookingId()) && "CONFIRMED".equals(slot.getStatus())));
+        verify(availabilityIndex).occupy(2L, START_DATE, END_DATE);
+        verify(occupancyRollup).slotConfirmed(argThat(slot -> Long.valueOf(2L).equals(slot.getRoomId())));
+        assertEquals(1, secondRoom.getTimesBooked());
+    }
+
+    /**
+     * Тест для метода: reserveRooms
+     * Назначение: Групповое резервирование номеров
+     * Сценарий: Один номер группы занят, другой не существует
+     * Ожидаемый результат:
+     * - Возвращает недоступные номера
+     * - Не создает ни одного слота (все или ничего)
+     */
+    @Test
+    void reserveRooms_WithOneRoomBusy_ShouldReserveNothing() {
+
+        Room busyRoom = new Room(); busyRoom.setId(2L); busyRoom.setAvailable(true);
+        Map<Long, Long> bookingIdsByRoom = Map.of(ROOM_ID, 10L, 2L, 11L, 99L, 12L);
+
+        when(roomRepository.findAllByIdForUpdate(bookingIdsByRoom.keySet())).thenReturn(List.of(testRoom, busyRoom));
+        when(bookingSlotRepository.findConflictingRoomIds(any(), eq(START_DATE), eq(END_DATE))).thenReturn(Set.of(2L));
+
+        List<Long> unavailable = roomService.reserveRooms(START_DATE, END_DATE, bookingIdsByRoom);
+
+        assertEquals(List.of(2L, 99L), unavailable);
+        verify(bookingSlotRepository, never()).save(any(BookingSlot.class));
+        verify(availabilityIndex, never()).occupy(anyLong(), any(), any());
+        verify(roomRepository, never()).saveAll(any());
+    }
+
+    /**
+     * Тест для метода: releaseBookings
+     * Назначение: Компенсация неудачного бронирования в Booking Service
+     * Сценарий: У бронирований есть временный, подтвержденный и отмененный слоты
+     * Ожидаемый результат:
+     * - Удаляются временный и подтвержденный слоты, отмененный не трогается
+     * - Подтвержденный слот вычитается из сводки загрузки
+     * - Номера блокируются перед удалением
+     */
+    @Test
+    void releaseBookings_ShouldDeleteActiveSlots() {
+
+        BookingSlot confirmedSlot = new BookingSlot();
+        confirmedSlot.setRoomId(2L);
+        confirmedSlot.setBookingId(11L);
+        confirmedSlot.setStartDate(START_DATE);
+        confirmedSlot.setEndDate(END_DATE);
+        confirmedSlot.setStatus("CONFIRMED");
+        BookingSlot cancelledSlot = new BookingSlot();
+        cancelledSlot.setRoomId(3L);
+        cancelledSlot.setBookingId(12L);
+        cancelledSlot.setStatus("CANCELLED");
+        List<Long> bookingIds = List.of(BOOKING_ID, 11L, 12L);
+
+        when(bookingSlotRepository.findByBookingIdIn(bookingIds))
+                .thenReturn(List.of(testBookingSlot, confirmedSlot, cancelledSlot));
+
+        roomService.releaseBookings(bookingIds);
+
+        verify(roomLocks).lockAllUntilTransactionEnds(Set.of(ROOM_ID, 2L, 3L));
+        verify(bookingSlotRepository).deleteAll(List.of(testBookingSlot, confirmedSlot));
+        verify(availabilityIndex).release(ROOM_ID, START_DATE, END_DATE);
+        verify(availabilityIndex).release(2L, START_DATE, END_DATE);
+        verify(occupancyRollup, times(1)).slotCancelled(any());
+        verify(occupancyRollup).slotCancelled(confirmedSlot);
+        verify(roomNights).release(List.of(testBookingSlot, confirmedSlot));
+    }
+
+    /**
+     * Тест для метода: cancelBookings
+     * Назначение: Групповая отмена бронирований (доставка из outbox Booking Service)
+     * Сценарий: У бронирований есть подтвержденный и уже отмененный слоты
+     * Ожидаемый результат:
+     * - Подтвержденный слот переводится в CANCELLED и освобождает номер
+     * - Уже отмененный слот не изменяется
+     */
+    @Test
+    void cancelBookings_ShouldCancelOnlyActiveSlots() {
+
+        testBookingSlot.setStatus("CONFIRMED");
+        BookingSlot cancelledSlot = new BookingSlot();
+        cancelledSlot.setRoomId(2L);
+        cancelledSlot.setBookingId(11L);
+        cancelledSlot.setStatus("CANCELLED");
+        List<Long> bookingIds = List.of(BOOKING_ID, 11L);
+
+        when(bookingSlotRepository.findByBookingIdIn(bookingIds)).thenReturn(List.of(testBookingSlot, cancelledSlot));
+
+        roomService.cancelBookings(bookingIds);
+
+        assertEquals("CANCELLED", testBookingSlot.getStatus());
+        verify(roomLocks).lockAllUntilTransactionEnds(Set.of(ROOM_ID, 2L));
+        verify(bookingSlotRepository).saveAll(List.of(testBookingSlot));
+        verify(occupancyRollup).slotCancelled(testBookingSlot);
+        verify(availabilityIndex).release(ROOM_ID, START_DATE, END_DATE);
+        verify(roomNights).release(List.of(testBookingSlot));
+    }
+
     /**
      * Тест для метода: releaseRoom
      * Назначение: Освобождение номера (компенсирующее действие)
@@ -263,6 +533,8 @@ class RoomServiceTest {
 
         verify(bookingSlotRepository).findByBookingId(BOOKING_ID);
         verify(bookingSlotRepository).delete(testBookingSlot);
+        verify(availabilityIndex).release(ROOM_ID, START_DATE, END_DATE);
+        verify(roomNights).release(List.of(testBookingSlot));
     }
 
     /**
@@ -309,6 +581,7 @@ class RoomServiceTest {
 
         verify(bookingSlotRepository).findByBookingId(BOOKING_ID);
         verify(bookingSlotRepository).save(testBookingSlot);
+        verify(occupancyRollup).slotConfirmed(testBookingSlot);
         assertEquals("CONFIRMED", testBookingSlot.getStatus());
     }
 
@@ -330,6 +603,9 @@ class RoomServiceTest {
         BookingSlot slot1 = new BookingSlot();
         slot1.setStatus("RESERVED");
         BookingSlot slot2 = new BookingSlot();
+        slot2.setRoomId(ROOM_ID);
+        slot2.setStartDate(START_DATE);
+        slot2.setEndDate(END_DATE);
         slot2.setStatus("CONFIRMED");
 
         when(bookingSlotRepository.findByBookingId(BOOKING_ID)).thenReturn(Arrays.asList(slot1, slot2));
@@ -341,19 +617,21 @@ class RoomServiceTest {
         verify(bookingSlotRepository, times(2)).save(any(BookingSlot.class));
         assertEquals("CANCELLED", slot1.getStatus());
         assertEquals("CANCELLED", slot2.getStatus());
+        verify(occupancyRollup).slotCancelled(slot2);
+        verifyNoMoreInteractions(occupancyRollup);
     }
 
     /**
      * Тест для метода: findAvailableRooms
      * Назначение: Поиск доступных номеров на указанные даты
-     * Сценарий: Найдены доступные номера без конфликтов
+     * Сценарий: Период не покрыт индексом - поиск одним запросом в БД
      * Ожидаемый результат:
-     * - Возвращает список доступных номеров
-     * - Фильтрует номера с конфликтами по датам
+     * - Возвращает список доступных номеров из запроса NOT EXISTS
+     * - Не выполняет запросов hasDateConflict по каждому номеру
      * Бизнес-логика:
-     * 1. Получает все доступные номера
-     * 2. Фильтрует номера без конфликтов по датам
-     * 3. Возвращает отфильтрованный список
+     * 1. Проверяет, покрывает ли индекс период
+     * 2. Выполняет единый запрос доступных номеров
+     * 3. Возвращает полученный список
      */
     @Test
     void findAvailableRooms_WithAvailableRooms_ShouldReturnFilteredList() {
@@ -362,23 +640,73 @@ class RoomServiceTest {
         room1.setId(1L);
         room1.setAvailable(true);
 
+        when(roomRepository.findAvailableRoomsForDates(isNull(), eq(START_DATE), eq(END_DATE), any(Sort.class)))
+                .thenReturn(List.of(room1));
+
+        List<Room> result = roomService.findAvailableRooms(START_DATE, END_DATE);
+
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getId());
+        verify(roomRepository, never()).findByAvailableTrue();
+        verify(bookingSlotRepository, never()).hasDateConflict(anyLong(), any(), any());
+    }
+
+    /**
+     * Тест для метода: findAvailableRooms (постраничный)
+     * Назначение: Постраничный поиск доступных номеров отеля на даты
+     * Сценарий: Передан фильтр по отелю и параметры страницы
+     * Ожидаемый результат:
+     * - Возвращает страницу из запроса к репозиторию
+     * - Фильтр по отелю и пагинация передаются в запрос
+     */
+    @Test
+    void findAvailableRooms_WithHotelFilterAndPage_ShouldDelegateToSingleQuery() {
+
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<Room> page = new PageImpl<>(List.of(testRoom), pageable, 1);
+
+        when(roomRepository.findAvailableRoomsForDates(10L, START_DATE, END_DATE, pageable)).thenReturn(page);
+
+        Page<Room> result = roomService.findAvailableRooms(10L, START_DATE, END_DATE, pageable);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(ROOM_ID, result.getContent().get(0).getId());
+        verify(bookingSlotRepository, never()).hasDateConflict(anyLong(), any(), any());
+    }
+
+    /**
+     * Тест для метода: findAvailableRooms
+     * Назначение: Поиск доступных номеров на указанные даты
+     * Сценарий: Период покрыт in-memory индексом занятости
+     * Ожидаемый результат:
+     * - Возвращает номера, свободные по индексу
+     * - Не выполняет запросов hasDateConflict в БД
+     * Бизнес-логика:
+     * 1. Получает все доступные номера
+     * 2. Фильтрует номера по битовым маскам индекса
+     */
+    @Test
+    void findAvailableRooms_WhenIndexCoversPeriod_ShouldNotQueryConflicts() {
+
+        Room room1 = new Room();
+        room1.setId(1L);
+        room1.setAvailable(true);
+
         Room room2 = new Room();
         room2.setId(2L);
         room2.setAvailable(true);
 
-        List<Room> allRooms = Arrays.asList(room1, room2);
-
-        when(roomRepository.findByAvailableTrue()).thenReturn(allRooms);
-        when(bookingSlotRepository.hasDateConflict(1L, START_DATE, END_DATE)).thenReturn(false);
-        when(bookingSlotRepository.hasDateConflict(2L, START_DATE, END_DATE)).thenReturn(true);
+        when(roomRepository.findByAvailableTrue()).thenReturn(Arrays.asList(room1, room2));
+        when(availabilityIndex.covers(START_DATE, END_DATE)).thenReturn(true);
+        when(availabilityIndex.isFree(1L, START_DATE, END_DATE)).thenReturn(false);
+        when(availabilityIndex.isFree(2L, START_DATE, END_DATE)).thenReturn(true);
 
         List<Room> result = roomService.findAvailableRooms(START_DATE, END_DATE);
 
-        assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals(1L, result.get(0).getId());
-        verify(roomRepository).findByAvailableTrue();
-        verify(bookingSlotRepository, times(2)).hasDateConflict(anyLong(), eq(START_DATE), eq(END_DATE));
+        assertEquals(2L, result.get(0).getId());
+        verify(bookingSlotRepository, never()).hasDateConflict(anyLong(), any(), any());
     }
 
     /**
@@ -389,7 +717,7 @@ class RoomServiceTest {
      * - Возвращает отсортированный список номеров
      * - Сортирует по количеству бронирований (наименее популярные сначала)
      * Бизнес-логика:
-     * 1. Получает доступные номера на даты
+     * 1. Получает доступные номера на даты по индексу
      * 2. Сортирует по timesBooked (возрастание)
      * 3. Возвращает отсортированный список
      */
@@ -410,8 +738,9 @@ class RoomServiceTest {
 
         List<Room> availableRooms = Arrays.asList(room1, room2, room3);
 
+        when(availabilityIndex.covers(START_DATE, END_DATE)).thenReturn(true);
+        when(availabilityIndex.isFree(anyLong(), eq(START_DATE), eq(END_DATE))).thenReturn(true);
         when(roomRepository.findByAvailableTrue()).thenReturn(availableRooms);
-        when(bookingSlotRepository.hasDateConflict(anyLong(), any(), any())).thenReturn(false);
 
         List<Room> result = roomService.findRecommendedRooms(START_DATE, END_DATE);
 
@@ -422,6 +751,26 @@ class RoomServiceTest {
         assertEquals(3L, result.get(2).getId()); // Most booked (15)
     }
 
+    /**
+     * Тест для метода: findRecommendedRooms
+     * Назначение: Получение рекомендованных номеров на указанные даты
+     * Сценарий: Период не покрыт индексом
+     * Ожидаемый результат:
+     * - Сортировка по timesBooked передается в единый запрос к БД
+     */
+    @Test
+    void findRecommendedRooms_WhenIndexDoesNotCoverPeriod_ShouldSortInQuery() {
+
+        when(roomRepository.findAvailableRoomsForDates(isNull(), eq(START_DATE), eq(END_DATE), any(Sort.class)))
+                .thenReturn(List.of(testRoom));
+
+        List<Room> result = roomService.findRecommendedRooms(START_DATE, END_DATE);
+
+        assertEquals(1, result.size());
+        verify(roomRepository).findAvailableRoomsForDates(null, START_DATE, END_DATE, Sort.by("timesBooked", "id"));
+        verify(bookingSlotRepository, never()).hasDateConflict(anyLong(), any(), any());
+    }
+
     /**
      * Тест для метода: findBestAvailableRoom
      * Назначение: Автоматический подбор лучшей комнаты
@@ -445,10 +794,9 @@ class RoomServiceTest {
         popular.setId(2L);
         popular.setTimesBooked(10);
 
-        List<Room> recommendedRooms = Arrays.asList(leastPopular, popular);
-
-        when(roomRepository.findByAvailableTrue()).thenReturn(recommendedRooms);
-        when(bookingSlotRepository.hasDateConflict(anyLong(), any(), any())).thenReturn(false);
+        when(roomRepository.findTopAvailableRoomsForDates(START_DATE, END_DATE,
+                PageRequest.of(0, 1, Sort.by("timesBooked", "id"))))
+                .thenReturn(List.of(leastPopular));
 
         Room result = roomService.findBestAvailableRoom(START_DATE, END_DATE);
 
@@ -471,7 +819,8 @@ class RoomServiceTest {
     @Test
     void findBestAvailableRoom_WithNoAvailableRooms_ShouldThrowException() {
 
-        when(roomRepository.findByAvailableTrue()).thenReturn(List.of());
+        when(roomRepository.findTopAvailableRoomsForDates(eq(START_DATE), eq(END_DATE), any(Pageable.class)))
+                .thenReturn(List.of());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> roomService.findBestAvailableRoom(START_DATE, END_DATE));
@@ -487,23 +836,19 @@ class RoomServiceTest {
      * - Возвращает ограниченное количество комнат
      * - Сохраняет порядок рекомендаций
      * Бизнес-логика:
-     * 1. Получает рекомендованные номера
-     * 2. Ограничивает результат указанным лимитом
-     * 3. Возвращает подсписок
+     * 1. Период не покрыт индексом - запрос в БД с ORDER BY times_booked и LIMIT
+     * 2. Возвращает не более limit номеров
      */
     @Test
     void findTopAvailableRooms_WithLimit_ShouldReturnLimitedList() {
 
         Room room1 = new Room(); room1.setId(1L); room1.setTimesBooked(1);
         Room room2 = new Room(); room2.setId(2L); room2.setTimesBooked(2);
-        Room room3 = new Room(); room3.setId(3L); room3.setTimesBooked(3);
-        Room room4 = new Room(); room4.setId(4L); room4.setTimesBooked(4);
-
-        List<Room> allRooms = Arrays.asList(room1, room2, room3, room4);
         int limit = 2;
 
-        when(roomRepository.findByAvailableTrue()).thenReturn(allRooms);
-        when(bookingSlotRepository.hasDateConflict(anyLong(), any(), any())).thenReturn(false);
+        when(roomRepository.findTopAvailableRoomsForDates(START_DATE, END_DATE,
+                PageRequest.of(0, limit, Sort.by("timesBooked", "id"))))
+                .thenReturn(Arrays.asList(room1, room2));
 
         List<Room> result = roomService.findTopAvailableRooms(START_DATE, END_DATE, limit);
 
@@ -511,6 +856,74 @@ class RoomServiceTest {
         assertEquals(limit, result.size());
         assertEquals(1L, result.get(0).getId());
         assertEquals(2L, result.get(1).getId());
+        verify(roomRepository, never()).findAvailableRoomsForDates(any(), any(), any(), any(Sort.class));
+    }
+
+    /**
+     * Тест для метода: findTopAvailableRooms
+     * Назначение: Найти несколько лучших вариантов для выбора
+     * Сценарий: Период покрыт индексом занятости
+     * Ожидаемый результат:
+     * - Возвращает limit наименее популярных свободных номеров в порядке возрастания timesBooked
+     * - Занятые номера не попадают в результат
+     * Бизнес-логика:
+     * 1. Свободные номера проходят через ограниченную кучу размера limit
+     * 2. Результат сортируется только среди limit элементов
+     */
+    @Test
+    void findTopAvailableRooms_WithIndexCoverage_ShouldKeepBoundedHeap() {
+
+        Room room1 = new Room(); room1.setId(1L); room1.setTimesBooked(5);
+        Room room2 = new Room(); room2.setId(2L); room2.setTimesBooked(1);
+        Room room3 = new Room(); room3.setId(3L); room3.setTimesBooked(0);
+        Room room4 = new Room(); room4.setId(4L); room4.setTimesBooked(3);
+
+        when(availabilityIndex.covers(START_DATE, END_DATE)).thenReturn(true);
+        when(roomRepository.findByAvailableTrue()).thenReturn(Arrays.asList(room1, room2, room3, room4));
+        when(availabilityIndex.isFree(anyLong(), eq(START_DATE), eq(END_DATE))).thenReturn(true);
+        when(availabilityIndex.isFree(3L, START_DATE, END_DATE)).thenReturn(false);
+
+        List<Room> result = roomService.findTopAvailableRooms(START_DATE, END_DATE, 2);
+
+        assertEquals(List.of(2L, 4L), result.stream().map(Room::getId).toList());
+        verify(roomRepository, never()).findTopAvailableRoomsForDates(any(), any(), any());
+    }
+
+    /**
+     * Тест для метода: findTopAvailableRooms
+     * Назначение: Найти несколько лучших вариантов для выбора
+     * Сценарий: Очень большой limit при покрытии индексом
+     * Ожидаемый результат:
+     * - Куча не создается заранее размером limit, переполнения limit + 1 нет
+     * - Возвращаются все свободные номера
+     */
+    @Test
+    void findTopAvailableRooms_WithMaxIntLimit_ShouldNotPresizeHeap() {
+
+        Room room1 = new Room(); room1.setId(1L); room1.setTimesBooked(5);
+        Room room2 = new Room(); room2.setId(2L); room2.setTimesBooked(1);
+
+        when(availabilityIndex.covers(START_DATE, END_DATE)).thenReturn(true);
+        when(roomRepository.findByAvailableTrue()).thenReturn(Arrays.asList(room1, room2));
+        when(availabilityIndex.isFree(anyLong(), eq(START_DATE), eq(END_DATE))).thenReturn(true);
+
+        List<Room> result = roomService.findTopAvailableRooms(START_DATE, END_DATE, Integer.MAX_VALUE);
+
+        assertEquals(List.of(2L, 1L), result.stream().map(Room::getId).toList());
+    }
+
+    /**
+     * Тест для метода: findTopAvailableRooms
+     * Назначение: Найти несколько лучших вариантов для выбора
+     * Сценарий: Некорректный лимит
+     * Ожидаемый результат:
+     * - Выбрасывает IllegalArgumentException
+     */
+    @Test
+    void findTopAvailableRooms_WithNonPositiveLimit_ShouldThrowException() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.findTopAvailableRooms(START_DATE, END_DATE, 0));
     }
 
     /**
@@ -583,4 +996,11 @@ class RoomServiceTest {
         assertEquals("Room not found with id: " + nonExistingId, exception.getMessage());
         verify(roomRepository).findById(nonExistingId);
     }
-}
\ No newline at end of file
+
+    private BatchAvailabilityRequest.DateRange range(LocalDate startDate, LocalDate endDate) {
+        BatchAvailabilityRequest.DateRange range = new BatchAvailabilityRequest.DateRange();
+        range.setStartDate(startDate);
+        range.setEndDate(endDate);
+        return range;
+    }
+}
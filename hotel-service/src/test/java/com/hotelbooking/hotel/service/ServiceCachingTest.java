@@ -0,0 +1,250 @@
+package com.hotelbooking.hotel.service;
+
+import com.hotelbooking.hotel.entity.Hotel;
+import com.hotelbooking.hotel.entity.Room;
+import com.hotelbooking.hotel.repository.BookingSlotRepository;
+import com.hotelbooking.hotel.repository.HotelRepository;
+import com.hotelbooking.hotel.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка кэширования HotelService и RoomService на реальном CacheManager (Caffeine) и H2.
+ * Репозиторий вне транзакции каждый раз возвращает новый экземпляр сущности,
+ * поэтому тот же экземпляр при повторном чтении означает попадание в кэш.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"eureka.client.enabled=false", "spring.jpa.show-sql=false"})
+class ServiceCachingTest {
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingSlotRepository bookingSlotRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Hotel hotel;
+    private Room room;
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        hotel = new Hotel();
+        hotel.setName("Cache Hotel");
+        hotel.setAddress("Cache Street 1");
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setNumber("K1");
+        room.setType("STANDARD");
+        room.setPrice(100.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (!bookingIds.isEmpty()) {
+            bookingSlotRepository.deleteAll(bookingSlotRepository.findByBookingIdIn(bookingIds));
+        }
+        roomRepository.findByHotelId(hotel.getId()).forEach(roomRepository::delete);
+        hotelRepository.findById(hotel.getId()).ifPresent(hotelRepository::delete);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    /**
+     * Тест для методов: HotelService.findById, HotelService.findAll
+     * Назначение: Кэширование чтения отелей
+     * Сценарий: Отель и список отелей читаются дважды
+     * Ожидаемый результат:
+     * - Повторное чтение возвращает тот же экземпляр из кэшей hotels и hotelList
+     */
+    @Test
+    void hotelReads_SecondCall_ShouldBeCacheHit() {
+
+        Hotel first = hotelService.findById(hotel.getId());
+        List<Hotel> firstList = hotelService.findAll();
+
+
+        assertSame(first, hotelService.findById(hotel.getId()));
+        assertSame(firstList, hotelService.findAll());
+        assertSame(first, cached("hotels", hotel.getId()));
+        assertSame(firstList, cached("hotelList", "all"));
+    }
+
+    /**
+     * Тест для методов: HotelService.save, HotelService.update
+     * Назначение: Обновление кэша при записи отеля
+     * Сценарий: Список отелей закэширован, затем отель изменяется и создается новый
+     * Ожидаемый результат:
+     * - Запись в hotels заменяется результатом update/save
+     * - Кэш hotelList сбрасывается после каждой записи
+     */
+    @Test
+    void hotelWrites_ShouldRefreshHotelAndEvictList() {
+
+        hotelService.findById(hotel.getId());
+        hotelService.findAll();
+
+        Hotel details = new Hotel();
+        details.setName("Renamed Hotel");
+        details.setAddress("Cache Street 2");
+        Hotel updated = hotelService.update(hotel.getId(), details);
+
+        assertSame(updated, cached("hotels", hotel.getId()));
+        assertEquals("Renamed Hotel", hotelService.findById(hotel.getId()).getName());
+        assertFalse(isCached("hotelList", "all"));
+
+        hotelService.findAll();
+        Hotel created = new Hotel();
+        created.setName("Second Cache Hotel");
+        created.setAddress("Cache Street 3");
+        Hotel saved = hotelService.save(created);
+        try {
+            assertSame(saved, cached("hotels", saved.getId()));
+            assertFalse(isCached("hotelList", "all"));
+        } finally {
+            hotelRepository.delete(saved);
+        }
+    }
+
+    /**
+     * Тест для метода: HotelService.deleteById
+     * Назначение: Сброс кэшей при удалении отеля
+     * Сценарий: Отель, список отелей, номера отеля и номер закэшированы, затем отель удаляется
+     * Ожидаемый результат:
+     * - Сброшены hotels и hotelRooms по id отеля, hotelList и rooms целиком
+     */
+    @Test
+    void hotelDelete_ShouldEvictHotelListAndRooms() {
+
+        Hotel empty = new Hotel();
+        empty.setName("Empty Cache Hotel");
+        empty.setAddress("Cache Street 4");
+        empty = hotelRepository.save(empty);
+        hotelService.findById(empty.getId());
+        hotelService.findAll();
+        roomService.findRoomsByHotelId(empty.getId());
+        roomService.findById(room.getId());
+
+
+        hotelService.deleteById(empty.getId());
+
+
+        assertFalse(isCached("hotels", empty.getId()));
+        assertFalse(isCached("hotelList", "all"));
+        assertFalse(isCached("hotelRooms", empty.getId()));
+        assertFalse(isCached("rooms", room.getId()));
+    }
+
+    /**
+     * Тест для методов: RoomService.findById, RoomService.findRoomsByHotelId
+     * Назначение: Кэширование чтения номеров
+     * Сценарий: Номер и номера отеля читаются дважды
+     * Ожидаемый результат:
+     * - Повторное чтение возвращает тот же экземпляр из кэшей rooms и hotelRooms
+     */
+    @Test
+    void roomReads_SecondCall_ShouldBeCacheHit() {
+
+        Room first = roomService.findById(room.getId());
+        List<Room> firstList = roomService.findRoomsByHotelId(hotel.getId());
+
+
+        assertSame(first, roomService.findById(room.getId()));
+        assertSame(firstList, roomService.findRoomsByHotelId(hotel.getId()));
+        assertSame(first, cached("rooms", room.getId()));
+        assertSame(firstList, cached("hotelRooms", hotel.getId()));
+    }
+
+    /**
+     * Тест для методов: RoomService.save, RoomService.deleteById
+     * Назначение: Обновление кэша при записи и удалении номера
+     * Сценарий: Номер и номера отеля закэшированы, затем номер сохраняется и удаляется
+     * Ожидаемый результат:
+     * - save кладет результат в rooms и сбрасывает hotelRooms
+     * - deleteById сбрасывает номер из rooms и hotelRooms
+     */
+    @Test
+    void roomWrites_ShouldRefreshRoomAndEvictHotelRooms() {
+
+        roomService.findById(room.getId());
+        roomService.findRoomsByHotelId(hotel.getId());
+
+        room.setPrice(150.0);
+        Room saved = roomService.save(room);
+
+        assertSame(saved, cached("rooms", room.getId()));
+        assertFalse(isCached("hotelRooms", hotel.getId()));
+
+        roomService.findRoomsByHotelId(hotel.getId());
+        roomService.deleteById(room.getId());
+
+        assertFalse(isCached("rooms", room.getId()));
+        assertFalse(isCached("hotelRooms", hotel.getId()));
+    }
+
+    /**
+     * Тест для метода: RoomService.confirmAvailability
+     * Назначение: Сброс кэша номера после бронирования
+     * Сценарий: Номер и номера отеля закэшированы, затем номер бронируется
+     * Ожидаемый результат:
+     * - Номер сброшен из rooms, hotelRooms сброшен целиком
+     * - Следующее чтение видит увеличенный счетчик бронирований
+     */
+    @Test
+    void confirmAvailability_ShouldEvictRoom() {
+
+        Room before = roomService.findById(room.getId());
+        roomService.findRoomsByHotelId(hotel.getId());
+        LocalDate startDate = LocalDate.now().plusDays(40);
+        bookingIds.add(4001L);
+
+
+        assertTrue(roomService.confirmAvailability(room.getId(), startDate, startDate.plusDays(2), 4001L));
+
+
+        assertFalse(isCached("rooms", room.getId()));
+        assertFalse(isCached("hotelRooms", hotel.getId()));
+        Room after = roomService.findById(room.getId());
+        assertEquals(timesBooked(before) + 1, timesBooked(after));
+    }
+
+    private Object cached(String cacheName, Object key) {
+        Cache.ValueWrapper value = cacheManager.getCache(cacheName).get(key);
+        return value != null ? value.get() : null;
+    }
+
+    private boolean isCached(String cacheName, Object key) {
+        return cacheManager.getCache(cacheName).get(key) != null;
+    }
+
+    private int timesBooked(Room room) {
+        return room.getTimesBooked() != null ? room.getTimesBooked() : 0;
+    }
+}